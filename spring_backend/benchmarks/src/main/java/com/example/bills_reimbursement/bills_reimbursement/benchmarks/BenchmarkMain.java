@@ -0,0 +1,29 @@
+package com.example.bills_reimbursement.bills_reimbursement.benchmarks;
+
+import org.openjdk.jmh.Main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+    Entry point of benchmarks.jar. Same options as the stock JMH launcher, but
+    results are written as JSON to jmh-result.json unless -rf / -rff are given,
+    so runs from different commits can be diffed.
+*/
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> options = new ArrayList<>(Arrays.asList(args));
+        if (!options.contains("-rf")) {
+            options.addAll(List.of("-rf", "json"));
+        }
+        if (!options.contains("-rff")) {
+            options.addAll(List.of("-rff", "jmh-result.json"));
+        }
+        Main.main(options.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.bills_reimbursement.bills_reimbursement.benchmarks;
+
+import com.example.bills_reimbursement.bills_reimbursement.BillsReimbursementApplication;
+import com.example.bills_reimbursement.bills_reimbursement.dtos.Bill;
+import com.example.bills_reimbursement.bills_reimbursement.dtos.User;
+import com.example.bills_reimbursement.bills_reimbursement.repositories.BillRepository;
+import com.example.bills_reimbursement.bills_reimbursement.repositories.UserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Bill insert throughput through the real JPA mapping, batch_size 1 (one statement
+    per row, what IDENTITY ids forced) against batch_size 50. Runs on H2 in MySQL
+    mode, so there is no network round trip per statement: the gap measured here is
+    a lower bound of the gap against a remote MySQL. Scores are rows per second.
+*/
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BillInsertBenchmark {
+
+    private static final int ROWS = 500;
+
+    @Param({"1", "50"})
+    public int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private BillRepository billRepository;
+    private User owner;
+    private Path uploadDir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        uploadDir = Files.createTempDirectory("bench-uploads");
+        context = new SpringApplicationBuilder(BillsReimbursementApplication.class)
+                .logStartupInfo(false)
+                .run("--server.port=0",
+                        "--management.server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:bench" + batchSize
+                                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize,
+                        "--spring.data.redis.host=localhost",
+                        "--spring.data.redis.port=6379",
+                        "--store.type=memory",
+                        "--spring.mail.host=127.0.0.1",
+                        "--spring.mail.port=25",
+                        "--spring.mail.username=bench@axeno.co",
+                        "--spring.mail.password=",
+                        "--cors.allowed.origin=*",
+                        "--file.upload-dir=" + uploadDir + "/",
+                        "--search.index-dir=" + uploadDir.resolve("search-index"),
+                        "--logging.level.root=WARN");
+        billRepository = context.getBean(BillRepository.class);
+        owner = context.getBean(UserRepository.class).save(SampleData.user(1000));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        context.close();
+        FileSystemUtils.deleteRecursively(uploadDir);
+    }
+
+    @TearDown(Level.Iteration)
+    public void truncate() {
+        billRepository.deleteAllByOwnerId(owner.getEmployeeId());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<Bill> insert() {
+        List<Bill> bills = new ArrayList<>(ROWS);
+        for (Bill bill : SampleData.bills(ROWS)) {
+            bill.setBillId(null);
+            bill.setUser(owner);
+            bills.add(bill);
+        }
+        return billRepository.saveAllInBatches(bills);
+    }
+}
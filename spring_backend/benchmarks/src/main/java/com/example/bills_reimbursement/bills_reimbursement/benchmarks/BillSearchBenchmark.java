@@ -0,0 +1,68 @@
+package com.example.bills_reimbursement.bills_reimbursement.benchmarks;
+
+import com.example.bills_reimbursement.bills_reimbursement.search.BillSearchIndex;
+import com.example.bills_reimbursement.bills_reimbursement.search.BillSearchQuery;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.FileSystemUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Search latency of the on-disk bill index, the alternative to shipping every bill
+    to the admin client and filtering there. The repository is not needed: bills are
+    indexed directly, the way the controllers do it after each write.
+*/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BillSearchBenchmark {
+
+    @Param({"10000", "100000"})
+    public int bills;
+
+    private Path indexDir;
+    private BillSearchIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        indexDir = Files.createTempDirectory("bench-search");
+        index = new BillSearchIndex(indexDir.toString(), null, null, new SimpleMeterRegistry());
+        index.open();
+        index.index(SampleData.bills(bills));
+        index.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        index.close();
+        FileSystemUtils.deleteRecursively(indexDir);
+    }
+
+    @Benchmark
+    public BillSearchIndex.SearchHits exactWord() {
+        return index.search(new BillSearchQuery("airport", null, null, null, null, null, null, 50));
+    }
+
+    @Benchmark
+    public BillSearchIndex.SearchHits prefixAndTypo() {
+        return index.search(new BillSearchQuery("cli travl", null, null, null, null, null, null, 50));
+    }
+
+    @Benchmark
+    public BillSearchIndex.SearchHits filtered() {
+        return index.search(new BillSearchQuery("receipt", "REJECTED", 500.0, 3000.0,
+                LocalDate.of(2025, 10, 1), LocalDate.of(2026, 3, 31), null, 50));
+    }
+
+    @Benchmark
+    public BillSearchIndex.SearchHits filtersOnly() {
+        return index.search(new BillSearchQuery(null, "APPROVED", null, null, null, null, 1010, 50));
+    }
+}
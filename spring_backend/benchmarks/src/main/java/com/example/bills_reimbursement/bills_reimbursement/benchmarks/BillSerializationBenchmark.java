@@ -0,0 +1,81 @@
+package com.example.bills_reimbursement.bills_reimbursement.benchmarks;
+
+import com.example.bills_reimbursement.bills_reimbursement.dtos.Bill;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/*
+    Jackson serialization of bill lists as returned by /users/{id}/bills and /admin/bills,
+    in each encoding a client can negotiate. "json" is the reflective baseline; the others
+    use the Blackbird module like the application does. Payload sizes, raw and gzipped,
+    are printed once per trial.
+*/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BillSerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int billCount;
+
+    @Param({"json", "json-blackbird", "smile", "cbor"})
+    private String format;
+
+    private ObjectMapper objectMapper;
+    private List<Bill> bills;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // Same date handling as the application's auto-configured mapper
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        if (!format.equals("json")) {
+            builder.modulesToInstall(new BlackbirdModule());
+        }
+        if (format.equals("smile")) {
+            builder.factory(new SmileFactory());
+        } else if (format.equals("cbor")) {
+            builder.factory(new CBORFactory());
+        }
+        objectMapper = builder.build();
+        bills = SampleData.bills(billCount);
+
+        byte[] payload = serializeBills();
+        System.out.printf("%n%s, %d bills: %d bytes, %d gzipped%n",
+                format, billCount, payload.length, gzip(payload).length);
+    }
+
+    @Benchmark
+    public byte[] serializeBills() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(bills);
+    }
+
+    // What the server spends per response when the client also accepts gzip
+    @Benchmark
+    public byte[] serializeAndGzip() throws IOException {
+        return gzip(objectMapper.writeValueAsBytes(bills));
+    }
+
+    private static byte[] gzip(byte[] payload) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(payload);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.bills_reimbursement.bills_reimbursement.benchmarks;
+
+import com.example.bills_reimbursement.bills_reimbursement.duplicates.DuplicateReceiptIndex;
+import com.example.bills_reimbursement.bills_reimbursement.duplicates.PerceptualHash;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Cost of the duplicate-receipt check on the bill submission path: looking a receipt
+    up in the in-memory index, and hashing a phone-camera-sized JPEG. The index is
+    filled directly, the way the startup load does it, so no repository is needed.
+*/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DuplicateLookupBenchmark {
+
+    private static final String[] CATEGORIES = {"Travel", "Food", "Office Supplies", "Other", "Parking"};
+
+    private static final int EMPLOYEES = 2000;
+
+    @Param({"100000", "300000"})
+    public int receipts;
+
+    private DuplicateReceiptIndex index;
+    private long[] nearHashes;
+    private long[] freshHashes;
+    private byte[] jpeg;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        index = new DuplicateReceiptIndex(6, null, null, null, null, new SimpleMeterRegistry());
+        Random random = new Random(42);
+        LocalDate start = LocalDate.of(2024, 4, 1);
+        long[] hashes = new long[receipts];
+        for (int i = 0; i < receipts; i++) {
+            hashes[i] = random.nextLong();
+            index.add(i + 1, random.nextInt(EMPLOYEES), hashes[i], 100 + random.nextInt(20000) / 4.0,
+                    start.plusDays(random.nextInt(730)), CATEGORIES[random.nextInt(CATEGORIES.length)]);
+        }
+
+        // Re-photographed receipts: a few bits away from an indexed hash
+        nearHashes = new long[1024];
+        freshHashes = new long[1024];
+        for (int i = 0; i < nearHashes.length; i++) {
+            long hash = hashes[random.nextInt(receipts)];
+            for (int flip = 0; flip < 3; flip++) {
+                hash ^= 1L << random.nextInt(64);
+            }
+            nearHashes[i] = hash;
+            freshHashes[i] = random.nextLong();
+        }
+
+        BufferedImage photo = new BufferedImage(3000, 4000, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = photo.createGraphics();
+        for (int i = 0; i < 400; i++) {
+            g.setColor(new Color(random.nextInt(0xFFFFFF)));
+            g.fillRect(random.nextInt(3000), random.nextInt(4000), 50 + random.nextInt(600), 20 + random.nextInt(80));
+        }
+        g.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(photo, "jpg", out);
+        jpeg = out.toByteArray();
+    }
+
+    @Benchmark
+    public List<Integer> nearDuplicate() {
+        int i = cursor++ & 1023;
+        return index.findMatches(i % EMPLOYEES, nearHashes[i], 250.0, LocalDate.of(2025, 1, 15), "Food");
+    }
+
+    @Benchmark
+    public List<Integer> noMatch() {
+        int i = cursor++ & 1023;
+        return index.findMatches(i % EMPLOYEES, freshHashes[i], 12345.67, LocalDate.of(2025, 1, 15), "Food");
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Long hashPhoto() throws Exception {
+        return PerceptualHash.of(new ByteArrayInputStream(jpeg));
+    }
+}
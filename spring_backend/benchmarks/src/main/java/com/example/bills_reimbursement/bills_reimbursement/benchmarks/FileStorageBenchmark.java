@@ -0,0 +1,64 @@
+package com.example.bills_reimbursement.bills_reimbursement.benchmarks;
+
+import com.example.bills_reimbursement.bills_reimbursement.services.FileStorageService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/*
+    FileStorageService.storeFile for receipt-sized uploads (small photo, compressed
+    phone photo, large PDF). Written files are removed after every iteration so the
+    directory size stays constant.
+*/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FileStorageBenchmark {
+
+    @Param({"16384", "524288", "4194304"})
+    private int fileSize;
+
+    private Path uploadDir;
+    private FileStorageService fileStorageService;
+    private MockMultipartFile file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        uploadDir = Files.createTempDirectory("bench-uploads");
+        fileStorageService = new FileStorageService(uploadDir.toString(), new SimpleMeterRegistry(), ObservationRegistry.NOOP);
+        byte[] content = new byte[fileSize];
+        new Random(42).nextBytes(content);
+        file = new MockMultipartFile("billImage", "receipt.jpg", "image/jpeg", content);
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearUploads() throws IOException {
+        try (Stream<Path> files = Files.list(uploadDir)) {
+            for (Path path : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(uploadDir);
+    }
+
+    @Benchmark
+    public String storeFile() {
+        return fileStorageService.storeFile(file, 1001, "bill");
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.bills_reimbursement.bills_reimbursement.benchmarks;
+
+import com.example.bills_reimbursement.bills_reimbursement.services.OtpService;
+import com.example.bills_reimbursement.bills_reimbursement.store.InMemoryKeyValueStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+    OtpService operations against the in-process store, which stands in for Redis.
+    This measures the service's own overhead and the number of store operations per
+    call; multiply by a Redis round trip to estimate production latency.
+*/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class OtpServiceBenchmark {
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private OtpService otpService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        otpService = new OtpService();
+        ReflectionTestUtils.setField(otpService, "store", new InMemoryKeyValueStore());
+        ReflectionTestUtils.setField(otpService, "meterRegistry", new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public boolean saveAndValidate() {
+        String key = sequence.incrementAndGet() + "_RESET";
+        String otp = otpService.generateOtp();
+        otpService.saveOtp(key, otp);
+        return otpService.validateOtp(key, otp);
+    }
+
+    @Benchmark
+    public boolean canSendOtp() {
+        return otpService.canSendOtp(sequence.incrementAndGet() + "_SIGNUP");
+    }
+
+    @Benchmark
+    public boolean isVerified() {
+        return otpService.isVerified((sequence.incrementAndGet() & 1023) + "_RESET");
+    }
+}
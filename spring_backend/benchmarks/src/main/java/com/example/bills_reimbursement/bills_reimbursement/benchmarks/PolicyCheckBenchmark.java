@@ -0,0 +1,96 @@
+package com.example.bills_reimbursement.bills_reimbursement.benchmarks;
+
+import com.example.bills_reimbursement.bills_reimbursement.dtos.Bill;
+import com.example.bills_reimbursement.bills_reimbursement.events.ChangeEventHub;
+import com.example.bills_reimbursement.bills_reimbursement.events.LocalChangeEventRelay;
+import com.example.bills_reimbursement.bills_reimbursement.policy.PolicyEngine;
+import com.example.bills_reimbursement.bills_reimbursement.policy.PolicyProperties;
+import com.example.bills_reimbursement.bills_reimbursement.policy.SpendingTotals;
+import com.example.bills_reimbursement.bills_reimbursement.store.InMemoryKeyValueStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Cost of the policy check on the bill submission path, with every cap configured for
+    the submitted category, and of applying a saved bill to the running totals. The
+    totals are filled directly with two years of bills, so no repository is needed;
+    change events go through an in-process hub.
+*/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PolicyCheckBenchmark {
+
+    private static final String[] CATEGORIES = {"Travel", "Food", "Office Supplies", "Other", "Parking"};
+
+    @Param({"1000", "10000"})
+    public int employees;
+
+    private SpendingTotals totals;
+    private PolicyEngine engine;
+    private PolicyEngine.Submission[] submissions;
+    private Bill bill;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        PolicyProperties properties = new PolicyProperties();
+        properties.getDefaults().setRequired(List.of(PolicyEngine.PAYMENT_PROOF, PolicyEngine.DESCRIPTION));
+        PolicyProperties.CategoryPolicy travel = new PolicyProperties.CategoryPolicy();
+        travel.setPerBillMax(25_000.0);
+        travel.setMonthlyCap(40_000.0);
+        travel.setFiscalYearCap(300_000.0);
+        properties.getCategories().put("travel", travel);
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ChangeEventHub hub = new ChangeEventHub(new InMemoryKeyValueStore(), new LocalChangeEventRelay(),
+                new ObjectMapper(), registry, 1000, Duration.ofMinutes(30), Runnable::run);
+        totals = new SpendingTotals(null, null, properties, hub, registry);
+        engine = new PolicyEngine(properties, totals, registry);
+
+        Random random = new Random(42);
+        LocalDate start = LocalDate.of(2024, 4, 1);
+        List<Bill> all = SampleData.bills(employees * 20);
+        for (Bill sample : all) {
+            sample.setOwnerId(1000 + random.nextInt(employees));
+            sample.setReimbursementFor(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+            sample.setDate(start.plusDays(random.nextInt(730)));
+            totals.add(sample);
+        }
+        bill = all.get(0);
+
+        submissions = new PolicyEngine.Submission[1024];
+        for (int i = 0; i < submissions.length; i++) {
+            submissions[i] = new PolicyEngine.Submission(1000 + random.nextInt(employees), "Travel",
+                    100 + random.nextInt(5000), start.plusDays(random.nextInt(730)),
+                    Set.of(PolicyEngine.BILL_IMAGE, PolicyEngine.PAYMENT_PROOF, PolicyEngine.DESCRIPTION));
+        }
+    }
+
+    // Check and reserve, then release so the totals stay as set up
+    @Benchmark
+    public PolicyEngine.Decision check() {
+        PolicyEngine.Decision decision = engine.check(submissions[cursor++ & 1023], null);
+        if (decision.reservation() != null) {
+            decision.reservation().release();
+        }
+        return decision;
+    }
+
+    // A status change that changes nothing: the old contribution out, the same one back in
+    @Benchmark
+    public void applyEdit() {
+        totals.statusChanged(bill, bill.getStatus());
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.bills_reimbursement.bills_reimbursement.benchmarks;
+
+import com.example.bills_reimbursement.bills_reimbursement.dtos.Bill;
+import com.example.bills_reimbursement.bills_reimbursement.dtos.User;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+// Realistic bills and users shared by the benchmarks
+final class SampleData {
+
+    private static final String[] CATEGORIES = {"Parking", "Travel", "Food", "Office Supplies", "Other"};
+    private static final String[] STATUSES = {"Pending", "APPROVED", "REJECTED", "PAID"};
+
+    private SampleData() {
+    }
+
+    static User user(int employeeId) {
+        User user = new User();
+        user.setEmployeeId(employeeId);
+        user.setName("Employee " + employeeId);
+        user.setEmail("employee" + employeeId + "@axeno.co");
+        user.setPassword("$2a$10$abcdefghijklmnopqrstuuJ7q4Q1d3pQeLkP8yHf6oW1oYh2c9y2e");
+        user.setApproved(true);
+        return user;
+    }
+
+    static List<Bill> bills(int count) {
+        List<Bill> bills = new ArrayList<>(count);
+        LocalDate today = LocalDate.of(2026, 4, 1);
+        for (int i = 0; i < count; i++) {
+            User owner = user(1000 + i % 50);
+            Bill bill = new Bill();
+            bill.setBillId(i + 1);
+            bill.setUser(owner);
+            bill.setOwnerId(owner.getEmployeeId());
+            bill.setReimbursementFor(CATEGORIES[i % CATEGORIES.length]);
+            bill.setBillDescription("Client visit, cab from office to airport and back #" + i);
+            bill.setAmount(150.0 + (i * 37) % 4000);
+            bill.setDate(today.minusDays(i % 365));
+            bill.setApprovalMailPath("01042026_" + owner.getEmployeeId() + "_approval3f9a1c.pdf");
+            bill.setBillImagePath("01042026_" + owner.getEmployeeId() + "_bill8c2d0e.jpg");
+            bill.setPaymentProofPath("01042026_" + owner.getEmployeeId() + "_payment41be7a.png");
+            bill.setStatus(STATUSES[i % STATUSES.length]);
+            bill.setRemarks(i % 4 == 2 ? "Receipt not legible" : null);
+            bill.setCreatedAt(today.minusDays(i % 300));
+            bills.add(bill);
+        }
+        return bills;
+    }
+}
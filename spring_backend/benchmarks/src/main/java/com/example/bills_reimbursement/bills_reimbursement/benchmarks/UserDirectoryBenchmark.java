@@ -0,0 +1,116 @@
+package com.example.bills_reimbursement.bills_reimbursement.benchmarks;
+
+import com.example.bills_reimbursement.bills_reimbursement.directory.UserDirectory;
+import com.example.bills_reimbursement.bills_reimbursement.dtos.User;
+import com.example.bills_reimbursement.bills_reimbursement.events.ChangeEventHub;
+import com.example.bills_reimbursement.bills_reimbursement.events.LocalChangeEventRelay;
+import com.example.bills_reimbursement.bills_reimbursement.store.InMemoryKeyValueStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Admin user directory: typeahead by name, email and employee-id prefix, a filtered
+    page with no query, and the snapshot rebuild every user write pays. The directory
+    is filled directly, so no repository is needed.
+*/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class UserDirectoryBenchmark {
+
+    private static final String[] FIRST_NAMES = {"Aarav", "Priya", "Rahul", "Sneha", "Vikram", "Ananya", "Rohan",
+            "Kavya", "Arjun", "Meera", "Karan", "Isha", "Aditya", "Pooja", "Nikhil", "Divya"};
+    private static final String[] LAST_NAMES = {"Sharma", "Verma", "Gupta", "Iyer", "Reddy", "Nair", "Singh",
+            "Patel", "Mehta", "Kapoor", "Joshi", "Rao", "Das", "Bose", "Malhotra", "Chopra"};
+    private static final Set<UserDirectory.Filter> NO_FILTERS = EnumSet.noneOf(UserDirectory.Filter.class);
+
+    @Param({"1000", "10000"})
+    public int users;
+
+    private UserDirectory directory;
+    private String[] namePrefixes;
+    private String[] emailPrefixes;
+    private String[] idPrefixes;
+    private User edited;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        List<User> all = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            User user = SampleData.user(1000 + i);
+            String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            user.setName(first + " " + last);
+            user.setEmail(first.toLowerCase() + "." + last.toLowerCase() + (1000 + i) + "@axeno.co");
+            user.setApproved(random.nextInt(10) > 0);
+            user.setDisabled(random.nextInt(50) == 0);
+            all.add(user);
+        }
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ChangeEventHub hub = new ChangeEventHub(new InMemoryKeyValueStore(), new LocalChangeEventRelay(),
+                new ObjectMapper(), registry, 1000, Duration.ofMinutes(30), Runnable::run);
+        directory = new UserDirectory(null, null, hub, registry);
+        directory.replaceAll(all);
+        edited = all.get(users / 2);
+
+        namePrefixes = new String[1024];
+        emailPrefixes = new String[1024];
+        idPrefixes = new String[1024];
+        for (int i = 0; i < 1024; i++) {
+            User user = all.get(random.nextInt(users));
+            // What a typeahead sends after two or three keystrokes
+            namePrefixes[i] = user.getName().substring(0, 2 + random.nextInt(2));
+            emailPrefixes[i] = user.getEmail().substring(0, 5 + random.nextInt(4));
+            String id = String.valueOf(user.getEmployeeId());
+            idPrefixes[i] = id.substring(0, 2 + random.nextInt(id.length() - 1));
+        }
+    }
+
+    @Benchmark
+    public UserDirectory.Page namePrefix() {
+        return directory.find(namePrefixes[cursor++ & 1023], NO_FILTERS, 0, 20);
+    }
+
+    // Two words: "pri sha" for Priya Sharma
+    @Benchmark
+    public UserDirectory.Page twoWordPrefix() {
+        String first = namePrefixes[cursor++ & 1023];
+        String second = namePrefixes[cursor++ & 1023];
+        return directory.find(first + " " + second, NO_FILTERS, 0, 20);
+    }
+
+    @Benchmark
+    public UserDirectory.Page emailPrefix() {
+        return directory.find(emailPrefixes[cursor++ & 1023], NO_FILTERS, 0, 20);
+    }
+
+    @Benchmark
+    public UserDirectory.Page employeeIdPrefix() {
+        return directory.find(idPrefixes[cursor++ & 1023], EnumSet.of(UserDirectory.Filter.APPROVED), 0, 20);
+    }
+
+    // Third page of pending approvals, the admin screen's default view
+    @Benchmark
+    public UserDirectory.Page pendingPage() {
+        return directory.find(null, EnumSet.of(UserDirectory.Filter.PENDING), 2, 50);
+    }
+
+    @Benchmark
+    public void putUser() {
+        directory.put(edited);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.bills_reimbursement.bills_reimbursement.benchmarks;
+
+import com.example.bills_reimbursement.bills_reimbursement.dtos.User;
+import com.example.bills_reimbursement.bills_reimbursement.dtos.UserResponseDTO;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Per-request principal work: authorities for the security filter and DTO mapping
+    for user endpoints.
+*/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class UserMappingBenchmark {
+
+    private User employee;
+    private User admin;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        employee = SampleData.user(1001);
+        admin = SampleData.user(1);
+        admin.setAdmin(true);
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> employeeAuthorities() {
+        return employee.getAuthorities();
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> adminAuthorities() {
+        return admin.getAuthorities();
+    }
+
+    @Benchmark
+    public UserResponseDTO toDto() {
+        return User.toDto(employee);
+    }
+}
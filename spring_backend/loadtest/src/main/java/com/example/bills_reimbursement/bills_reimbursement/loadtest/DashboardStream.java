@@ -0,0 +1,90 @@
+package com.example.bills_reimbursement.bills_reimbursement.loadtest;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+    An admin dashboard holding GET /admin/events open for the whole run, the way the
+    browser's EventSource does: on disconnect it reconnects with Last-Event-ID.
+    Counts the events it receives so the run can compare them with what was published.
+*/
+class DashboardStream implements Runnable {
+
+    private final HttpClient http = HttpClient.newHttpClient();
+    private final String baseUrl;
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong resets = new AtomicLong();
+    private volatile String lastEventId;
+    private volatile boolean running = true;
+    private Thread thread;
+
+    DashboardStream(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    void start() {
+        thread = new Thread(this, "dashboard-stream");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void stop() {
+        running = false;
+        thread.interrupt();
+    }
+
+    long received() {
+        return received.get();
+    }
+
+    long resets() {
+        return resets.get();
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + "/admin/events"))
+                    .header("Authorization", TrafficMix.basicAuth(TrafficMix.ADMIN_ID))
+                    .header("Accept", "text/event-stream");
+            if (lastEventId != null) {
+                request.header("Last-Event-ID", lastEventId);
+            }
+            try {
+                HttpResponse<InputStream> response =
+                        http.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+                try (BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while (running && (line = reader.readLine()) != null) {
+                        if (line.startsWith("id:")) {
+                            lastEventId = line.substring(3).trim();
+                        } else if (line.startsWith("event:")) {
+                            if (line.substring(6).trim().equals("reset")) {
+                                resets.incrementAndGet();
+                            } else {
+                                received.incrementAndGet();
+                            }
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                // Reconnect below, like EventSource after its retry delay
+            }
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.bills_reimbursement.bills_reimbursement.loadtest;
+
+import com.example.bills_reimbursement.bills_reimbursement.services.FCMService;
+import com.google.firebase.FirebaseApp;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+    Stands in for Firebase: no network, just the latency of a typical FCM send so
+    that inline notifications still cost the request thread what they would in
+    production.
+*/
+public class FakeFcmService extends FCMService {
+
+    private final long latencyMillis;
+    private final AtomicLong sent = new AtomicLong();
+
+    public FakeFcmService(MeterRegistry meterRegistry, ObservationRegistry observationRegistry,
+                          ObjectProvider<FirebaseApp> firebaseApp, long latencyMillis) {
+        super(meterRegistry, observationRegistry, firebaseApp);
+        this.latencyMillis = latencyMillis;
+    }
+
+    @Override
+    public void sendNotification(String fcmToken, String title, String body) {
+        if (fcmToken == null || fcmToken.isBlank()) {
+            return;
+        }
+        try {
+            Thread.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sent.incrementAndGet();
+    }
+
+    public long sentCount() {
+        return sent.get();
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.bills_reimbursement.bills_reimbursement.loadtest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+    Keeps every sample per endpoint so percentiles are exact. A 5 minute run at a few
+    hundred requests per second is a few MB of longs.
+*/
+class LatencyRecorder {
+
+    private final Map<String, Samples> samples = new ConcurrentHashMap<>();
+
+    void record(String endpoint, long nanos, int status) {
+        samples.computeIfAbsent(endpoint, k -> new Samples()).add(nanos, status);
+    }
+
+    List<EndpointStats> summarize(double seconds) {
+        List<EndpointStats> stats = new ArrayList<>();
+        samples.forEach((endpoint, s) -> stats.add(s.summarize(endpoint, seconds)));
+        stats.sort((a, b) -> a.endpoint().compareTo(b.endpoint()));
+        return stats;
+    }
+
+    void reset() {
+        samples.clear();
+    }
+
+    record EndpointStats(String endpoint, int count, int errors, double throughput,
+                         double p50Millis, double p90Millis, double p99Millis, double maxMillis,
+                         Map<Integer, Integer> statuses) {
+    }
+
+    private static final class Samples {
+        private long[] nanos = new long[1024];
+        private int size;
+        private final Map<Integer, Integer> statuses = new LinkedHashMap<>();
+
+        synchronized void add(long value, int status) {
+            if (size == nanos.length) {
+                nanos = Arrays.copyOf(nanos, size * 2);
+            }
+            nanos[size++] = value;
+            statuses.merge(status, 1, Integer::sum);
+        }
+
+        synchronized EndpointStats summarize(String endpoint, double seconds) {
+            long[] sorted = Arrays.copyOf(nanos, size);
+            Arrays.sort(sorted);
+            int errors = 0;
+            for (Map.Entry<Integer, Integer> entry : statuses.entrySet()) {
+                if (entry.getKey() < 200 || entry.getKey() >= 400) {
+                    errors += entry.getValue();
+                }
+            }
+            return new EndpointStats(endpoint, size, errors, size / seconds,
+                    percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                    size == 0 ? 0 : sorted[size - 1] / 1e6, new LinkedHashMap<>(statuses));
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1e6;
+        }
+    }
+}
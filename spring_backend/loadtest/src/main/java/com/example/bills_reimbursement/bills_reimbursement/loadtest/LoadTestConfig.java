@@ -0,0 +1,23 @@
+package com.example.bills_reimbursement.bills_reimbursement.loadtest;
+
+import com.google.firebase.FirebaseApp;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+// Beans replacing external services while the application runs under load test
+@Configuration
+public class LoadTestConfig {
+
+    @Bean
+    @Primary
+    public FakeFcmService fakeFcmService(MeterRegistry meterRegistry, ObservationRegistry observationRegistry,
+                                         ObjectProvider<FirebaseApp> firebaseApp,
+                                         @Value("${loadtest.fcm-latency-ms:25}") long latencyMillis) {
+        return new FakeFcmService(meterRegistry, observationRegistry, firebaseApp, latencyMillis);
+    }
+}
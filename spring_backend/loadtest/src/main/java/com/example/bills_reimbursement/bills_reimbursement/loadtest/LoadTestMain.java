@@ -0,0 +1,253 @@
+package com.example.bills_reimbursement.bills_reimbursement.loadtest;
+
+import com.example.bills_reimbursement.bills_reimbursement.BillsReimbursementApplication;
+import com.example.bills_reimbursement.bills_reimbursement.directory.UserDirectory;
+import com.example.bills_reimbursement.bills_reimbursement.dtos.User;
+import com.example.bills_reimbursement.bills_reimbursement.repositories.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.web.client.RestClient;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Boots the whole backend against in-process stand-ins and replays a realistic
+    request mix:
+      MySQL -> H2 in MySQL mode (schema generated from the entities)
+      Redis -> in-process KeyValueStore (store.type=memory)
+      SMTP  -> GreenMail on a random local port
+      FCM   -> FakeFcmService with a fixed send latency
+
+    Options (all optional): --duration=60 --warmup=10 --threads=16 --employees=100
+    --fcm-latency-ms=25 --rate-limit=false --query-budget=fail --out=loadtest-result.json
+
+    With --query-budget=fail (the default) a controller call that runs more SQL
+    statements than its @QueryBudget fails, and the run exits with status 1.
+*/
+public final class LoadTestMain {
+
+    private LoadTestMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int durationSeconds = Integer.parseInt(options.getOrDefault("duration", "60"));
+        int warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "10"));
+        int threads = Integer.parseInt(options.getOrDefault("threads", "16"));
+        int employees = Integer.parseInt(options.getOrDefault("employees", "100"));
+        String out = options.getOrDefault("out", "loadtest-result.json");
+
+        GreenMail smtp = new GreenMail(ServerSetupTest.SMTP.dynamicPort())
+                .withConfiguration(GreenMailConfiguration.aConfig().withDisabledAuthentication());
+        smtp.start();
+        Path uploadDir = Files.createTempDirectory("loadtest-uploads");
+        Path indexDir = Files.createTempDirectory("loadtest-search");
+
+        long overBudget;
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(
+                BillsReimbursementApplication.class, LoadTestConfig.class)
+                .run(applicationArgs(options, smtp.getSmtp().getPort(), uploadDir, indexDir));
+        try {
+            seedUsers(context, employees);
+            int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            RestClient client = RestClient.builder().baseUrl("http://127.0.0.1:" + port).build();
+
+            DashboardStream dashboard = new DashboardStream("http://127.0.0.1:" + port);
+            dashboard.start();
+
+            LatencyRecorder recorder = new LatencyRecorder();
+            TrafficMix traffic = new TrafficMix(client, recorder, smtp, employees);
+            traffic.seed();
+
+            System.out.println("Warming up for " + warmupSeconds + "s with " + threads + " threads...");
+            drive(traffic, threads, Duration.ofSeconds(warmupSeconds));
+            recorder.reset();
+
+            System.out.println("Measuring for " + durationSeconds + "s...");
+            long start = System.nanoTime();
+            drive(traffic, threads, Duration.ofSeconds(durationSeconds));
+            double elapsed = (System.nanoTime() - start) / 1e9;
+            Thread.sleep(500);
+            dashboard.stop();
+
+            List<LatencyRecorder.EndpointStats> stats = recorder.summarize(elapsed);
+            printTable(stats, elapsed);
+            double published = context.getBean(MeterRegistry.class).find("events.published").counters().stream()
+                    .mapToDouble(Counter::count).sum();
+            System.out.printf("Change events: %.0f published, %d received by the dashboard stream, %d resets%n%n",
+                    published, dashboard.received(), dashboard.resets());
+            overBudget = printQueries(context.getBean(MeterRegistry.class));
+            writeJson(out, options, threads, elapsed, stats, context.getBean(FakeFcmService.class).sentCount(),
+                    (long) published, dashboard.received(), overBudget);
+            System.out.println("Results written to " + out);
+        } finally {
+            context.close();
+            smtp.stop();
+            FileSystemUtils.deleteRecursively(uploadDir);
+            FileSystemUtils.deleteRecursively(indexDir);
+        }
+        if (overBudget > 0) {
+            System.out.println(overBudget + " requests went over their query budget");
+            System.exit(1);
+        }
+    }
+
+    static String emailOf(int employeeId) {
+        return "employee" + employeeId + "@axeno.co";
+    }
+
+    private static String[] applicationArgs(Map<String, String> options, int smtpPort, Path uploadDir,
+                                            Path indexDir) {
+        // Command-line arguments outrank application.properties and the .env placeholders
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("server.port", "0");
+        properties.put("management.server.port", "0");
+        properties.put("spring.datasource.url",
+                "jdbc:h2:mem:loadtest;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        properties.put("spring.datasource.username", "sa");
+        properties.put("spring.datasource.password", "");
+        properties.put("spring.jpa.hibernate.ddl-auto", "create");
+        properties.put("spring.jpa.show-sql", "false");
+        properties.put("spring.data.redis.host", "localhost");
+        properties.put("spring.data.redis.port", "6379");
+        properties.put("store.type", "memory");
+        properties.put("spring.mail.host", "127.0.0.1");
+        properties.put("spring.mail.port", String.valueOf(smtpPort));
+        properties.put("spring.mail.username", "expenz@axeno.co");
+        properties.put("spring.mail.password", "");
+        properties.put("spring.mail.properties.mail.smtp.auth", "false");
+        properties.put("spring.mail.properties.mail.smtp.starttls.enable", "false");
+        properties.put("cors.allowed.origin", "*");
+        properties.put("file.upload-dir", uploadDir.toString() + File.separator);
+        properties.put("search.index-dir", indexDir.toString());
+        properties.put("ratelimit.enabled", options.getOrDefault("rate-limit", "false"));
+        properties.put("loadtest.fcm-latency-ms", options.getOrDefault("fcm-latency-ms", "25"));
+        properties.put("querybudget.mode", options.getOrDefault("query-budget", "fail"));
+
+        List<String> args = new ArrayList<>();
+        properties.forEach((key, value) -> args.add("--" + key + "=" + value));
+        return args.toArray(new String[0]);
+    }
+
+    private static void seedUsers(ConfigurableApplicationContext context, int employees) {
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        // One hash for everyone — seeding thousands of BCrypt hashes would take minutes
+        String hash = context.getBean(PasswordEncoder.class).encode(TrafficMix.PASSWORD);
+        List<User> users = new ArrayList<>();
+        users.add(user(TrafficMix.ADMIN_ID, "Load Test Admin", hash, true));
+        for (int i = 0; i < employees; i++) {
+            int employeeId = TrafficMix.FIRST_EMPLOYEE_ID + i;
+            users.add(user(employeeId, "Employee " + employeeId, hash, false));
+        }
+        userRepository.saveAll(users);
+        // Seeded behind the controllers' back, after the directory loaded
+        context.getBean(UserDirectory.class).reload();
+    }
+
+    private static User user(int employeeId, String name, String hash, boolean admin) {
+        User user = new User();
+        user.setEmployeeId(employeeId);
+        user.setName(name);
+        user.setEmail(emailOf(employeeId));
+        user.setPassword(hash);
+        user.setAdmin(admin);
+        user.setApproved(true);
+        user.setFcmToken("fake-token-" + employeeId);
+        return user;
+    }
+
+    private static void drive(TrafficMix traffic, int threads, Duration duration) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            workers.submit(() -> {
+                while (System.nanoTime() < deadline) {
+                    traffic.runOnce();
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(duration.toSeconds() + 60, TimeUnit.SECONDS);
+    }
+
+    private static void printTable(List<LatencyRecorder.EndpointStats> stats, double elapsed) {
+        System.out.printf("%n%-34s %8s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "count", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        int total = 0;
+        for (LatencyRecorder.EndpointStats s : stats) {
+            total += s.count();
+            System.out.printf("%-34s %8d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+                    s.endpoint(), s.count(), s.errors(), s.throughput(),
+                    s.p50Millis(), s.p90Millis(), s.p99Millis(), s.maxMillis());
+        }
+        System.out.printf("%-34s %8d %7s %9.1f%n%n", "total", total, "", total / elapsed);
+    }
+
+    // SQL statements per controller call, warm-up included; returns the requests over budget
+    private static long printQueries(MeterRegistry meterRegistry) {
+        System.out.printf("%-52s %8s %9s %5s %12s%n", "SQL statements per request", "count", "mean", "max", "over budget");
+        long overBudget = 0;
+        List<DistributionSummary> summaries = new ArrayList<>(
+                meterRegistry.find("http.server.requests.queries").summaries());
+        summaries.sort(Comparator.comparing(summary -> summary.getId().getTag("uri") + " " + summary.getId().getTag("method")));
+        for (DistributionSummary summary : summaries) {
+            String method = summary.getId().getTag("method");
+            String uri = summary.getId().getTag("uri");
+            Counter exceeded = meterRegistry.find("http.server.requests.queries.exceeded")
+                    .tag("method", method).tag("uri", uri).counter();
+            long over = exceeded != null ? (long) exceeded.count() : 0;
+            overBudget += over;
+            System.out.printf("%-52s %8d %9.2f %5.0f %12d%n", method + " " + uri, summary.count(),
+                    summary.mean(), summary.max(), over);
+        }
+        System.out.println();
+        return overBudget;
+    }
+
+    private static void writeJson(String out, Map<String, String> options, int threads, double elapsed,
+                                  List<LatencyRecorder.EndpointStats> stats, long fcmSent,
+                                  long eventsPublished, long eventsReceived, long overBudget) throws Exception {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("options", options);
+        result.put("threads", threads);
+        result.put("durationSeconds", elapsed);
+        result.put("fcmNotificationsSent", fcmSent);
+        result.put("changeEventsPublished", eventsPublished);
+        result.put("changeEventsReceived", eventsReceived);
+        result.put("requestsOverQueryBudget", overBudget);
+        result.put("endpoints", stats);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(new File(out), result);
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        return options;
+    }
+}
@@ -0,0 +1,360 @@
+package com.example.bills_reimbursement.bills_reimbursement.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+    Weighted mix of the requests the Flutter app makes. Each step is recorded under
+    its route template so results group by endpoint, not by id.
+*/
+class TrafficMix {
+
+    static final String PASSWORD = "LoadTest@123";
+    static final int ADMIN_ID = 1;
+    static final int FIRST_EMPLOYEE_ID = 1001;
+
+    private static final Pattern OTP_PATTERN = Pattern.compile("Your OTP is: (\\d{6})");
+    private static final String[] CATEGORIES = {"Travel", "Food", "Office Supplies", "Other", "Parking"};
+    // Includes a typo ("travl") and a name search to exercise fuzzy and employee matching
+    private static final String[] SEARCHES = {"client", "cab", "meal", "travl", "employee 10"};
+
+    private final RestClient client;
+    private final LatencyRecorder recorder;
+    private final GreenMail smtp;
+    private final int employees;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final byte[] billImage;
+    private final byte[] paymentProof;
+
+    private final Pool<int[]> bills = new Pool<>(5000);
+    private final Pool<String> files = new Pool<>(5000);
+    private final AtomicInteger otpCursor = new AtomicInteger();
+    private final Map<Integer, String> syncTokens = new ConcurrentHashMap<>();
+
+    TrafficMix(RestClient client, LatencyRecorder recorder, GreenMail smtp, int employees) {
+        this.client = client;
+        this.recorder = recorder;
+        this.smtp = smtp;
+        this.employees = employees;
+        Random random = new Random(7);
+        this.billImage = new byte[180 * 1024];
+        this.paymentProof = new byte[60 * 1024];
+        random.nextBytes(billImage);
+        random.nextBytes(paymentProof);
+    }
+
+    // Gives every employee a couple of bills so reads and downloads have data from the start
+    void seed() {
+        for (int i = 0; i < employees; i++) {
+            int employeeId = FIRST_EMPLOYEE_ID + i;
+            submitBill(employeeId);
+            submitBill(employeeId);
+        }
+        listOwnBills(FIRST_EMPLOYEE_ID);
+    }
+
+    void runOnce() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int employeeId = FIRST_EMPLOYEE_ID + random.nextInt(employees);
+        int roll = random.nextInt(100);
+        if (roll < 10) {
+            listOwnBills(employeeId);
+        } else if (roll < 18) {
+            listOwnBillSummaries(employeeId);
+        } else if (roll < 30) {
+            syncOwnBills(employeeId);
+        } else if (roll < 42) {
+            submitBill(employeeId);
+        } else if (roll < 45) {
+            submitBillBatch(employeeId);
+        } else if (roll < 60) {
+            downloadFile(employeeId);
+        } else if (roll < 68) {
+            getBill();
+        } else if (roll < 72) {
+            adminListBills();
+        } else if (roll < 76) {
+            adminSearchBills();
+        } else if (roll < 78) {
+            adminListUsers();
+        } else if (roll < 80) {
+            adminUserTypeahead(employeeId);
+        } else if (roll < 92) {
+            updateStatus();
+        } else if (roll < 94) {
+            deleteBill();
+        } else {
+            otpFlow();
+        }
+    }
+
+    private void listOwnBills(int employeeId) {
+        Response response = call("GET /users/{id}/bills", employeeId, spec -> spec
+                .get().uri("/users/{id}/bills", employeeId));
+        if (response.ok() && ThreadLocalRandom.current().nextInt(4) == 0) {
+            for (JsonNode bill : response.json(objectMapper)) {
+                files.add(bill.path("billImagePath").asText());
+            }
+        }
+    }
+
+    // The mobile list view: just the fields it shows
+    private void listOwnBillSummaries(int employeeId) {
+        call("GET /users/{id}/bills?fields", employeeId, spec -> spec
+                .get().uri("/users/{id}/bills?fields=billId,reimbursementFor,amount,date,status", employeeId));
+    }
+
+    // Reconnect after being offline: only bills changed since the last sync, plus deletes
+    private void syncOwnBills(int employeeId) {
+        String token = syncTokens.getOrDefault(employeeId, "0");
+        Response response = call("GET /users/{id}/bills?since", employeeId, spec -> spec
+                .get().uri("/users/{id}/bills?since={token}", employeeId, token));
+        if (response.ok()) {
+            syncTokens.put(employeeId, response.json(objectMapper).path("syncToken").asText("0"));
+        }
+    }
+
+    private void submitBill(int employeeId) {
+        MultiValueMap<String, Object> form = new LinkedMultiValueMap<>();
+        form.add("reimbursementFor", CATEGORIES[ThreadLocalRandom.current().nextInt(CATEGORIES.length)]);
+        form.add("description", "Client visit — cab and meals");
+        form.add("amount", String.valueOf(100 + ThreadLocalRandom.current().nextInt(5000)));
+        form.add("date", LocalDate.now().minusDays(ThreadLocalRandom.current().nextInt(60)).toString());
+        form.add("billImage", file(billImage, "receipt.jpg"));
+        form.add("paymentProof", file(paymentProof, "upi.png"));
+        Response response = call("POST /users/{id}/bills", employeeId, spec -> spec
+                .post().uri("/users/{id}/bills", employeeId)
+                .contentType(MediaType.MULTIPART_FORM_DATA)
+                .body(form));
+        if (response.ok()) {
+            bills.add(new int[]{response.json(objectMapper).path("id").asInt(), employeeId});
+        }
+    }
+
+    // Back online after a trip: the offline queue sent as one batch of four bills
+    private void submitBillBatch(int employeeId) {
+        MultiValueMap<String, Object> form = new LinkedMultiValueMap<>();
+        List<Map<String, Object>> manifest = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            manifest.add(Map.of(
+                    "reimbursementFor", CATEGORIES[ThreadLocalRandom.current().nextInt(CATEGORIES.length)],
+                    "description", "Client visit — cab and meals",
+                    "amount", 100 + ThreadLocalRandom.current().nextInt(5000),
+                    "date", LocalDate.now().minusDays(ThreadLocalRandom.current().nextInt(60)).toString()));
+            form.add("billImage[" + i + "]", file(billImage, "receipt.jpg"));
+            form.add("paymentProof[" + i + "]", file(paymentProof, "upi.png"));
+        }
+        try {
+            form.add("bills", objectMapper.writeValueAsString(manifest));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        Response response = call("POST /users/{id}/bills/batch", employeeId, spec -> spec
+                .post().uri("/users/{id}/bills/batch", employeeId)
+                .contentType(MediaType.MULTIPART_FORM_DATA)
+                .body(form));
+        if (response.ok()) {
+            for (JsonNode created : response.json(objectMapper).path("created")) {
+                bills.add(new int[]{created.path("id").asInt(), employeeId});
+            }
+        }
+    }
+
+    private void getBill() {
+        int[] bill = bills.pick();
+        if (bill == null) {
+            return;
+        }
+        call("GET /users/{id}/bills/{billId}", bill[1], spec -> spec
+                .get().uri("/users/{id}/bills/{billId}", bill[1], bill[0]));
+    }
+
+    // Open the bill, then delete it unless it's paid; its files leave the download pool first
+    private void deleteBill() {
+        int[] bill = bills.take();
+        if (bill == null) {
+            return;
+        }
+        Response opened = call("GET /users/{id}/bills/{billId}", bill[1], spec -> spec
+                .get().uri("/users/{id}/bills/{billId}", bill[1], bill[0]));
+        if (!opened.ok()) {
+            return;
+        }
+        JsonNode details = opened.json(objectMapper);
+        if ("PAID".equalsIgnoreCase(details.path("status").asText())) {
+            return;
+        }
+        files.remove(details.path("billImagePath").asText());
+        files.remove(details.path("paymentProofPath").asText());
+        call("DELETE /users/{id}/bills/{billId}", bill[1], spec -> spec
+                .delete().uri("/users/{id}/bills/{billId}", bill[1], bill[0]));
+    }
+
+    private void downloadFile(int employeeId) {
+        String filename = files.pick();
+        if (filename == null) {
+            return;
+        }
+        call("GET /files/{filename}", employeeId, spec -> spec.get().uri("/files/{name}", filename));
+    }
+
+    private void adminListBills() {
+        call("GET /admin/bills", ADMIN_ID, spec -> spec.get().uri("/admin/bills"));
+    }
+
+    private void adminSearchBills() {
+        String text = SEARCHES[ThreadLocalRandom.current().nextInt(SEARCHES.length)];
+        call("GET /admin/bills/search", ADMIN_ID, spec -> spec
+                .get().uri("/admin/bills/search?q={q}&status=PENDING&limit=50", text));
+    }
+
+    private void adminListUsers() {
+        call("GET /admin/users", ADMIN_ID, spec -> spec.get().uri("/admin/users"));
+    }
+
+    // What an admin typing an employee id into the directory search sends
+    private void adminUserTypeahead(int employeeId) {
+        String id = String.valueOf(employeeId);
+        String prefix = id.substring(0, 1 + ThreadLocalRandom.current().nextInt(id.length()));
+        call("GET /admin/users/directory", ADMIN_ID, spec -> spec
+                .get().uri("/admin/users/directory?q={q}&filter=approved&size=20", prefix));
+    }
+
+    private void updateStatus() {
+        int[] bill = bills.pick();
+        if (bill == null) {
+            return;
+        }
+        String status = ThreadLocalRandom.current().nextInt(4) == 0 ? "REJECTED" : "APPROVED";
+        call("PUT /admin/bills/{billId}/status", ADMIN_ID, spec -> spec
+                .put().uri("/admin/bills/{billId}/status", bill[0])
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Map.of("status", status, "remarks", "Checked by load test")));
+    }
+
+    // Password-reset OTP: request it, read it from the fake SMTP server, verify it
+    private void otpFlow() {
+        int employeeId = FIRST_EMPLOYEE_ID + Math.floorMod(otpCursor.getAndIncrement(), employees);
+        String email = LoadTestMain.emailOf(employeeId);
+        Response sent = call("POST /users/{id}/send-otp", null, spec -> spec
+                .post().uri("/users/{id}/send-otp?email={email}&signUp=false", employeeId, email));
+        if (!sent.ok()) {
+            return;
+        }
+        String otp = latestOtp(email);
+        if (otp == null) {
+            return;
+        }
+        call("POST /users/{id}/verify-otp", null, spec -> spec
+                .post().uri("/users/{id}/verify-otp?otp={otp}&signUp=false", employeeId, otp));
+    }
+
+    private String latestOtp(String email) {
+        MimeMessage[] messages = smtp.getReceivedMessagesForDomain(email);
+        if (messages.length == 0) {
+            return null;
+        }
+        Matcher matcher = OTP_PATTERN.matcher(GreenMailUtil.getBody(messages[messages.length - 1]));
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private Response call(String endpoint, Integer employeeId,
+                          Function<RestClient, RestClient.RequestHeadersSpec<?>> request) {
+        long start = System.nanoTime();
+        Response response;
+        try {
+            RestClient.RequestHeadersSpec<?> spec = request.apply(client);
+            if (employeeId != null) {
+                spec.header(HttpHeaders.AUTHORIZATION, basicAuth(employeeId));
+            }
+            response = spec.exchange((req, res) -> new Response(res.getStatusCode().value(), res.getBody().readAllBytes()));
+        } catch (RuntimeException e) {
+            response = new Response(-1, new byte[0]);
+        }
+        recorder.record(endpoint, System.nanoTime() - start, response.status());
+        return response;
+    }
+
+    static String basicAuth(int employeeId) {
+        return "Basic " + Base64.getEncoder()
+                .encodeToString((employeeId + ":" + PASSWORD).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ByteArrayResource file(byte[] content, String filename) {
+        return new ByteArrayResource(content) {
+            @Override
+            public String getFilename() {
+                return filename;
+            }
+        };
+    }
+
+    private record Response(int status, byte[] body) {
+        boolean ok() {
+            return status >= 200 && status < 300;
+        }
+
+        JsonNode json(ObjectMapper objectMapper) {
+            try {
+                return objectMapper.readTree(body);
+            } catch (IOException e) {
+                return objectMapper.createObjectNode();
+            }
+        }
+    }
+
+    // Bounded sample of ids/filenames seen so far; random replacement once full
+    private static final class Pool<T> {
+        private final List<T> items = new ArrayList<>();
+        private final int capacity;
+
+        Pool(int capacity) {
+            this.capacity = capacity;
+        }
+
+        synchronized void add(T item) {
+            if (items.size() < capacity) {
+                items.add(item);
+            } else {
+                items.set(ThreadLocalRandom.current().nextInt(capacity), item);
+            }
+        }
+
+        synchronized void remove(T item) {
+            items.removeIf(item::equals);
+        }
+
+        synchronized T take() {
+            return items.isEmpty() ? null : items.remove(ThreadLocalRandom.current().nextInt(items.size()));
+        }
+
+        synchronized T pick() {
+            return items.isEmpty() ? null : items.get(ThreadLocalRandom.current().nextInt(items.size()));
+        }
+    }
+}
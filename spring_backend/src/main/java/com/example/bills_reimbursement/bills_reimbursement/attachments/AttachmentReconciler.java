@@ -0,0 +1,318 @@
+package com.example.bills_reimbursement.bills_reimbursement.attachments;
+
+import com.example.bills_reimbursement.bills_reimbursement.jobs.ClusterScheduled;
+import com.example.bills_reimbursement.bills_reimbursement.jobs.JobContext;
+import com.example.bills_reimbursement.bills_reimbursement.repositories.BillRepository;
+import com.example.bills_reimbursement.bills_reimbursement.services.FileStorageService;
+import com.example.bills_reimbursement.bills_reimbursement.tenancy.TenantContext;
+import com.example.bills_reimbursement.bills_reimbursement.tenancy.Tenants;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/*
+    Finds attachments the bills table and the upload directory disagree about. Storing
+    a file and saving its bill aren't atomic, and a failed delete only logs, so over
+    time uploads/ collects files no bill points at (orphans), and bills can point at
+    files that are gone (missing).
+
+    Per tenant, in three passes, none of which holds more than one batch of rows or one
+    directory entry at a time:
+    1. Stream the path columns in keyset batches into a Bloom filter of referenced names.
+    2. Walk the directory. Every name goes into a second Bloom filter of names on disk.
+       A name the first filter has never seen is certainly unreferenced; if the file is
+       older than min-age (so not an upload whose bill is still being saved) it is an
+       orphan. Only these candidates are stat'ed.
+    3. Stream the path columns again. A name the disk filter has never seen is checked
+       with a stat, since it may have been stored after the walk; if it's absent the
+       bill's file is missing.
+    False positives only ever hide a problem (an orphan that looks referenced, a missing
+    file that looks present, about 1% of them) — a referenced file is never moved.
+
+    Each run writes .reconcile/<time>/report.txt in the tenant's upload directory when
+    it finds anything. With quarantine on, orphans are moved into that same directory
+    instead of being deleted, and run directories older than quarantine-retention are
+    removed at the start of the next run. Directory entries and stats are paced at
+    io-per-second. Only names in the upload pattern are considered, so the tenants/
+    directory and anything put there by hand are left alone.
+
+    Runs once per cluster, so uploads/ must be the same directory on every node — as
+    serving /files from any node already requires.
+*/
+@Component
+public class AttachmentReconciler {
+
+    private static final Logger log = LoggerFactory.getLogger(AttachmentReconciler.class);
+
+    private static final String RECONCILE_DIR = ".reconcile";
+
+    private static final int BATCH = 1000;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    // ddMMyyyy_<employeeId>_<type><6 hex chars><original extension> — see FileStorageService.storeFile
+    private static final Pattern UPLOAD_NAME = Pattern.compile("\\d{8}_\\d+_(bill|approval|payment)[0-9a-f]{6}(\\..*)?");
+    private static final DateTimeFormatter RUN_NAME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneId.systemDefault());
+
+    private final BillRepository billRepository;
+    private final FileStorageService fileStorageService;
+    private final Tenants tenants;
+    private final boolean quarantine;
+    private final Duration minAge;
+    private final Duration quarantineRetention;
+    private final long ioIntervalNanos;
+
+    private final Counter orphansFound;
+    private final Counter missingFound;
+    private final Counter quarantinedBytes;
+    private final Counter bytesDeleted;
+
+    public AttachmentReconciler(BillRepository billRepository, FileStorageService fileStorageService, Tenants tenants,
+                                @Value("${storage.reconcile.quarantine:false}") boolean quarantine,
+                                @Value("${storage.reconcile.min-age:24h}") Duration minAge,
+                                @Value("${storage.reconcile.quarantine-retention:30d}") Duration quarantineRetention,
+                                @Value("${storage.reconcile.io-per-second:500}") int ioPerSecond,
+                                MeterRegistry meterRegistry) {
+        if (ioPerSecond < 1) {
+            throw new IllegalStateException("storage.reconcile.io-per-second must be at least 1");
+        }
+        this.billRepository = billRepository;
+        this.fileStorageService = fileStorageService;
+        this.tenants = tenants;
+        this.quarantine = quarantine;
+        this.minAge = minAge;
+        this.quarantineRetention = quarantineRetention;
+        this.ioIntervalNanos = TimeUnit.SECONDS.toNanos(1) / ioPerSecond;
+
+        this.orphansFound = meterRegistry.counter("storage.reconcile.files", "problem", "orphan");
+        this.missingFound = meterRegistry.counter("storage.reconcile.files", "problem", "missing");
+        this.quarantinedBytes = Counter.builder("storage.reconcile.quarantined.bytes").baseUnit("bytes").register(meterRegistry);
+        // Same meter FileStorageService counts its deletes in
+        this.bytesDeleted = Counter.builder("storage.bytes").tag("op", "delete").baseUnit("bytes").register(meterRegistry);
+    }
+
+    // Weekly, on one node, for every tenant
+    @ClusterScheduled(name = "attachment-reconcile", cron = "${storage.reconcile.cron:0 0 4 * * SUN}")
+    public void reconcile(JobContext context) {
+        tenants.forEach(() -> {
+            try {
+                Report report = reconcileCurrentTenant(context);
+                log.info("Attachment reconcile ({}): {} files, {} orphans ({} bytes{}), {} missing, {} references, filters {} KB, in {} ms",
+                        TenantContext.current(), report.files, report.orphans, report.orphanBytes,
+                        quarantine ? " quarantined" : "", report.missing, report.references,
+                        report.filterBytes / 1024, report.millis);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private Report reconcileCurrentTenant(JobContext context) throws IOException {
+        Path directory = fileStorageService.getStorageLocation();
+        Report report = new Report();
+        long start = System.currentTimeMillis();
+        Instant runAt = Instant.now();
+        // A file older than this was stored well before the filter below is built, so its bill is in it
+        Instant orphanedBefore = runAt.minus(minAge);
+        Pacer pacer = new Pacer(ioIntervalNanos);
+        Path runDirectory = directory.resolve(RECONCILE_DIR).resolve(RUN_NAME.format(runAt));
+
+        purgeOldRuns(directory.resolve(RECONCILE_DIR), runAt.minus(quarantineRetention));
+
+        long expected = Math.max(BATCH, billRepository.count() * 3);
+        BloomFilter referenced = new BloomFilter(expected, FALSE_POSITIVE_RATE);
+        forEachReference(context, (billId, name) -> {
+            referenced.add(name);
+            report.references++;
+        });
+
+        // Sized for a fair number of orphans on top of the referenced files
+        BloomFilter onDisk = new BloomFilter(expected + expected / 4, FALSE_POSITIVE_RATE);
+        report.filterBytes = referenced.sizeInBytes() + onDisk.sizeInBytes();
+        try (ReportWriter writer = new ReportWriter(runDirectory)) {
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                for (Path file : entries) {
+                    pacer.pace();
+                    String name = file.getFileName().toString();
+                    if (!UPLOAD_NAME.matcher(name).matches()) {
+                        continue;
+                    }
+                    onDisk.add(name);
+                    if (++report.files % BATCH == 0) {
+                        context.checkLease();
+                    }
+                    if (referenced.mightContain(name)) {
+                        continue;
+                    }
+                    pacer.pace();
+                    BasicFileAttributes attributes;
+                    try {
+                        attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                    } catch (NoSuchFileException e) {
+                        continue;
+                    }
+                    if (!attributes.isRegularFile() || attributes.lastModifiedTime().toInstant().isAfter(orphanedBefore)) {
+                        continue;
+                    }
+                    report.orphans++;
+                    report.orphanBytes += attributes.size();
+                    orphansFound.increment();
+                    writer.line("orphan " + name + " " + attributes.size() + " bytes");
+                    if (quarantine) {
+                        pacer.pace();
+                        Files.move(file, runDirectory.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+                        quarantinedBytes.increment(attributes.size());
+                    }
+                }
+            }
+
+            forEachReference(context, (billId, name) -> {
+                if (onDisk.mightContain(name)) {
+                    return;
+                }
+                pacer.pace();
+                if (!Files.exists(directory.resolve(name))) {
+                    report.missing++;
+                    missingFound.increment();
+                    writer.line("missing " + name + " bill " + billId);
+                }
+            });
+        }
+        report.millis = System.currentTimeMillis() - start;
+        return report;
+    }
+
+    private void forEachReference(JobContext context, ReferenceConsumer consumer) {
+        Integer afterId = 0;
+        List<BillRepository.AttachmentRow> batch;
+        do {
+            context.checkLease();
+            batch = billRepository.findAttachmentBatch(afterId, PageRequest.of(0, BATCH));
+            for (BillRepository.AttachmentRow row : batch) {
+                accept(consumer, row.getBillId(), row.getBillImagePath());
+                accept(consumer, row.getBillId(), row.getApprovalMailPath());
+                accept(consumer, row.getBillId(), row.getPaymentProofPath());
+                afterId = row.getBillId();
+            }
+        } while (batch.size() == BATCH);
+    }
+
+    private static void accept(ReferenceConsumer consumer, Integer billId, String name) {
+        if (name != null && !name.isBlank()) {
+            consumer.accept(billId, name);
+        }
+    }
+
+    // Removes run directories (reports and quarantined files) older than the retention
+    private void purgeOldRuns(Path reconcileDirectory, Instant before) throws IOException {
+        if (!Files.isDirectory(reconcileDirectory)) {
+            return;
+        }
+        String cutoff = RUN_NAME.format(before);
+        try (DirectoryStream<Path> runs = Files.newDirectoryStream(reconcileDirectory, Files::isDirectory)) {
+            for (Path run : runs) {
+                if (run.getFileName().toString().compareTo(cutoff) >= 0) {
+                    continue;
+                }
+                long freed = 0;
+                try (Stream<Path> files = Files.list(run)) {
+                    for (Path file : (Iterable<Path>) files::iterator) {
+                        freed += Files.size(file);
+                        Files.delete(file);
+                    }
+                }
+                Files.delete(run);
+                bytesDeleted.increment(freed);
+                log.info("Attachment reconcile ({}): removed {} ({} bytes)", TenantContext.current(), run.getFileName(), freed);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface ReferenceConsumer {
+        void accept(Integer billId, String name);
+    }
+
+    private static final class Report {
+        long references;
+        long files;
+        long orphans;
+        long orphanBytes;
+        long missing;
+        long filterBytes;
+        long millis;
+    }
+
+    // Spaces I/O operations at least interval apart, so the walk doesn't compete with uploads
+    private static final class Pacer {
+        private final long intervalNanos;
+        private long next = System.nanoTime();
+
+        Pacer(long intervalNanos) {
+            this.intervalNanos = intervalNanos;
+        }
+
+        void pace() {
+            long now = System.nanoTime();
+            if (next > now) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(next - now);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted during attachment reconcile", e);
+                }
+            }
+            next = Math.max(next, now) + intervalNanos;
+        }
+    }
+
+    // Creates the run directory and report only once there is something to write
+    private static final class ReportWriter implements AutoCloseable {
+        private final Path runDirectory;
+        private BufferedWriter writer;
+
+        ReportWriter(Path runDirectory) {
+            this.runDirectory = runDirectory;
+        }
+
+        void line(String line) {
+            try {
+                if (writer == null) {
+                    Files.createDirectories(runDirectory);
+                    writer = Files.newBufferedWriter(runDirectory.resolve("report.txt"));
+                }
+                writer.write(line);
+                writer.newLine();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.bills_reimbursement.bills_reimbursement.attachments;
+
+/*
+    Fixed-size Bloom filter over strings: about 1.2 bytes per entry at a 1% false
+    positive rate, against ~100 for a HashSet of file names. No false negatives —
+    mightContain is true for everything added, and for anything else with roughly the
+    rate it was sized for. Not thread-safe.
+*/
+final class BloomFilter {
+
+    private static final double LN2 = Math.log(2);
+    private static final long SECOND_HASH_SEED = 0x9E3779B97F4A7C15L;
+
+    private final long[] bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    BloomFilter(long expectedEntries, double falsePositiveRate) {
+        long entries = Math.max(expectedEntries, 1);
+        long wanted = (long) Math.ceil(-entries * Math.log(falsePositiveRate) / (LN2 * LN2));
+        this.bits = new long[(int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (wanted + 63) >>> 6))];
+        this.bitCount = (long) bits.length << 6;
+        this.hashCount = (int) Math.max(1, Math.round((double) bitCount / entries * LN2));
+    }
+
+    void add(String value) {
+        long h1 = hash(value);
+        long h2 = mix(h1 ^ SECOND_HASH_SEED) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    boolean mightContain(String value) {
+        long h1 = hash(value);
+        long h2 = mix(h1 ^ SECOND_HASH_SEED) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long sizeInBytes() {
+        return (long) bits.length * Long.BYTES;
+    }
+
+    // FNV-1a over the chars, then a full avalanche so nearby names spread out
+    private static long hash(String value) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        return mix(h);
+    }
+
+    // MurmurHash3's 64-bit finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+}
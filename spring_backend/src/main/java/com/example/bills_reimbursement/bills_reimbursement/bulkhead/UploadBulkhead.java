@@ -0,0 +1,178 @@
+package com.example.bills_reimbursement.bills_reimbursement.bulkhead;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+    Admission control for uploads: at most max-concurrent in progress, at most
+    queue-size more waiting in arrival order, and a byte budget that refills at
+    bytes-per-second. An upload is admitted when it is first in line, a slot is free
+    and the budget isn't overdrawn; it then takes its whole size from the budget, so
+    one large upload delays the next ones instead of being refused outright. Anything
+    beyond the queue, or still waiting after max-wait, is turned away at once so the
+    caller can answer 503 instead of holding a request thread.
+*/
+@Component
+public class UploadBulkhead {
+
+    private final int maxConcurrent;
+    private final int queueSize;
+    private final long maxWaitNanos;
+    private final double bytesPerNano;
+    private final double burstBytes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    // Waiting uploads, one token object each, compared by identity
+    private final ArrayDeque<Object> queue = new ArrayDeque<>();
+    private int active;
+    private long queuedBytes;
+    private double budget;
+    private long refilledAt = System.nanoTime();
+
+    private final Timer waitTimer;
+    private final Counter queueFull;
+    private final Counter timedOut;
+    private final DistributionSummary admittedBytes;
+
+    public UploadBulkhead(@Value("${uploads.bulkhead.max-concurrent:4}") int maxConcurrent,
+                          @Value("${uploads.bulkhead.queue-size:20}") int queueSize,
+                          @Value("${uploads.bulkhead.max-wait:15s}") Duration maxWait,
+                          @Value("${uploads.bulkhead.bytes-per-second:20MB}") DataSize bytesPerSecond,
+                          MeterRegistry meterRegistry) {
+        if (maxConcurrent < 1 || queueSize < 0 || bytesPerSecond.toBytes() < 1) {
+            throw new IllegalStateException("uploads.bulkhead needs max-concurrent >= 1, queue-size >= 0 and a positive bytes-per-second");
+        }
+        this.maxConcurrent = maxConcurrent;
+        this.queueSize = queueSize;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.bytesPerNano = bytesPerSecond.toBytes() / 1e9;
+        // One second's worth can go out at once after a quiet spell
+        this.burstBytes = bytesPerSecond.toBytes();
+        this.budget = burstBytes;
+
+        this.waitTimer = Timer.builder("uploads.bulkhead.wait").register(meterRegistry);
+        this.queueFull = meterRegistry.counter("uploads.bulkhead.rejected", "reason", "queue-full");
+        this.timedOut = meterRegistry.counter("uploads.bulkhead.rejected", "reason", "timeout");
+        this.admittedBytes = DistributionSummary.builder("uploads.bulkhead.admitted.bytes").baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("uploads.bulkhead.active", this, bulkhead -> bulkhead.active).register(meterRegistry);
+        Gauge.builder("uploads.bulkhead.queued", this, bulkhead -> bulkhead.queue.size()).register(meterRegistry);
+    }
+
+    /*
+        Waits for a turn for an upload of the given size. Every admitted call must be
+        followed by release(), whatever the outcome of the upload.
+    */
+    public Admission acquire(long bytes) {
+        long start = System.nanoTime();
+        lock.lock();
+        try {
+            refill(start);
+            if (queue.isEmpty() && canAdmit()) {
+                return admit(bytes, start);
+            }
+            if (queue.size() >= queueSize) {
+                queueFull.increment();
+                return Admission.rejected(retryAfterMillis());
+            }
+
+            Object waiter = new Object();
+            queue.add(waiter);
+            queuedBytes += bytes;
+            boolean admitted = false;
+            try {
+                long deadline = start + maxWaitNanos;
+                while (true) {
+                    long now = System.nanoTime();
+                    refill(now);
+                    if (queue.peek() == waiter && canAdmit()) {
+                        admitted = true;
+                        return admit(bytes, start);
+                    }
+                    long remaining = deadline - now;
+                    if (remaining <= 0) {
+                        timedOut.increment();
+                        return Admission.rejected(retryAfterMillis());
+                    }
+                    if (queue.peek() == waiter && active < maxConcurrent) {
+                        // Only the budget is in the way; nobody signals when it refills
+                        remaining = Math.min(remaining, (long) Math.ceil((1 - budget) / bytesPerNano));
+                    }
+                    changed.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Admission.rejected(retryAfterMillis());
+            } finally {
+                queue.remove(waiter);
+                queuedBytes -= bytes;
+                if (!admitted) {
+                    // The next in line may be admissible now that this one has left
+                    changed.signalAll();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release() {
+        lock.lock();
+        try {
+            active--;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean canAdmit() {
+        return active < maxConcurrent && budget > 0;
+    }
+
+    private Admission admit(long bytes, long start) {
+        active++;
+        budget -= bytes;
+        waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        admittedBytes.record(bytes);
+        // A small upload behind this one may fit in what is left
+        changed.signalAll();
+        return Admission.ADMITTED;
+    }
+
+    private void refill(long now) {
+        budget = Math.min(burstBytes, budget + (now - refilledAt) * bytesPerNano);
+        refilledAt = now;
+    }
+
+    // Roughly when the budget will have covered everything already waiting
+    private long retryAfterMillis() {
+        double owed = queuedBytes - budget;
+        return owed > 0 ? (long) (owed / bytesPerNano / 1_000_000) : 0;
+    }
+
+    public record Admission(boolean admitted, long retryAfterMillis) {
+
+        static final Admission ADMITTED = new Admission(true, 0);
+
+        static Admission rejected(long retryAfterMillis) {
+            return new Admission(false, retryAfterMillis);
+        }
+
+        public long retryAfterSeconds() {
+            return Math.max(1, (retryAfterMillis + 999) / 1000);
+        }
+    }
+}
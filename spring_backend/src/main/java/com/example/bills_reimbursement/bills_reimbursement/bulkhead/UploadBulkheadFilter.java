@@ -0,0 +1,80 @@
+package com.example.bills_reimbursement.bills_reimbursement.bulkhead;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/*
+    Puts every multipart request through the UploadBulkhead. It has to be a filter:
+    the DispatcherServlet reads and parses the whole multipart body before any
+    interceptor runs. It sits at the end of the security chain, so only requests that
+    are authenticated and allowed get a place in the queue. Not a bean on purpose —
+    it must not also be registered as a plain servlet filter. In a traced request the
+    wait for admission is its own span, "upload admission".
+*/
+public class UploadBulkheadFilter extends OncePerRequestFilter {
+
+    private final UploadBulkhead bulkhead;
+    private final long unknownLengthBytes;
+    private final Tracer tracer;
+
+    // unknownLengthBytes is charged for chunked uploads that send no Content-Length
+    public UploadBulkheadFilter(UploadBulkhead bulkhead, long unknownLengthBytes, Tracer tracer) {
+        this.bulkhead = bulkhead;
+        this.unknownLengthBytes = unknownLengthBytes;
+        this.tracer = tracer;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        return contentType == null || !contentType.regionMatches(true, 0, "multipart/", 0, 10);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long bytes = request.getContentLengthLong();
+        UploadBulkhead.Admission admission = acquire(bytes >= 0 ? bytes : unknownLengthBytes);
+        if (!admission.admitted()) {
+            writeServiceUnavailable(response, admission);
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private UploadBulkhead.Admission acquire(long bytes) {
+        if (tracer.currentSpan() == null) {
+            return bulkhead.acquire(bytes);
+        }
+        Span span = tracer.nextSpan().name("upload admission").tag("bytes", String.valueOf(bytes)).start();
+        try {
+            UploadBulkhead.Admission admission = bulkhead.acquire(bytes);
+            span.tag("outcome", admission.admitted() ? "admitted" : "rejected");
+            return admission;
+        } finally {
+            span.end();
+        }
+    }
+
+    private static void writeServiceUnavailable(HttpServletResponse response, UploadBulkhead.Admission admission) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(admission.retryAfterSeconds()));
+        // Don't read the rejected body just to keep the connection open
+        response.setHeader(HttpHeaders.CONNECTION, "close");
+        response.setContentType("application/json");
+        response.getWriter().write("{\"error\": \"Too many uploads in progress. Please try again shortly.\"}");
+    }
+}
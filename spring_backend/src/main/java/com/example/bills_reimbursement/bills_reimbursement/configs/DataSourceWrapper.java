@@ -0,0 +1,16 @@
+package com.example.bills_reimbursement.bills_reimbursement.configs;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+
+/*
+    A post-processor that wraps the dataSource bean. Used as the @Bean return type, so
+    Spring knows the order before it creates them: tenant routing goes on first and
+    the SQL log around it, so the log times statements on every tenant's pool,
+    dedicated ones included.
+*/
+interface DataSourceWrapper extends BeanPostProcessor, Ordered {
+
+    int TENANT_ROUTING = 0;
+    int SQL_LOG = 10;
+}
@@ -0,0 +1,39 @@
+package com.example.bills_reimbursement.bills_reimbursement.configs;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/*
+    Response encodings. JSON stays the default; a client sending
+    Accept: application/cbor or application/x-jackson-smile gets the same objects in
+    a binary encoding that is smaller and cheaper to parse. Both converters are built
+    from Boot's ObjectMapper builder, so they share its modules and date settings.
+    They replace Spring's defaults in place, after JSON, so a wildcard Accept still gets JSON.
+*/
+@Configuration
+public class JacksonConfig {
+
+    // Generates accessor lambdas per property instead of reflective calls; Boot
+    // registers Module beans on every ObjectMapper it builds
+    @Bean
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.bills_reimbursement.bills_reimbursement.configs;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+
+import java.util.List;
+
+/*
+    startup.lazy-clients=true (the fast-startup profile): clients of external services
+    are created by their first use instead of during startup.
+
+    - Firebase and the mail sender are only marked lazy. FCMService looks FirebaseApp
+      up per send and EmailService holds a lazy proxy, so nothing else creates them.
+    - The Lettuce connection factory can't simply be lazy: the Redis templates, the
+      key-value store and the health indicator all hold it. It is still created, but
+      not started; callers get a proxy that starts it (client resources, event loops)
+      on the first Redis call. The change event relay makes that call in the
+      background once the application is ready.
+*/
+@Configuration
+@ConditionalOnProperty(name = "startup.lazy-clients", havingValue = "true")
+public class LazyClientsConfig {
+
+    private static final List<String> LAZY_BEANS = List.of("firebaseApp", "mailSender");
+
+    @Bean
+    public static BeanFactoryPostProcessor lazyClientBeans() {
+        return beanFactory -> {
+            for (String name : LAZY_BEANS) {
+                if (beanFactory.containsBeanDefinition(name)) {
+                    beanFactory.getBeanDefinition(name).setLazyInit(true);
+                }
+            }
+        };
+    }
+
+    @Bean
+    public static BeanPostProcessor startRedisOnFirstUse() {
+        return new BeanPostProcessor() {
+
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof LettuceConnectionFactory factory) {
+                    factory.setEarlyStartup(false);
+                    factory.setAutoStartup(false);
+                }
+                return bean;
+            }
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof LettuceConnectionFactory factory)) {
+                    return bean;
+                }
+                // Interfaces only: without SmartLifecycle the context won't start it.
+                // Shutdown still destroys the factory itself.
+                ProxyFactory proxy = new ProxyFactory(factory);
+                proxy.setInterfaces(RedisConnectionFactory.class, ReactiveRedisConnectionFactory.class);
+                proxy.addAdvice((MethodInterceptor) invocation -> {
+                    factory.start(); // no-op once started
+                    return invocation.proceed();
+                });
+                return proxy.getProxy(factory.getClass().getClassLoader());
+            }
+        };
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.bills_reimbursement.bills_reimbursement.configs;
+
+import com.example.bills_reimbursement.bills_reimbursement.querybudget.QueryCounter;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/*
+    Per-request SQL statement counts (see querybudget/). Hibernate's own statistics —
+    hibernate.generate_statistics, published as the hibernate.* meters — cover the
+    whole application; these are per controller method.
+*/
+@Configuration
+public class QueryBudgetConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer queryCounter() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new QueryCounter());
+    }
+}
@@ -1,8 +1,18 @@
 package com.example.bills_reimbursement.bills_reimbursement.configs;
 
+import com.example.bills_reimbursement.bills_reimbursement.bulkhead.UploadBulkhead;
+import com.example.bills_reimbursement.bills_reimbursement.bulkhead.UploadBulkheadFilter;
+import com.example.bills_reimbursement.bills_reimbursement.idempotency.IdempotencyFilter;
+import com.example.bills_reimbursement.bills_reimbursement.idempotency.IdempotencyStore;
+import com.example.bills_reimbursement.bills_reimbursement.ratelimit.AuthRateLimitFilter;
+import com.example.bills_reimbursement.bills_reimbursement.ratelimit.RateLimiter;
 import com.example.bills_reimbursement.bills_reimbursement.services.CustomUserDetailsService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.tracing.Tracer;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -15,6 +25,9 @@ import org.springframework.security.config.annotation.web.configurers.AbstractHt
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+import org.springframework.util.unit.DataSize;
 
 @Configuration
 @EnableWebSecurity
@@ -23,23 +36,48 @@ public class SecurityConfig {
 
     private final CustomUserDetailsService customUserDetailsService;
 
+    private final RateLimiter rateLimiter;
+
+    private final UploadBulkhead uploadBulkhead;
+
+    private final IdempotencyStore idempotencyStore;
+
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        return new TimedPasswordEncoder(new BCryptPasswordEncoder(), meterRegistry);
     }
 
     @Bean
-    public AuthenticationManager authenticationManager(HttpSecurity http) throws Exception {
+    public AuthenticationManager authenticationManager(HttpSecurity http, PasswordEncoder passwordEncoder) throws Exception {
         AuthenticationManagerBuilder authenticationManagerBuilder =
                 http.getSharedObject(AuthenticationManagerBuilder.class);
         authenticationManagerBuilder
                 .userDetailsService(customUserDetailsService)
-                .passwordEncoder(passwordEncoder());
+                .passwordEncoder(passwordEncoder);
         return authenticationManagerBuilder.build();
     }
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, ObjectProvider<Tracer> tracer,
+                                                   @Value("${ratelimit.enabled:true}") boolean rateLimitEnabled,
+                                                   @Value("${ratelimit.auth.capacity:120}") int authCapacity,
+                                                   @Value("${ratelimit.auth.refill-per-minute:120}") int authRefillPerMinute,
+                                                   @Value("${uploads.bulkhead.enabled:true}") boolean bulkheadEnabled,
+                                                   @Value("${idempotency.enabled:true}") boolean idempotencyEnabled,
+                                                   @Value("${spring.servlet.multipart.max-request-size:50MB}") DataSize maxUploadSize) throws Exception {
+        if (rateLimitEnabled) {
+            http.addFilterBefore(new AuthRateLimitFilter(rateLimiter, authCapacity, authRefillPerMinute),
+                    BasicAuthenticationFilter.class);
+        }
+        // Replays are answered before the bulkhead, so they never wait for an upload slot
+        if (idempotencyEnabled) {
+            http.addFilterAfter(new IdempotencyFilter(idempotencyStore), AuthorizationFilter.class);
+        }
+        if (bulkheadEnabled) {
+            http.addFilterAfter(new UploadBulkheadFilter(uploadBulkhead, maxUploadSize.toBytes(),
+                            tracer.getIfAvailable(() -> Tracer.NOOP)),
+                    idempotencyEnabled ? IdempotencyFilter.class : AuthorizationFilter.class);
+        }
         http
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .csrf(AbstractHttpConfigurer::disable)
@@ -53,13 +91,22 @@ public class SecurityConfig {
                         // check server connection
                         .requestMatchers(HttpMethod.GET, "/admin/ping").permitAll()
 
+                        // metrics scrape — served on the management port only
+                        .requestMatchers(HttpMethod.GET, "/actuator/health", "/actuator/prometheus").permitAll()
+
                         // 👇 Authenticated users can manage their own bills
                         .requestMatchers("/users/*/bills/**").authenticated()
 
                         // 👇 Admin-only access for user management
                         .requestMatchers(HttpMethod.GET, "/admin/bills").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.PUT, "/admin/bills/*/status").hasRole("ADMIN")
-                        .requestMatchers(HttpMethod.GET, "/admin/users").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.PUT, "/admin/bills/status").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.GET, "/admin/bills/search").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.POST, "/admin/bills/search/rebuild").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.GET, "/admin/events").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.GET, "/admin/jobs/**").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.GET, "/admin/users", "/admin/users/directory").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.POST, "/admin/users/directory/rebuild").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.PUT, "/admin/users/**").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.PATCH, "/admin/users/**").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.DELETE, "/admin/users/**").hasRole("ADMIN")
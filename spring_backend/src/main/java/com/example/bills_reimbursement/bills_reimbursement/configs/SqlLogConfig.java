@@ -0,0 +1,54 @@
+package com.example.bills_reimbursement.bills_reimbursement.configs;
+
+import com.example.bills_reimbursement.bills_reimbursement.datasource.SqlLog;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/*
+    The slow / sampled SQL log (see datasource/SqlLog). The dataSource bean is wrapped
+    in a datasource-proxy ProxyDataSource that times every statement. With read
+    replicas the wrapper goes inside the LazyConnectionDataSourceProxy, so a connection
+    is still only fetched by the first statement. With tenancy it goes around the
+    TenantRoutingDataSource (see DataSourceWrapper).
+*/
+@Configuration
+@ConditionalOnProperty(name = "sql.log.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlLogConfig {
+
+    @Bean
+    public static DataSourceWrapper sqlLogDataSource(Environment environment) {
+        return new DataSourceWrapper() {
+
+            @Override
+            public int getOrder() {
+                return SQL_LOG;
+            }
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!"dataSource".equals(beanName) || !(bean instanceof DataSource dataSource)) {
+                    return bean;
+                }
+                if (bean instanceof LazyConnectionDataSourceProxy proxy) {
+                    proxy.setTargetDataSource(logged(proxy.getTargetDataSource()));
+                    return proxy;
+                }
+                return logged(dataSource);
+            }
+
+            private DataSource logged(DataSource dataSource) {
+                SqlLog sqlLog = new SqlLog(
+                        environment.getProperty("sql.log.slow-threshold", Duration.class, Duration.ofMillis(200)),
+                        environment.getProperty("sql.log.sample-rate", Double.class, 0.0));
+                return ProxyDataSourceBuilder.create("dataSource", dataSource).listener(sqlLog).build();
+            }
+        };
+    }
+}
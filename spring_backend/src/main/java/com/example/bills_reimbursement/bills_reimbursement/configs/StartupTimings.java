@@ -0,0 +1,47 @@
+package com.example.bills_reimbursement.bills_reimbursement.configs;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.support.ServletRequestHandledEvent;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+    Time to first request: from JVM start until the first API request has been
+    answered, so it includes JVM boot, class loading (what the CDS archive saves),
+    context refresh and that request's own warm-up (what lazy clients move onto it).
+    Spring Boot's application.started.time and application.ready.time cover the
+    part in between; they start counting at SpringApplication.run, not at JVM start.
+    Actuator probes on the management port don't count as a first request.
+*/
+@Component
+public class StartupTimings {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupTimings.class);
+
+    private final MeterRegistry meterRegistry;
+    private final AtomicBoolean recorded = new AtomicBoolean();
+
+    public StartupTimings(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @EventListener
+    public void onRequestHandled(ServletRequestHandledEvent event) {
+        if (recorded.get() || event.getRequestUrl().startsWith("/actuator") || !recorded.compareAndSet(false, true)) {
+            return;
+        }
+        long sinceJvmStart = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+        TimeGauge.builder("application.first-request.time", () -> sinceJvmStart, TimeUnit.MILLISECONDS)
+                .description("Time from JVM start until the first request was answered")
+                .register(meterRegistry);
+        log.info("First request ({} {} -> {}) answered {} ms after JVM start, {} ms of it in the request",
+                event.getMethod(), event.getRequestUrl(), event.getStatusCode(), sinceJvmStart, event.getProcessingTimeMillis());
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.bills_reimbursement.bills_reimbursement.configs;
+
+import com.example.bills_reimbursement.bills_reimbursement.tenancy.TenancyProperties;
+import com.example.bills_reimbursement.bills_reimbursement.tenancy.TenantContext;
+import com.example.bills_reimbursement.bills_reimbursement.tenancy.TenantFilter;
+import com.example.bills_reimbursement.bills_reimbursement.tenancy.TenantRoutingDataSource;
+import com.example.bills_reimbursement.bills_reimbursement.tenancy.Tenants;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.context.spi.CurrentTenantIdentifierResolver;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+    tenancy.enabled=true: several organisations on one deployment (see tenancy/).
+
+    - TenantFilter runs ahead of the security chain, so logins are checked against
+      the right tenant's users.
+    - The dataSource bean is wrapped in a TenantRoutingDataSource. With read replicas
+      the wrapper goes inside the LazyConnectionDataSourceProxy, around the replica
+      router, so reads and writes are both switched to the tenant's schema.
+    - Work handed to the application task executor keeps the submitting thread's
+      tenant (TenantThreadLocalAccessor, applied by TracingConfig's task decorator).
+    - Hibernate sessions carry the tenant id. Hibernate then keeps a separate block
+      of pre-allocated bill ids per tenant; with one shared block, a tenant would be
+      given ids taken from another tenant's id_generator row.
+*/
+@Configuration
+@ConditionalOnProperty(name = "tenancy.enabled", havingValue = "true")
+public class TenancyConfig {
+
+    @Bean
+    public FilterRegistrationBean<TenantFilter> tenantFilter(Tenants tenants) {
+        FilterRegistrationBean<TenantFilter> registration = new FilterRegistrationBean<>(new TenantFilter(tenants));
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 10);
+        registration.setDispatcherTypes(DispatcherType.REQUEST, DispatcherType.ASYNC);
+        return registration;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer tenantIdentifierResolver() {
+        CurrentTenantIdentifierResolver<String> resolver = new CurrentTenantIdentifierResolver<>() {
+
+            @Override
+            public String resolveCurrentTenantIdentifier() {
+                return TenantContext.current();
+            }
+
+            @Override
+            public boolean validateExistingCurrentSessions() {
+                return false;
+            }
+        };
+        return properties -> properties.put(AvailableSettings.MULTI_TENANT_IDENTIFIER_RESOLVER, resolver);
+    }
+
+    @Bean
+    public static DataSourceWrapper tenantRoutingDataSource(ObjectProvider<TenancyProperties> properties,
+                                                            ObjectProvider<MeterRegistry> meterRegistry,
+                                                            Environment environment) {
+        return new DataSourceWrapper() {
+
+            @Override
+            public int getOrder() {
+                return TENANT_ROUTING;
+            }
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!"dataSource".equals(beanName) || !(bean instanceof DataSource dataSource)) {
+                    return bean;
+                }
+                if (bean instanceof LazyConnectionDataSourceProxy proxy) {
+                    proxy.setTargetDataSource(route(proxy.getTargetDataSource()));
+                    return proxy;
+                }
+                return route(dataSource);
+            }
+
+            private TenantRoutingDataSource route(DataSource shared) {
+                Map<String, HikariDataSource> dedicated = new HashMap<>();
+                Map<String, String> schemas = new HashMap<>();
+                properties.getObject().getTenants().forEach((id, tenant) -> {
+                    if (tenant.getDatasource() != null) {
+                        dedicated.put(id, dedicatedPool(id, tenant.getDatasource()));
+                    } else if (tenant.getSchema() != null && !tenant.getSchema().isBlank()) {
+                        schemas.put(id, tenant.getSchema().trim());
+                    }
+                });
+                return new TenantRoutingDataSource(shared, dedicated, schemas,
+                        environment.getProperty("spring.datasource.url"));
+            }
+
+            // Pool settings come from spring.datasource.hikari, like the primary's
+            private HikariDataSource dedicatedPool(String id, TenancyProperties.DedicatedDataSource settings) {
+                HikariConfig config = new HikariConfig();
+                Binder binder = Binder.get(environment);
+                binder.bind("spring.datasource.hikari", Bindable.ofInstance(config));
+                config.setJdbcUrl(settings.getUrl());
+                config.setUsername(settings.getUsername() != null
+                        ? settings.getUsername() : environment.getProperty("spring.datasource.username"));
+                config.setPassword(settings.getPassword() != null
+                        ? settings.getPassword() : environment.getProperty("spring.datasource.password"));
+                if (settings.getMaximumPoolSize() != null) {
+                    config.setMaximumPoolSize(settings.getMaximumPoolSize());
+                }
+                config.setPoolName("tenant-" + id);
+                // One tenant's server being down at boot mustn't stop the deployment;
+                // its requests fail until it is reachable
+                config.setInitializationFailTimeout(-1);
+                config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry.getObject()));
+                return new HikariDataSource(config);
+            }
+        };
+    }
+}
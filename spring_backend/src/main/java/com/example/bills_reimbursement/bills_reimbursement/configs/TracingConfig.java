@@ -0,0 +1,75 @@
+package com.example.bills_reimbursement.bills_reimbursement.configs;
+
+import com.example.bills_reimbursement.bills_reimbursement.tracing.FileSpanExporter;
+import com.example.bills_reimbursement.bills_reimbursement.tracing.RepositorySpanInterceptor;
+import com.example.bills_reimbursement.bills_reimbursement.tracing.TracedMultipartResolver;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.tracing.Tracer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.web.servlet.MultipartProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.support.ContextPropagatingTaskDecorator;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/*
+    Request tracing (Micrometer Tracing over Brave). Boot traces each request, the
+    security filters and the @Scheduled methods, and adds traceId/spanId to log lines.
+    Here:
+    - spans for multipart parsing and for every repository call (the upload bulkhead
+      wait, storage writes, notification sends and cluster job runs are traced where
+      they happen);
+    - the application task executor carries the trace — and the tenant — into the
+      work handed to it;
+    - tracing.file: finished spans are also appended to a local file. The Zipkin
+      collector export is Boot's own (management.zipkin.tracing.*).
+*/
+@Configuration
+public class TracingConfig {
+
+    @Bean
+    public TaskDecorator contextPropagatingTaskDecorator() {
+        return new ContextPropagatingTaskDecorator();
+    }
+
+    @Bean
+    public TracedMultipartResolver multipartResolver(ObservationRegistry observationRegistry,
+                                                     MultipartProperties multipartProperties) {
+        TracedMultipartResolver resolver = new TracedMultipartResolver(observationRegistry);
+        resolver.setResolveLazily(multipartProperties.isResolveLazily());
+        resolver.setStrictServletCompliance(multipartProperties.isStrictServletCompliance());
+        return resolver;
+    }
+
+    @Bean
+    @ConditionalOnExpression("'${tracing.file:}' != ''")
+    public FileSpanExporter fileSpanExporter(@Value("${tracing.file}") Path file,
+                                             @Value("${tracing.file-max-size:100MB}") DataSize maxSize) throws IOException {
+        return new FileSpanExporter(file, maxSize.toBytes());
+    }
+
+    // Added before each repository is created; outermost, so it covers the repository's transaction
+    @Bean
+    public static BeanPostProcessor repositorySpans(ObjectProvider<Tracer> tracer) {
+        return new BeanPostProcessor() {
+
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, information) -> proxyFactory.addAdvice(0, new RepositorySpanInterceptor(
+                                    tracer.getIfAvailable(() -> Tracer.NOOP), information.getRepositoryInterface().getSimpleName()))));
+                }
+                return bean;
+            }
+        };
+    }
+}
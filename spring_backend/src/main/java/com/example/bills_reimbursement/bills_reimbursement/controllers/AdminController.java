@@ -1,14 +1,27 @@
 package com.example.bills_reimbursement.bills_reimbursement.controllers;
 
+import com.example.bills_reimbursement.bills_reimbursement.directory.UserDirectory;
 import com.example.bills_reimbursement.bills_reimbursement.dtos.Bill;
+import com.example.bills_reimbursement.bills_reimbursement.dtos.BillField;
+import com.example.bills_reimbursement.bills_reimbursement.dtos.BulkStatusUpdateRequest;
 import com.example.bills_reimbursement.bills_reimbursement.dtos.User;
 import com.example.bills_reimbursement.bills_reimbursement.dtos.UserResponseDTO;
+import com.example.bills_reimbursement.bills_reimbursement.duplicates.DuplicateReceiptIndex;
+import com.example.bills_reimbursement.bills_reimbursement.events.ChangeEvent;
+import com.example.bills_reimbursement.bills_reimbursement.events.ChangeEventHub;
+import com.example.bills_reimbursement.bills_reimbursement.policy.SpendingTotals;
+import com.example.bills_reimbursement.bills_reimbursement.querybudget.QueryBudget;
+import com.example.bills_reimbursement.bills_reimbursement.ratelimit.RateLimited;
 import com.example.bills_reimbursement.bills_reimbursement.repositories.BillRepository;
 import com.example.bills_reimbursement.bills_reimbursement.repositories.UserRepository;
+import com.example.bills_reimbursement.bills_reimbursement.search.BillSearchIndex;
+import com.example.bills_reimbursement.bills_reimbursement.services.BillStatusService;
+import com.example.bills_reimbursement.bills_reimbursement.services.BillSyncService;
 import com.example.bills_reimbursement.bills_reimbursement.services.DataCleanupScheduler;
 import com.example.bills_reimbursement.bills_reimbursement.services.EmailService;
 import com.example.bills_reimbursement.bills_reimbursement.services.FCMService;
 import com.example.bills_reimbursement.bills_reimbursement.services.FileStorageService;
+import com.example.bills_reimbursement.bills_reimbursement.tenancy.Tenants;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -16,6 +29,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -26,6 +40,8 @@ import java.util.stream.Collectors;
 @RequestMapping("/admin")
 public class AdminController {
 
+    private static final int MAX_DIRECTORY_PAGE_SIZE = 200;
+
     @Autowired
     private BillRepository billRepository;
 
@@ -44,7 +60,32 @@ public class AdminController {
     @Autowired
     private FCMService fcmService;
 
+    @Autowired
+    private BillStatusService billStatusService;
+
+    @Autowired
+    private BillSearchIndex billSearchIndex;
+
+    @Autowired
+    private DuplicateReceiptIndex duplicateReceiptIndex;
+
+    @Autowired
+    private ChangeEventHub changeEventHub;
+
+    @Autowired
+    private BillSyncService billSyncService;
+
+    @Autowired
+    private SpendingTotals spendingTotals;
+
+    @Autowired
+    private UserDirectory userDirectory;
+
+    @Autowired
+    private Tenants tenants;
+
     @GetMapping("/users")
+    @QueryBudget(1)
     public ResponseEntity<List<UserResponseDTO>> getAllUsers() {
 
         List<User> usersList = userRepository.findAllByOrderByNameAsc();
@@ -57,7 +98,43 @@ public class AdminController {
                 .collect(Collectors.toList()));
     }
 
+    // Served from the in-memory directory: filters, typeahead and paging without MySQL
+    @GetMapping("/users/directory")
+    @QueryBudget(0)
+    public ResponseEntity<?> getUserDirectory(@RequestParam(value = "q", required = false) String query,
+                                              @RequestParam(value = "filter", required = false) List<String> filterNames,
+                                              @RequestParam(value = "page", defaultValue = "0") int page,
+                                              @RequestParam(value = "size", defaultValue = "50") int size) {
+        if (page < 0 || size < 1 || size > MAX_DIRECTORY_PAGE_SIZE) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "page must be 0 or more and size between 1 and " + MAX_DIRECTORY_PAGE_SIZE));
+        }
+        EnumSet<UserDirectory.Filter> filters = EnumSet.noneOf(UserDirectory.Filter.class);
+        if (filterNames != null) {
+            for (String name : filterNames) {
+                UserDirectory.Filter filter = UserDirectory.Filter.parse(name);
+                if (filter == null) {
+                    return ResponseEntity.badRequest()
+                            .body(Map.of("error", "Unknown filter '" + name + "'. Use approved, pending, disabled or admin"));
+                }
+                filters.add(filter);
+            }
+        }
+
+        UserDirectory.Page result = userDirectory.find(query, filters, page, size);
+        return ResponseEntity.ok(Map.of("total", result.total(), "page", page, "size", size, "users", result.users()));
+    }
+
+    @PostMapping("/users/directory/rebuild")
+    @RateLimited(name = "admin-reindex", capacity = 2, refillPerMinute = 1)
+    public ResponseEntity<?> rebuildUserDirectory() {
+        int count = userDirectory.reload();
+        return ResponseEntity.ok(Map.of("message", "User directory reloaded", "count", count));
+    }
+
+    // User, bill rows, tombstones, bills, user — the bills are never loaded as entities
     @DeleteMapping("/users/{employeeId}")
+    @QueryBudget(5)
     public ResponseEntity<?> deleteUser(@PathVariable Integer employeeId) {
         Optional<User> userOpt = userRepository.findByEmployeeId(employeeId);
         if (userOpt.isEmpty()) {
@@ -66,30 +143,74 @@ public class AdminController {
         }
 
         // Delete all uploaded files for this user's bills
-        List<Bill> bills = billRepository.findAllByUser_EmployeeIdOrderByDateDesc(employeeId);
-        for (Bill bill : bills) {
+        List<BillRepository.OwnedBillRow> bills = billRepository.findOwnedBillRows(employeeId);
+        for (BillRepository.OwnedBillRow bill : bills) {
             fileStorageService.deleteFile(bill.getBillImagePath());
             fileStorageService.deleteFile(bill.getApprovalMailPath());
             fileStorageService.deleteFile(bill.getPaymentProofPath());
         }
 
         // Delete bills then user
-        billRepository.deleteAll(bills);
+        billSyncService.deleteAllByOwner(employeeId);
         userRepository.deleteById(employeeId);
+        billSearchIndex.deleteByOwner(employeeId);
+        bills.forEach(bill -> duplicateReceiptIndex.remove(bill.getBillId(), employeeId, bill.getImageHash(),
+                bill.getAmount(), bill.getDate(), bill.getReimbursementFor()));
+        spendingTotals.removeEmployee(employeeId);
+        userDirectory.remove(employeeId);
+        changeEventHub.publish(ChangeEvent.user(ChangeEvent.USER_DELETED, employeeId));
 
         return ResponseEntity.ok(Map.of("message", "User and all associated data deleted"));
     }
 
     @GetMapping("/bills")
-    public ResponseEntity<List<Bill>> getAllBills() {
+    @RateLimited(name = "admin-export", capacity = 10, refillPerMinute = 6)
+    @QueryBudget(2)
+    public ResponseEntity<?> getAllBills(@RequestParam(value = "since", required = false) String since,
+                                         @RequestParam(value = "fields", required = false) List<String> fieldNames) {
+        EnumSet<BillField> fields;
+        try {
+            fields = BillField.parseAll(fieldNames);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        // fields=: only those columns are read, and each bill is a map of just those fields
+        if (!fields.isEmpty()) {
+            boolean suspects = fields.contains(BillField.SUSPECTED_DUPLICATES);
+            if (suspects || since != null) {
+                // Suspects are looked up by bill id, and a delta is merged by it
+                fields.add(BillField.BILL_ID);
+            }
+            if (since != null) {
+                BillSyncService.SyncResult<Map<String, Object>> changes = billSyncService.changesSince(null, since, fields);
+                if (suspects) {
+                    duplicateReceiptIndex.flagSuspectRows(changes.bills());
+                }
+                return ResponseEntity.ok(changes);
+            }
+            List<Map<String, Object>> rows = billRepository.findFields(fields, null, null);
+            if (suspects) {
+                duplicateReceiptIndex.flagSuspectRows(rows);
+            }
+            return ResponseEntity.ok(rows);
+        }
+        // With a sync token: only what changed since, as {full, bills, deleted, syncToken}
+        if (since != null) {
+            BillSyncService.SyncResult<Bill> changes = billSyncService.changesSince(null, since);
+            duplicateReceiptIndex.flagSuspects(changes.bills());
+            return ResponseEntity.ok(changes);
+        }
         List<Bill> bills = billRepository.findAllByOrderByDateDesc();
+        duplicateReceiptIndex.flagSuspects(bills);
         return ResponseEntity.ok(bills);
     }
 
     @PutMapping("/bills/{billId}/status")
+    @QueryBudget(2)
     public ResponseEntity<?> updateBillStatus(@PathVariable Integer billId,
                                               @RequestBody Map<String, String> statusUpdate) {
-        Optional<Bill> billOpt = billRepository.findById(billId);
+        // The owner comes with the bill: they are notified below
+        Optional<Bill> billOpt = billRepository.findWithUserByBillId(billId);
         if (billOpt.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Bill not found"));
         }
@@ -103,33 +224,21 @@ public class AdminController {
 
         Bill bill = billOpt.get();
 
-        if (!bill.getStatus().equalsIgnoreCase("APPROVED") && newStatus.equalsIgnoreCase("PAID")) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(Map.of("error", "Cannot pay an unapproved bill"));
-        }
-
-        if ("PAID".equalsIgnoreCase(bill.getStatus())) {
+        String transitionError = BillStatusService.transitionError(bill.getStatus(), newStatus);
+        if (transitionError != null) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(Map.of("error", "Cannot change status of an already paid bill"));
+                    .body(Map.of("error", transitionError));
         }
 
+        String previousStatus = bill.getStatus();
         bill.setStatus(newStatus.toUpperCase());
         bill.setRemarks(remarks);
         billRepository.save(bill);
+        billSearchIndex.index(bill);
+        spendingTotals.statusChanged(bill, previousStatus);
+        changeEventHub.publish(ChangeEvent.bill(ChangeEvent.BILL_STATUS, bill));
 
-        String category = bill.getReimbursementFor();
-        String amt = String.format("%.2f", bill.getAmount());
-
-        userRepository.findByEmployeeId(bill.getOwnerId()).ifPresent(owner -> {
-            if ("REJECTED".equalsIgnoreCase(newStatus)) {
-                String remark = (remarks != null && !remarks.isBlank()) ? remarks : "No remarks provided";
-                fcmService.sendNotification(owner.getFcmToken(), "Bill Rejected ❌",
-                        "Your ₹" + amt + " " + category + " bill was rejected. Remarks: " + remark);
-            } else if ("PAID".equalsIgnoreCase(newStatus)) {
-                fcmService.sendNotification(owner.getFcmToken(), "Bill Paid ✅",
-                        "Your ₹" + amt + " " + category + " bill has been marked as paid.");
-            }
-        });
+        notifyStatusChange(bill.getUser(), bill, newStatus, remarks);
 
         return ResponseEntity.ok(Map.of(
                 "message", "Bill status updated successfully",
@@ -138,7 +247,51 @@ public class AdminController {
         ));
     }
 
+    // No @QueryBudget: the updates go out in JDBC batches of 50, so statements grow with billIds
+    @PutMapping("/bills/status")
+    public ResponseEntity<?> updateBillStatuses(@RequestBody BulkStatusUpdateRequest request) {
+        if (request.getStatus() == null || request.getStatus().isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "Status is required"));
+        }
+        if (request.getBillIds() == null || request.getBillIds().isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "billIds is required"));
+        }
+
+        BillStatusService.BulkResult result =
+                billStatusService.updateStatuses(request.getBillIds(), request.getStatus(), request.getRemarks());
+        billSearchIndex.index(result.updated());
+
+        for (Bill bill : result.updated()) {
+            spendingTotals.statusChanged(bill, result.previousStatuses().get(bill.getBillId()));
+            changeEventHub.publish(ChangeEvent.bill(ChangeEvent.BILL_STATUS, bill));
+            notifyStatusChange(bill.getUser(), bill, request.getStatus(), request.getRemarks());
+        }
+
+        return ResponseEntity.ok(Map.of(
+                "message", "Bill statuses updated",
+                "updated", result.updated().stream().map(Bill::getBillId).collect(Collectors.toList()),
+                "skipped", result.skipped()
+        ));
+    }
+
+    private void notifyStatusChange(User owner, Bill bill, String newStatus, String remarks) {
+        String category = bill.getReimbursementFor();
+        String amt = String.format("%.2f", bill.getAmount());
+
+        if ("REJECTED".equalsIgnoreCase(newStatus)) {
+            String remark = (remarks != null && !remarks.isBlank()) ? remarks : "No remarks provided";
+            fcmService.sendNotification(owner.getFcmToken(), "Bill Rejected ❌",
+                    "Your ₹" + amt + " " + category + " bill was rejected. Remarks: " + remark);
+        } else if ("PAID".equalsIgnoreCase(newStatus)) {
+            fcmService.sendNotification(owner.getFcmToken(), "Bill Paid ✅",
+                    "Your ₹" + amt + " " + category + " bill has been marked as paid.");
+        }
+    }
+
     @PutMapping("/users/{employeeId}")
+    @QueryBudget(3)
     public ResponseEntity<?> editUser(@RequestBody User updatedUserDetails,
                                       @PathVariable Integer employeeId) {
         Optional<User> existingUserOpt = userRepository.findByEmployeeId(employeeId);
@@ -155,11 +308,12 @@ public class AdminController {
         }
 
         boolean wasApproved = existingUser.isApproved();
+        String previousName = existingUser.getName();
 
         if (updatedUserDetails.getName() != null && !updatedUserDetails.getName().isEmpty())
             existingUser.setName(updatedUserDetails.getName());
         if (updatedUserDetails.getEmail() != null && !updatedUserDetails.getEmail().isEmpty()) {
-            if (updatedUserDetails.getEmail().endsWith("@axeno.co"))
+            if (tenants.allowsEmail(updatedUserDetails.getEmail()))
                 existingUser.setEmail(updatedUserDetails.getEmail());
             else
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST)
@@ -168,8 +322,17 @@ public class AdminController {
         existingUser.setApproved(updatedUserDetails.isApproved());
 
         User savedUser = userRepository.save(existingUser);
+        userDirectory.put(savedUser);
 
-        if (!wasApproved && savedUser.isApproved()) {
+        // Employee names are searchable, so a rename re-indexes the user's bills
+        if (!savedUser.getName().equals(previousName)) {
+            billSearchIndex.index(billRepository.findAllByUser_EmployeeIdOrderByDateDesc(employeeId));
+        }
+
+        boolean approvedNow = !wasApproved && savedUser.isApproved();
+        changeEventHub.publish(ChangeEvent.user(approvedNow ? ChangeEvent.USER_APPROVED : ChangeEvent.USER_UPDATED, employeeId));
+
+        if (approvedNow) {
             fcmService.sendNotification(savedUser.getFcmToken(), "Account Approved 🎉",
                     "Your account has been approved. You can now submit reimbursement bills.");
         }
@@ -178,6 +341,7 @@ public class AdminController {
     }
 
     @PatchMapping("/users/{employeeId}/disable")
+    @QueryBudget(2)
     public ResponseEntity<?> setUserDisabled(@PathVariable Integer employeeId,
                                              @RequestBody Map<String, Boolean> body) {
         Optional<User> userOpt = userRepository.findByEmployeeId(employeeId);
@@ -193,7 +357,8 @@ public class AdminController {
 
         User user = userOpt.get();
         user.setDisabled(disabled);
-        userRepository.save(user);
+        userDirectory.put(userRepository.save(user));
+        changeEventHub.publish(ChangeEvent.user(ChangeEvent.USER_UPDATED, employeeId));
 
         if (disabled) {
             fcmService.sendNotification(user.getFcmToken(), "Account Disabled",
@@ -205,6 +370,7 @@ public class AdminController {
     }
 
     @GetMapping("/bills/cleanup/count")
+    @QueryBudget(1)
     public ResponseEntity<?> getOldBillsCount() {
         LocalDate cutoff = getCleanupCutoff();
         int count = billRepository.countByCreatedAtBefore(cutoff);
@@ -212,6 +378,8 @@ public class AdminController {
     }
 
     @DeleteMapping("/bills/cleanup")
+    @RateLimited(name = "admin-cleanup", capacity = 2, refillPerMinute = 1)
+    @QueryBudget(3)
     public ResponseEntity<?> deleteOldBills() {
         LocalDate cutoff = getCleanupCutoff();
         List<Bill> oldBills = billRepository.findAllByCreatedAtBefore(cutoff);
@@ -222,7 +390,13 @@ public class AdminController {
             fileStorageService.deleteFile(bill.getPaymentProofPath());
         }
 
-        billRepository.deleteAll(oldBills);
+        billSyncService.deleteAllCreatedBefore(cutoff);
+        billSearchIndex.delete(oldBills.stream().map(Bill::getBillId).collect(Collectors.toList()));
+        oldBills.forEach(duplicateReceiptIndex::remove);
+        oldBills.forEach(spendingTotals::remove);
+        if (!oldBills.isEmpty()) {
+            changeEventHub.publish(ChangeEvent.of(ChangeEvent.BILLS_PURGED));
+        }
         return ResponseEntity.ok(Map.of(
             "message", "Old bills deleted successfully",
             "count", oldBills.size(),
@@ -243,6 +417,8 @@ public class AdminController {
     }
 
     @PostMapping("/cleanup-reminder/trigger")
+    @RateLimited(name = "admin-mail", capacity = 3, refillPerMinute = 1)
+    @QueryBudget(2)
     public ResponseEntity<?> triggerCleanupReminder() {
         String result = dataCleanupScheduler.triggerCleanupReminder();
         return ResponseEntity.ok(Map.of("message", result));
@@ -250,6 +426,8 @@ public class AdminController {
 
     // Test endpoint — sends email regardless of bill count (for verifying email config)
     @PostMapping("/cleanup-reminder/test")
+    @RateLimited(name = "admin-mail", capacity = 3, refillPerMinute = 1)
+    @QueryBudget(2)
     public ResponseEntity<?> testCleanupReminder() {
         String result = dataCleanupScheduler.triggerCleanupReminderTest();
         return ResponseEntity.ok(Map.of("message", result));
@@ -257,6 +435,8 @@ public class AdminController {
 
     // Raw SMTP test — bypasses bill/admin logic, sends directly to given email
     @PostMapping("/cleanup-reminder/smtp-test")
+    @RateLimited(name = "admin-mail", capacity = 3, refillPerMinute = 1)
+    @QueryBudget(0)
     public ResponseEntity<?> smtpTest(@RequestBody Map<String, String> body) {
         String email = body.get("email");
         if (email == null || email.isBlank()) {
@@ -271,6 +451,7 @@ public class AdminController {
     }
 
     @GetMapping("/ping")
+    @QueryBudget(0)
     public ResponseEntity<?> getServerStatus() {
         return ResponseEntity.ok(Map.of("message", "Connected to backend service successfully"));
     }
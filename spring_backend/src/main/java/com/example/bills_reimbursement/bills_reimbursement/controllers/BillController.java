@@ -1,19 +1,41 @@
 package com.example.bills_reimbursement.bills_reimbursement.controllers;
 
+import com.example.bills_reimbursement.bills_reimbursement.dtos.BatchBill;
 import com.example.bills_reimbursement.bills_reimbursement.dtos.Bill;
+import com.example.bills_reimbursement.bills_reimbursement.dtos.BillField;
 import com.example.bills_reimbursement.bills_reimbursement.dtos.User;
+import com.example.bills_reimbursement.bills_reimbursement.duplicates.DuplicateReceiptIndex;
+import com.example.bills_reimbursement.bills_reimbursement.events.ChangeEvent;
+import com.example.bills_reimbursement.bills_reimbursement.events.ChangeEventHub;
+import com.example.bills_reimbursement.bills_reimbursement.policy.PolicyEngine;
+import com.example.bills_reimbursement.bills_reimbursement.policy.SpendingTotals;
+import com.example.bills_reimbursement.bills_reimbursement.querybudget.QueryBudget;
+import com.example.bills_reimbursement.bills_reimbursement.ratelimit.RateLimited;
 import com.example.bills_reimbursement.bills_reimbursement.repositories.BillRepository;
 import com.example.bills_reimbursement.bills_reimbursement.repositories.UserRepository;
+import com.example.bills_reimbursement.bills_reimbursement.search.BillSearchIndex;
+import com.example.bills_reimbursement.bills_reimbursement.services.BillSyncService;
 import com.example.bills_reimbursement.bills_reimbursement.services.FileStorageService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.multipart.MultipartHttpServletRequest;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -28,6 +50,8 @@ import java.util.Set;
 @RequestMapping({"/users/{employeeId}/bills"})
 public class BillController {
 
+    private static final Logger log = LoggerFactory.getLogger(BillController.class);
+
     @Autowired
     private BillRepository billRepository;
 
@@ -37,8 +61,49 @@ public class BillController {
     @Autowired
     private FileStorageService fileStorageService;
 
+    @Autowired
+    private BillSearchIndex billSearchIndex;
+
+    @Autowired
+    private DuplicateReceiptIndex duplicateReceiptIndex;
+
+    @Autowired
+    private ChangeEventHub changeEventHub;
+
+    @Autowired
+    private BillSyncService billSyncService;
+
+    @Autowired
+    private PolicyEngine policyEngine;
+
+    @Autowired
+    private SpendingTotals spendingTotals;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${bills.batch.max-size:50}")
+    private int maxBatchSize;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int jdbcBatchSize;
+
+    // addBills' query budget counts the inserts as one JDBC batch; a bigger batch would
+    // be flushed in several and fail in querybudget.mode=fail
+    @PostConstruct
+    public void checkBatchSize() {
+        if (maxBatchSize < 1 || maxBatchSize > jdbcBatchSize) {
+            throw new IllegalStateException("bills.batch.max-size must be 1 to spring.jpa.properties.hibernate.jdbc.batch_size ("
+                    + jdbcBatchSize + "), was " + maxBatchSize);
+        }
+    }
+
     @GetMapping
-    public ResponseEntity<List<Bill>> getAllBillsForUser(@PathVariable Integer employeeId, Authentication authentication) {
+    @QueryBudget(3)
+    public ResponseEntity<?> getAllBillsForUser(@PathVariable Integer employeeId,
+                                                @RequestParam(value = "since", required = false) String since,
+                                                @RequestParam(value = "fields", required = false) List<String> fieldNames,
+                                                Authentication authentication) {
 
         boolean loggedInUser = authenticateUser(employeeId, authentication);
 
@@ -46,16 +111,42 @@ public class BillController {
             return ResponseEntity.status(403).build();
         }
 
+        EnumSet<BillField> fields;
+        try {
+            fields = BillField.parseAll(fieldNames);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        if (fields.contains(BillField.SUSPECTED_DUPLICATES)) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "suspectedDuplicates is only available on the admin bill list"));
+        }
+
         Optional<User> targetUser = userRepository.findByEmployeeId(employeeId);
         if (targetUser.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
+        // fields=: only those columns are read, and each bill is a map of just those fields
+        if (!fields.isEmpty()) {
+            if (since != null) {
+                // A delta is merged into the client's copy by bill id
+                fields.add(BillField.BILL_ID);
+                return ResponseEntity.ok(billSyncService.changesSince(employeeId, since, fields));
+            }
+            return ResponseEntity.ok(billRepository.findFields(fields, employeeId, null));
+        }
+        // With a sync token: only what changed since, as {full, bills, deleted, syncToken}
+        if (since != null) {
+            return ResponseEntity.ok(billSyncService.changesSince(employeeId, since));
+        }
         List<Bill> bills = billRepository.findAllByUser_EmployeeIdOrderByDateDesc(employeeId);
 
         return ResponseEntity.ok(bills);
     }
 
     @PostMapping
+    @RateLimited(name = "bill-upload", capacity = 20, refillPerMinute = 10)
+    @QueryBudget(2)
     public ResponseEntity<?> addBill(@RequestParam("reimbursementFor") String reimbursementFor,
                                      @RequestParam(value = "description", required = false) String description,
                                      @RequestParam("amount") Double amount,
@@ -72,41 +163,137 @@ public class BillController {
         }
 
         Optional<User> targetUser = userRepository.findByEmployeeId(employeeId);
-        if (targetUser.isPresent() && !targetUser.get().isApproved()) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN)
-                    .body(Map.of("error", "User not approved yet"));
+        ResponseEntity<?> ownerError = ownerError(targetUser);
+        if (ownerError != null) {
+            return ownerError;
         }
-        if (targetUser.isEmpty()) {
-            return ResponseEntity.badRequest().body(Map.of("error", "User to associate bill with not found"));
+
+        PolicyEngine.Decision decision = policyEngine.check(new PolicyEngine.Submission(employeeId, reimbursementFor,
+                amount, date, provided(description, billImage, approvalMail, paymentProof, null)), null);
+        if (decision.violation() != null) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", decision.violation().message(), "rule", decision.violation().rule()));
         }
-        if (targetUser.get().isDisabled()) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN)
-                    .body(Map.of("error", "User disabled. Contact administrator."));
+
+        Bill savedBill;
+        try {
+            savedBill = billRepository.save(newBill(targetUser.get(), reimbursementFor, description, amount, date,
+                    approvalMail, billImage, paymentProof));
+        } catch (RuntimeException e) {
+            decision.reservation().release();
+            throw e;
+        }
+        decision.reservation().commit();
+        billSearchIndex.index(savedBill);
+        List<Integer> suspectedDuplicates = duplicateReceiptIndex.add(savedBill);
+        changeEventHub.publish(ChangeEvent.bill(ChangeEvent.BILL_CREATED, savedBill));
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(Map.of("message", "Bill added successfully", "id", savedBill.getBillId(),
+                        "suspectedDuplicates", suspectedDuplicates));
+    }
+
+    // Bills queued offline, sent in one request. Part "bills" is a JSON array of
+    // {reimbursementFor, description, amount, date}; bill i's files are the parts
+    // billImage[i], approvalMail[i] and paymentProof[i]. Each bill is checked as in addBill,
+    // the valid ones are inserted in JDBC batches, and the response lists what was
+    // created and what failed by index — one bad bill doesn't fail the others.
+    @PostMapping("/batch")
+    @RateLimited(name = "bill-upload", capacity = 20, refillPerMinute = 10)
+    @QueryBudget(2)
+    public ResponseEntity<?> addBills(@RequestParam("bills") String manifest, MultipartHttpServletRequest request,
+                                      @PathVariable int employeeId, Authentication authentication) {
+
+        boolean loggedInUser = authenticateUser(employeeId, authentication);
+
+        if (!loggedInUser) {
+            return ResponseEntity.status(403).build();
         }
 
-        if (!reimbursementFor.equalsIgnoreCase("Parking")) {
-            if (paymentProof == null || description == null || description.isEmpty()) {
-                return ResponseEntity.badRequest().body("Payment proof & Description are required for this category");
+        List<BatchBill> items;
+        try {
+            items = objectMapper.readValue(manifest, new TypeReference<List<BatchBill>>() {
+            });
+        } catch (JsonProcessingException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "bills must be a JSON array of bills"));
+        }
+        if (items == null || items.isEmpty() || items.size() > maxBatchSize) {
+            return ResponseEntity.badRequest().body(Map.of("error", "A batch holds 1 to " + maxBatchSize + " bills"));
+        }
+
+        Optional<User> targetUser = userRepository.findByEmployeeId(employeeId);
+        ResponseEntity<?> ownerError = ownerError(targetUser);
+        if (ownerError != null) {
+            return ownerError;
+        }
+
+        List<Bill> accepted = new ArrayList<>();
+        List<Integer> acceptedIndexes = new ArrayList<>();
+        // Reserved as each bill passes, so the policy caps also cover the rest of the batch
+        List<SpendingTotals.Reservation> reservations = new ArrayList<>();
+        List<Map<String, Object>> failed = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            BatchBill item = items.get(i);
+            MultipartFile billImage = request.getFile("billImage[" + i + "]");
+            MultipartFile approvalMail = request.getFile("approvalMail[" + i + "]");
+            MultipartFile paymentProof = request.getFile("paymentProof[" + i + "]");
+
+            String missing = missingField(item, billImage);
+            if (missing != null) {
+                failed.add(Map.of("index", i, "error", missing + " is required"));
+                continue;
+            }
+            PolicyEngine.Decision decision = policyEngine.check(new PolicyEngine.Submission(employeeId,
+                    item.getReimbursementFor(), item.getAmount(), item.getDate(),
+                    provided(item.getDescription(), billImage, approvalMail, paymentProof, null)), null);
+            if (decision.violation() != null) {
+                failed.add(Map.of("index", i, "error", decision.violation().message(),
+                        "rule", decision.violation().rule()));
+                continue;
             }
+            Bill bill;
+            try {
+                bill = newBill(targetUser.get(), item.getReimbursementFor(), item.getDescription(), item.getAmount(),
+                        item.getDate(), approvalMail, billImage, paymentProof);
+            } catch (RuntimeException e) {
+                decision.reservation().release();
+                log.warn("Batch bill {} of employee {}: could not store its files", i, employeeId, e);
+                failed.add(Map.of("index", i, "error", "Could not store the files"));
+                continue;
+            }
+            accepted.add(bill);
+            acceptedIndexes.add(i);
+            reservations.add(decision.reservation());
         }
 
-        Bill newBill = new Bill();
-        newBill.setReimbursementFor(reimbursementFor);
-        newBill.setBillDescription(description);
-        newBill.setAmount(amount);
-        newBill.setDate(date);
-        newBill.setStatus("Pending");
-        newBill.setUser(targetUser.get());
-        newBill.setApprovalMailPath(approvalMail != null ? fileStorageService.storeFile(approvalMail, employeeId, "approval") : null);
-        newBill.setBillImagePath(fileStorageService.storeFile(billImage, employeeId, "bill"));
-        newBill.setPaymentProofPath(paymentProof != null ? fileStorageService.storeFile(paymentProof, employeeId, "payment") : null);
-        newBill.setCreatedAt(LocalDate.now());
-        Bill savedBill = billRepository.save(newBill);
-        return ResponseEntity.status(HttpStatus.CREATED)
-                .body(Map.of("message", "Bill added successfully", "id", savedBill.getBillId()));
+        if (!accepted.isEmpty()) {
+            try {
+                billRepository.saveAllInBatches(accepted);
+            } catch (RuntimeException e) {
+                reservations.forEach(SpendingTotals.Reservation::release);
+                for (Bill bill : accepted) {
+                    fileStorageService.deleteFile(bill.getBillImagePath());
+                    fileStorageService.deleteFile(bill.getApprovalMailPath());
+                    fileStorageService.deleteFile(bill.getPaymentProofPath());
+                }
+                throw e;
+            }
+            reservations.forEach(SpendingTotals.Reservation::commit);
+            billSearchIndex.index(accepted);
+        }
+        List<Map<String, Object>> created = new ArrayList<>(accepted.size());
+        for (int i = 0; i < accepted.size(); i++) {
+            Bill bill = accepted.get(i);
+            List<Integer> suspectedDuplicates = duplicateReceiptIndex.add(bill);
+            changeEventHub.publish(ChangeEvent.bill(ChangeEvent.BILL_CREATED, bill));
+            created.add(Map.of("index", acceptedIndexes.get(i), "id", bill.getBillId(),
+                    "suspectedDuplicates", suspectedDuplicates));
+        }
+        return ResponseEntity.ok(Map.of("message", created.size() + " of " + items.size() + " bills added",
+                "created", created, "failed", failed));
     }
 
     @GetMapping("/{billId}")
+    @QueryBudget(1)
     public ResponseEntity<?> searchBill(@PathVariable("employeeId") Integer employeeId,
                                         @PathVariable("billId") Integer billId, Authentication authentication) {
         boolean loggedInUser = authenticateUser(employeeId, authentication);
@@ -114,7 +301,7 @@ public class BillController {
             return ResponseEntity.status(403).build();
         }
 
-        Bill targetBill = billRepository.findById(billId).orElse(null);
+        Bill targetBill = billRepository.findWithUserByBillId(billId).orElse(null);
         if (targetBill == null) {
             return ResponseEntity.notFound().build();
         }
@@ -123,12 +310,15 @@ public class BillController {
                     .body(Map.of("error", "User disabled. Contact administrator."));
         }
         if (targetBill.getUser().getEmployeeId().equals(employeeId)) {
+            targetBill.setSuspectedDuplicates(duplicateReceiptIndex.suspectsOf(billId));
             return ResponseEntity.ok(targetBill);
         }
         return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
     }
 
     @PutMapping("/{billId}")
+    @RateLimited(name = "bill-upload", capacity = 20, refillPerMinute = 10)
+    @QueryBudget(2)
     public ResponseEntity<?> editBill(@RequestParam("reimbursementFor") String reimbursementFor,
                                       @RequestParam(value = "description", required = false) String description,
                                       @RequestParam("amount") Double amount,
@@ -145,7 +335,7 @@ public class BillController {
             return ResponseEntity.status(403).build();
         }
 
-        Optional<Bill> existingBillOpt = billRepository.findById(billId);
+        Optional<Bill> existingBillOpt = billRepository.findWithUserByBillId(billId);
         if (existingBillOpt.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
@@ -158,42 +348,60 @@ public class BillController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN)
                     .body(Map.of("error", "User disabled. Contact administrator."));
         }
-        if (!reimbursementFor.equalsIgnoreCase("Parking")) {
-            boolean hasPayment = (paymentProof != null && !paymentProof.isEmpty())
-                    || (existingBill.getPaymentProofPath() != null && !existingBill.getPaymentProofPath().isEmpty());
-            if (!hasPayment) {
-                return ResponseEntity.badRequest().body("Payment proof is required for this category");
-            }
-        }
-
         if ("PAID".equalsIgnoreCase(existingBill.getStatus()) || "APPROVED".equalsIgnoreCase(existingBill.getStatus())) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", "Cannot edit an approved bill."));
         }
 
-
-        existingBill.setReimbursementFor(reimbursementFor);
-        existingBill.setBillDescription(description);
-        existingBill.setAmount(amount);
-        existingBill.setDate(date);
-        existingBill.setStatus("Pending");
-        if (billImage != null && !billImage.isEmpty()) {
-            fileStorageService.deleteFile(existingBill.getBillImagePath());
-            existingBill.setBillImagePath(fileStorageService.storeFile(billImage, employeeId, "bill"));
-        }
-        if (approvalMail != null && !approvalMail.isEmpty()) {
-            fileStorageService.deleteFile(existingBill.getApprovalMailPath());
-            existingBill.setApprovalMailPath(fileStorageService.storeFile(approvalMail, employeeId, "approval"));
-        }
-        if (paymentProof != null && !paymentProof.isEmpty()) {
-            fileStorageService.deleteFile(existingBill.getPaymentProofPath());
-            existingBill.setPaymentProofPath(fileStorageService.storeFile(paymentProof, employeeId, "payment"));
+        // Checked as the bill will be after the edit: files not re-uploaded are kept
+        SpendingTotals.Contribution before = spendingTotals.contributionOf(existingBill);
+        PolicyEngine.Decision decision = policyEngine.check(new PolicyEngine.Submission(employeeId, reimbursementFor,
+                amount, date, provided(description, billImage, approvalMail, paymentProof, existingBill)), before);
+        if (decision.violation() != null) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", decision.violation().message(), "rule", decision.violation().rule()));
         }
 
-        billRepository.save(existingBill);
+        // Still indexed under these until the edit is saved
+        Long indexedImageHash = existingBill.getImageHash();
+        Double indexedAmount = existingBill.getAmount();
+        LocalDate indexedDate = existingBill.getDate();
+        String indexedCategory = existingBill.getReimbursementFor();
+        try {
+            existingBill.setReimbursementFor(reimbursementFor);
+            existingBill.setBillDescription(description);
+            existingBill.setAmount(amount);
+            existingBill.setDate(date);
+            existingBill.setStatus("Pending");
+            if (billImage != null && !billImage.isEmpty()) {
+                fileStorageService.deleteFile(existingBill.getBillImagePath());
+                existingBill.setBillImagePath(fileStorageService.storeFile(billImage, employeeId, "bill"));
+                existingBill.setImageHash(duplicateReceiptIndex.imageHash(billImage));
+            }
+            if (approvalMail != null && !approvalMail.isEmpty()) {
+                fileStorageService.deleteFile(existingBill.getApprovalMailPath());
+                existingBill.setApprovalMailPath(fileStorageService.storeFile(approvalMail, employeeId, "approval"));
+            }
+            if (paymentProof != null && !paymentProof.isEmpty()) {
+                fileStorageService.deleteFile(existingBill.getPaymentProofPath());
+                existingBill.setPaymentProofPath(fileStorageService.storeFile(paymentProof, employeeId, "payment"));
+            }
+
+            billRepository.save(existingBill);
+        } catch (RuntimeException e) {
+            decision.reservation().release();
+            throw e;
+        }
+        decision.reservation().commit();
+        billSearchIndex.index(existingBill);
+        duplicateReceiptIndex.remove(billId, employeeId, indexedImageHash, indexedAmount, indexedDate, indexedCategory);
+        List<Integer> suspectedDuplicates = duplicateReceiptIndex.add(existingBill);
+        existingBill.setSuspectedDuplicates(suspectedDuplicates.isEmpty() ? null : suspectedDuplicates);
+        changeEventHub.publish(ChangeEvent.bill(ChangeEvent.BILL_UPDATED, existingBill));
         return ResponseEntity.ok(existingBill);
     }
 
     @DeleteMapping("/{billId}")
+    @QueryBudget(3)
     public ResponseEntity<?> deleteBill(@PathVariable Integer employeeId,
                                         @PathVariable Integer billId, Authentication authentication) {
 
@@ -203,7 +411,7 @@ public class BillController {
             return ResponseEntity.status(403).build();
         }
 
-        Optional<Bill> billOpt = billRepository.findById(billId);
+        Optional<Bill> billOpt = billRepository.findWithUserByBillId(billId);
         if (billOpt.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
@@ -225,10 +433,89 @@ public class BillController {
         fileStorageService.deleteFile(bill.getBillImagePath());
         fileStorageService.deleteFile(bill.getApprovalMailPath());
         fileStorageService.deleteFile(bill.getPaymentProofPath());
-        billRepository.delete(bill);
+        billSyncService.delete(bill);
+        billSearchIndex.delete(List.of(billId));
+        duplicateReceiptIndex.remove(bill);
+        spendingTotals.remove(bill);
+        changeEventHub.publish(ChangeEvent.bill(ChangeEvent.BILL_DELETED, bill));
         return ResponseEntity.ok(Map.of("message", "Bill has been deleted successfully"));
     }
 
+    // Why the owner can't submit bills, as the response to send; null if they can
+    private static ResponseEntity<?> ownerError(Optional<User> targetUser) {
+        if (targetUser.isPresent() && !targetUser.get().isApproved()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", "User not approved yet"));
+        }
+        if (targetUser.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "User to associate bill with not found"));
+        }
+        if (targetUser.get().isDisabled()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", "User disabled. Contact administrator."));
+        }
+        return null;
+    }
+
+    // A new Pending bill with its files stored, not saved yet
+    private Bill newBill(User owner, String reimbursementFor, String description, Double amount, LocalDate date,
+                         MultipartFile approvalMail, MultipartFile billImage, MultipartFile paymentProof) {
+        Integer employeeId = owner.getEmployeeId();
+        Bill newBill = new Bill();
+        newBill.setReimbursementFor(reimbursementFor);
+        newBill.setBillDescription(description);
+        newBill.setAmount(amount);
+        newBill.setDate(date);
+        newBill.setStatus("Pending");
+        newBill.setUser(owner);
+        newBill.setApprovalMailPath(approvalMail != null ? fileStorageService.storeFile(approvalMail, employeeId, "approval") : null);
+        newBill.setBillImagePath(fileStorageService.storeFile(billImage, employeeId, "bill"));
+        newBill.setPaymentProofPath(paymentProof != null ? fileStorageService.storeFile(paymentProof, employeeId, "payment") : null);
+        newBill.setCreatedAt(LocalDate.now());
+        newBill.setImageHash(duplicateReceiptIndex.imageHash(billImage));
+        return newBill;
+    }
+
+    // The first required value a batch bill lacks — what addBill's required parameters enforce
+    private static String missingField(BatchBill item, MultipartFile billImage) {
+        if (item == null || item.getReimbursementFor() == null || item.getReimbursementFor().isBlank()) {
+            return "reimbursementFor";
+        }
+        if (item.getAmount() == null) {
+            return "amount";
+        }
+        if (item.getDate() == null) {
+            return "date";
+        }
+        if (billImage == null || billImage.isEmpty()) {
+            return "billImage";
+        }
+        return null;
+    }
+
+    // Which attachments and fields the bill will have; existing is the bill being edited, if any
+    private static Set<String> provided(String description, MultipartFile billImage, MultipartFile approvalMail,
+                                        MultipartFile paymentProof, Bill existing) {
+        Set<String> provided = new HashSet<>();
+        if (description != null && !description.isBlank()) {
+            provided.add(PolicyEngine.DESCRIPTION);
+        }
+        if ((billImage != null && !billImage.isEmpty()) || (existing != null && hasText(existing.getBillImagePath()))) {
+            provided.add(PolicyEngine.BILL_IMAGE);
+        }
+        if ((approvalMail != null && !approvalMail.isEmpty()) || (existing != null && hasText(existing.getApprovalMailPath()))) {
+            provided.add(PolicyEngine.APPROVAL_MAIL);
+        }
+        if ((paymentProof != null && !paymentProof.isEmpty()) || (existing != null && hasText(existing.getPaymentProofPath()))) {
+            provided.add(PolicyEngine.PAYMENT_PROOF);
+        }
+        return provided;
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isEmpty();
+    }
+
     private boolean authenticateUser(Integer employeeId, Authentication authentication) {
         User userDetails = (User) authentication.getPrincipal();
         Integer loggedInEmployeeId = userDetails.getEmployeeId();
@@ -0,0 +1,78 @@
+package com.example.bills_reimbursement.bills_reimbursement.controllers;
+
+import com.example.bills_reimbursement.bills_reimbursement.dtos.Bill;
+import com.example.bills_reimbursement.bills_reimbursement.duplicates.DuplicateReceiptIndex;
+import com.example.bills_reimbursement.bills_reimbursement.querybudget.QueryBudget;
+import com.example.bills_reimbursement.bills_reimbursement.ratelimit.RateLimited;
+import com.example.bills_reimbursement.bills_reimbursement.repositories.BillRepository;
+import com.example.bills_reimbursement.bills_reimbursement.search.BillSearchIndex;
+import com.example.bills_reimbursement.bills_reimbursement.search.BillSearchQuery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/*
+    Admin bill search backed by the local Lucene index. The index only yields ids;
+    the bills themselves are loaded by primary key, in ranked order.
+*/
+
+@CrossOrigin(origins = "*")
+@RestController
+@RequestMapping("/admin/bills/search")
+public class BillSearchController {
+
+    private static final int MAX_LIMIT = 500;
+
+    @Autowired
+    private BillSearchIndex billSearchIndex;
+
+    @Autowired
+    private BillRepository billRepository;
+
+    @Autowired
+    private DuplicateReceiptIndex duplicateReceiptIndex;
+
+    @GetMapping
+    @QueryBudget(1)
+    public ResponseEntity<?> searchBills(@RequestParam(value = "q", required = false) String text,
+                                         @RequestParam(value = "status", required = false) String status,
+                                         @RequestParam(value = "minAmount", required = false) Double minAmount,
+                                         @RequestParam(value = "maxAmount", required = false) Double maxAmount,
+                                         @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                         @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                         @RequestParam(value = "employeeId", required = false) Integer employeeId,
+                                         @RequestParam(value = "limit", defaultValue = "50") int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            return ResponseEntity.badRequest().body(Map.of("error", "limit must be between 1 and " + MAX_LIMIT));
+        }
+
+        BillSearchIndex.SearchHits hits = billSearchIndex.search(
+                new BillSearchQuery(text, status, minAmount, maxAmount, from, to, employeeId, limit));
+
+        Map<Integer, Bill> byId = billRepository.findAllById(hits.billIds()).stream()
+                .collect(Collectors.toMap(Bill::getBillId, Function.identity()));
+        // Keep the index's ranking; skip ids deleted since they were indexed
+        List<Bill> bills = hits.billIds().stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        duplicateReceiptIndex.flagSuspects(bills);
+
+        return ResponseEntity.ok(Map.of("total", hits.total(), "bills", bills));
+    }
+
+    @PostMapping("/rebuild")
+    @RateLimited(name = "admin-reindex", capacity = 2, refillPerMinute = 1)
+    public ResponseEntity<?> rebuildIndex() {
+        int count = billSearchIndex.rebuild();
+        return ResponseEntity.ok(Map.of("message", "Search index rebuilt", "count", count));
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.bills_reimbursement.bills_reimbursement.controllers;
+
+import com.example.bills_reimbursement.bills_reimbursement.events.ChangeEventHub;
+import com.example.bills_reimbursement.bills_reimbursement.querybudget.QueryBudget;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/*
+    Server-sent events for the admin dashboard: compact "what changed" events so the
+    dashboard refetches single rows instead of polling the full bill and user lists.
+*/
+
+@CrossOrigin(origins = "*")
+@RestController
+@RequestMapping("/admin/events")
+public class EventStreamController {
+
+    @Autowired
+    private ChangeEventHub changeEventHub;
+
+    // EventSource sends Last-Event-ID on reconnect; clients that can't set headers use ?lastEventId=
+    @GetMapping
+    @QueryBudget(0)
+    public ResponseEntity<?> stream(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+                                    @RequestParam(value = "lastEventId", required = false) String lastEventIdParam) {
+        String lastEventId = lastEventIdHeader != null ? lastEventIdHeader : lastEventIdParam;
+        Long resumeFrom = null;
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            try {
+                resumeFrom = Long.parseLong(lastEventId.trim());
+            } catch (NumberFormatException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Last-Event-ID must be a number"));
+            }
+        }
+        return ResponseEntity.ok(changeEventHub.subscribe(resumeFrom));
+    }
+}
@@ -1,5 +1,8 @@
 package com.example.bills_reimbursement.bills_reimbursement.controllers;
 
+import com.example.bills_reimbursement.bills_reimbursement.querybudget.QueryBudget;
+import com.example.bills_reimbursement.bills_reimbursement.services.FileStorageService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
 import org.springframework.http.MediaType;
@@ -11,7 +14,6 @@ import org.springframework.web.bind.annotation.RestController;
 
 import java.net.MalformedURLException;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 
 /*
     Controller to serve uploaded files (e.g., bill images).
@@ -20,12 +22,15 @@ import java.nio.file.Paths;
 @RestController
 public class FileController {
 
-    private final String uploadDir = "uploads";
+    @Autowired
+    private FileStorageService fileStorageService;
 
     @GetMapping("/files/{filename:.+}")
+    @QueryBudget(0)
     public ResponseEntity<Resource> getFile(@PathVariable String filename) {
         try {
-            Path file = Paths.get(uploadDir).resolve(filename).normalize();
+            // Resolved within the requesting tenant's upload directory
+            Path file = fileStorageService.getFilePath(filename);
             Resource resource = new UrlResource(file.toUri());
             if (!resource.exists()) {
                 return ResponseEntity.notFound().build();
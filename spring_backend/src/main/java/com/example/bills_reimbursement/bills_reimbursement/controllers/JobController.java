@@ -0,0 +1,72 @@
+package com.example.bills_reimbursement.bills_reimbursement.controllers;
+
+import com.example.bills_reimbursement.bills_reimbursement.dtos.JobRun;
+import com.example.bills_reimbursement.bills_reimbursement.jobs.ClusterJobRegistry;
+import com.example.bills_reimbursement.bills_reimbursement.jobs.ClusterScheduler;
+import com.example.bills_reimbursement.bills_reimbursement.querybudget.QueryBudget;
+import com.example.bills_reimbursement.bills_reimbursement.repositories.JobRunRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/*
+    Cluster-scheduled jobs and their run history, for admins checking that the
+    annual reminder and the nightly prunes ran (once) and how long they took.
+*/
+
+@CrossOrigin(origins = "*")
+@RestController
+@RequestMapping("/admin/jobs")
+public class JobController {
+
+    private static final int MAX_RUNS = 500;
+
+    @Autowired
+    private ClusterScheduler clusterScheduler;
+
+    @Autowired
+    private JobRunRepository jobRunRepository;
+
+    @GetMapping
+    @QueryBudget(1)
+    public ResponseEntity<?> getJobs() {
+        List<Map<String, Object>> jobs = new ArrayList<>();
+        List<ClusterJobRegistry.ClusterJob> registered = new ArrayList<>(clusterScheduler.jobs());
+        registered.sort(Comparator.comparing(ClusterJobRegistry.ClusterJob::name));
+        Map<String, JobRun> lastRuns = jobRunRepository.findLatestOfEachJob().stream()
+                .collect(Collectors.toMap(JobRun::getJobName, Function.identity(),
+                        (a, b) -> a.getId() > b.getId() ? a : b));
+        for (ClusterJobRegistry.ClusterJob job : registered) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("name", job.name());
+            entry.put("cron", job.cronText());
+            entry.put("shards", job.shards());
+            entry.put("nextRun", clusterScheduler.nextOccurrence(job));
+            entry.put("lastRun", lastRuns.get(job.name()));
+            jobs.add(entry);
+        }
+        return ResponseEntity.ok(jobs);
+    }
+
+    @GetMapping("/runs")
+    @QueryBudget(1)
+    public ResponseEntity<?> getRuns(@RequestParam(value = "job", required = false) String job,
+                                     @RequestParam(value = "limit", defaultValue = "50") int limit) {
+        if (limit < 1 || limit > MAX_RUNS) {
+            return ResponseEntity.badRequest().body(Map.of("error", "limit must be between 1 and " + MAX_RUNS));
+        }
+        PageRequest page = PageRequest.of(0, limit);
+        return ResponseEntity.ok(job != null
+                ? jobRunRepository.findAllByJobNameOrderByStartedAtDesc(job, page)
+                : jobRunRepository.findAllByOrderByStartedAtDesc(page));
+    }
+}
@@ -1,11 +1,17 @@
 package com.example.bills_reimbursement.bills_reimbursement.controllers;
 
+import com.example.bills_reimbursement.bills_reimbursement.directory.UserDirectory;
 import com.example.bills_reimbursement.bills_reimbursement.dtos.User;
 import com.example.bills_reimbursement.bills_reimbursement.dtos.UserResponseDTO;
+import com.example.bills_reimbursement.bills_reimbursement.events.ChangeEvent;
+import com.example.bills_reimbursement.bills_reimbursement.events.ChangeEventHub;
+import com.example.bills_reimbursement.bills_reimbursement.querybudget.QueryBudget;
+import com.example.bills_reimbursement.bills_reimbursement.ratelimit.RateLimited;
 import com.example.bills_reimbursement.bills_reimbursement.repositories.UserRepository;
 import com.example.bills_reimbursement.bills_reimbursement.services.EmailService;
 import com.example.bills_reimbursement.bills_reimbursement.services.FCMService;
 import com.example.bills_reimbursement.bills_reimbursement.services.OtpService;
+import com.example.bills_reimbursement.bills_reimbursement.tenancy.Tenants;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -36,20 +42,33 @@ public class UserController {
     @Autowired
     private FCMService fcmService;
 
+    @Autowired
+    private ChangeEventHub changeEventHub;
+
+    @Autowired
+    private UserDirectory userDirectory;
+
+    @Autowired
+    private Tenants tenants;
+
     @PostMapping
+    @RateLimited(name = "signup", capacity = 5, refillPerMinute = 2, keys = RateLimited.KeyType.IP)
+    @QueryBudget(4)
     public ResponseEntity<?> createUser(@RequestBody User user) {
         if (userRepository.existsById(user.getEmployeeId())) {
             return ResponseEntity.status(HttpStatus.CONFLICT)
                     .body(Map.of("error", "User with this Employee ID already exists."));
         }
 
-        if (!user.getEmail().endsWith("@axeno.co"))
+        if (!tenants.allowsEmail(user.getEmail()))
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of("error", "Not a valid email address"));
 
         user.setPassword(passwordEncoder.encode(user.getPassword()));
         user.setApproved(false);
         User savedUser = userRepository.save(user);
+        userDirectory.put(savedUser);
+        changeEventHub.publish(ChangeEvent.user(ChangeEvent.USER_REGISTERED, savedUser.getEmployeeId()));
 
         userRepository.findAllAdmins().forEach(admin ->
                 fcmService.sendNotification(admin.getFcmToken(),
@@ -61,6 +80,7 @@ public class UserController {
     }
 
     @GetMapping("/{employeeId}")
+    @QueryBudget(1)
     public ResponseEntity<UserResponseDTO> getUser(
             @PathVariable Integer employeeId,
             Authentication authentication) {
@@ -79,6 +99,8 @@ public class UserController {
     }
 
     @PostMapping("/{employeeId}/send-otp")
+    @RateLimited(name = "otp-send", capacity = 10, refillPerMinute = 5, keys = RateLimited.KeyType.IP)
+    @QueryBudget(1)
     public ResponseEntity<?> sendOtp(
             @PathVariable Integer employeeId,
             @RequestParam String email,
@@ -113,6 +135,8 @@ public class UserController {
     }
 
     @PostMapping("/{employeeId}/verify-otp")
+    @RateLimited(name = "otp-verify", capacity = 10, refillPerMinute = 10, keys = RateLimited.KeyType.IP)
+    @QueryBudget(1)
     public ResponseEntity<?> verifyOtp(
             @PathVariable Integer employeeId,
             @RequestParam String otp,
@@ -135,6 +159,7 @@ public class UserController {
     }
 
     @PatchMapping("/{employeeId}/fcm-token")
+    @QueryBudget(2)
     public ResponseEntity<?> updateFcmToken(
             @PathVariable Integer employeeId,
             @RequestBody Map<String, String> body,
@@ -158,6 +183,8 @@ public class UserController {
     }
 
     @PostMapping("/{employeeId}/update-password")
+    @RateLimited(name = "password-update", capacity = 5, refillPerMinute = 5, keys = RateLimited.KeyType.IP)
+    @QueryBudget(2)
     public ResponseEntity<?> updatePassword(
             @PathVariable Integer employeeId,
             @RequestParam String newPassword) {
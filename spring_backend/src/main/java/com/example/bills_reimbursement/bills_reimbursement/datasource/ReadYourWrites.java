@@ -0,0 +1,68 @@
+package com.example.bills_reimbursement.bills_reimbursement.datasource;
+
+import com.example.bills_reimbursement.bills_reimbursement.store.KeyValueStore;
+import com.example.bills_reimbursement.bills_reimbursement.tenancy.TenantContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+
+/*
+    Remembers, per authenticated user, that they wrote recently. For that window their
+    read-only transactions go to the primary, so a bill they just submitted or edited
+    can't vanish from their list because a replica hasn't caught up yet. The marker
+    lives in the KeyValueStore, so with Redis it holds across backend nodes.
+*/
+public class ReadYourWrites {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadYourWrites.class);
+
+    private static final String KEY_PREFIX = "RYW_";
+
+    private final KeyValueStore store;
+
+    private final Duration window;
+
+    public ReadYourWrites(KeyValueStore store, Duration window) {
+        this.store = store;
+        this.window = window;
+    }
+
+    public void recordWrite() {
+        String user = currentUser();
+        if (user == null) {
+            return;
+        }
+        try {
+            store.set(TenantContext.scopedKey(KEY_PREFIX + user), "1", window);
+        } catch (DataAccessException e) {
+            log.warn("Read-your-writes: could not record write for {} — {}", user, e.getMessage());
+        }
+    }
+
+    public boolean mustReadPrimary() {
+        String user = currentUser();
+        if (user == null) {
+            return false;
+        }
+        try {
+            return store.exists(TenantContext.scopedKey(KEY_PREFIX + user));
+        } catch (DataAccessException e) {
+            // Can't tell whether the user wrote recently — the primary is always safe
+            return true;
+        }
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
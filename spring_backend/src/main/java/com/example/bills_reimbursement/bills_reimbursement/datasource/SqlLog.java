@@ -0,0 +1,116 @@
+package com.example.bills_reimbursement.bills_reimbursement.datasource;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+    The SQL log, in place of spring.jpa.show-sql. It sees the JDBC statements under
+    Hibernate (a datasource-proxy listener), so each entry has the time the statement
+    took:
+    - a statement that took slowThreshold or longer is logged at WARN by sql.slow,
+      with its bind parameters (of the first row, for a batch);
+    - of the rest, a sampleRate share is logged at INFO by sql, without parameters.
+    The details are also key/value pairs, which the JSON log writes as fields. A fast
+    statement that isn't sampled returns before anything is built.
+*/
+public class SqlLog implements QueryExecutionListener {
+
+    private static final Logger slowLog = LoggerFactory.getLogger("sql.slow");
+
+    private static final Logger sampleLog = LoggerFactory.getLogger("sql");
+
+    // Longer values (descriptions, remarks) are cut, binary ones only counted
+    private static final int MAX_PARAMETER_LENGTH = 100;
+
+    private final long slowThresholdMillis;
+
+    private final double sampleRate;
+
+    public SqlLog(Duration slowThreshold, double sampleRate) {
+        this.slowThresholdMillis = slowThreshold.toMillis();
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execution, List<QueryInfo> queries) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execution, List<QueryInfo> queries) {
+        long millis = execution.getElapsedTime();
+        if (millis >= slowThresholdMillis) {
+            if (slowLog.isWarnEnabled()) {
+                String sql = sql(queries);
+                String parameters = parameters(queries);
+                slowLog.atWarn()
+                        .addKeyValue("duration_ms", millis)
+                        .addKeyValue("sql", sql)
+                        .addKeyValue("parameters", parameters)
+                        .addKeyValue("batch_size", execution.getBatchSize())
+                        .addKeyValue("success", execution.isSuccess())
+                        .log("Slow SQL, {} ms: {} {}", millis, sql, parameters);
+            }
+        } else if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate && sampleLog.isInfoEnabled()) {
+            String sql = sql(queries);
+            sampleLog.atInfo()
+                    .addKeyValue("duration_ms", millis)
+                    .addKeyValue("sql", sql)
+                    .addKeyValue("batch_size", execution.getBatchSize())
+                    .addKeyValue("success", execution.isSuccess())
+                    .log("SQL, {} ms: {}", millis, sql);
+        }
+    }
+
+    private static String sql(List<QueryInfo> queries) {
+        if (queries.size() == 1) {
+            return queries.get(0).getQuery();
+        }
+        StringJoiner joined = new StringJoiner("; ");
+        queries.forEach(query -> joined.add(query.getQuery()));
+        return joined.toString();
+    }
+
+    // Values in the order they were bound, which for Hibernate is parameter order
+    private static String parameters(List<QueryInfo> queries) {
+        StringJoiner joined = new StringJoiner(", ", "[", "]");
+        for (QueryInfo query : queries) {
+            List<List<ParameterSetOperation>> rows = query.getParametersList();
+            if (rows.isEmpty()) {
+                continue;
+            }
+            for (ParameterSetOperation operation : rows.get(0)) {
+                joined.add(ParameterSetOperation.isSetNullParameterOperation(operation)
+                        ? "null" : format(operation.getArgs()[1]));
+            }
+        }
+        return joined.toString();
+    }
+
+    private static String format(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        if (value instanceof byte[] bytes) {
+            return "<" + bytes.length + " bytes>";
+        }
+        String text = value.toString();
+        // Password hashes (BCrypt) stay out of the log
+        if (text.length() == 60 && text.startsWith("$2")) {
+            return "'<hash>'";
+        }
+        if (value instanceof CharSequence) {
+            text = text.length() > MAX_PARAMETER_LENGTH
+                    ? "'" + text.substring(0, MAX_PARAMETER_LENGTH) + "…'" : "'" + text + "'";
+        }
+        return text;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.bills_reimbursement.bills_reimbursement.dtos;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+// One bill of a batch submission; its files travel as separate parts (see BillController.addBills)
+@Data
+public class BatchBill {
+    private String reimbursementFor;
+
+    private String description;
+
+    private Double amount;
+
+    private LocalDate date;
+}
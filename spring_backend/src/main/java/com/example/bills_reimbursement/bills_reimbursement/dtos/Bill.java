@@ -1,19 +1,27 @@
 package com.example.bills_reimbursement.bills_reimbursement.dtos;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.UpdateTimestamp;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.List;
 
 @Data
 @Entity
 @Table(name = "bills")
 public class Bill {
 
+    // Ids come from id_generator in blocks of 50 so inserts can be JDBC-batched;
+    // IDENTITY forces Hibernate to insert one row per round trip.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "bill_id")
+    @TableGenerator(name = "bill_id", table = "id_generator", pkColumnName = "name",
+            valueColumnName = "next_val", pkColumnValue = "bills", allocationSize = 50)
     @Column(name = "id")
     private Integer billId;
 
@@ -61,4 +69,20 @@ public class Bill {
 
     @Column(name = "created_at")
     private LocalDate createdAt;
+
+    // Set on every insert and update; delta sync returns bills changed after a token
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    @JsonIgnore
+    private Instant updatedAt;
+
+    // Perceptual hash of the bill image (db/bill_image_hash.sql); null for PDFs
+    @Column(name = "image_hash")
+    @JsonIgnore
+    private Long imageHash;
+
+    // Ids of other bills that look like the same receipt — filled in from DuplicateReceiptIndex
+    @Transient
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<Integer> suspectedDuplicates;
 }
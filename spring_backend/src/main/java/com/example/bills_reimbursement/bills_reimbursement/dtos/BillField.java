@@ -0,0 +1,84 @@
+package com.example.bills_reimbursement.bills_reimbursement.dtos;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/*
+    The fields of a bill's JSON that a list request can pick with fields=, each with
+    the Bill attribute it is read from. A sparse list selects only those columns
+    (BillRepository.findFields) and returns one map per bill, keys in this order.
+*/
+public enum BillField {
+    BILL_ID("billId", "billId"),
+    EMPLOYEE_ID("employeeId", "ownerId"),
+    REIMBURSEMENT_FOR("reimbursementFor", "reimbursementFor"),
+    BILL_DESCRIPTION("billDescription", "billDescription"),
+    AMOUNT("amount", "amount"),
+    DATE("date", "date"),
+    APPROVAL_MAIL_PATH("approvalMailPath", "approvalMailPath"),
+    BILL_IMAGE_PATH("billImagePath", "billImagePath"),
+    PAYMENT_PROOF_PATH("paymentProofPath", "paymentProofPath"),
+    STATUS("status", "status"),
+    REMARKS("remarks", "remarks"),
+    CREATED_AT("createdAt", "createdAt"),
+    // Not a column: filled in from the duplicate-receipt index, on the admin list only
+    SUSPECTED_DUPLICATES("suspectedDuplicates", null);
+
+    private final String jsonName;
+
+    private final String attribute;
+
+    BillField(String jsonName, String attribute) {
+        this.jsonName = jsonName;
+        this.attribute = attribute;
+    }
+
+    public String jsonName() {
+        return jsonName;
+    }
+
+    // null when the field isn't read from the bills table
+    public String attribute() {
+        return attribute;
+    }
+
+    // For error messages: every field name, comma-separated
+    public static String names() {
+        return Arrays.stream(values()).map(BillField::jsonName).collect(Collectors.joining(", "));
+    }
+
+    /*
+        The fields= values of a list request; blank values are skipped and none at all
+        is an empty set. Throws IllegalArgumentException, with a message for the
+        client, on a name that isn't a field.
+    */
+    public static EnumSet<BillField> parseAll(List<String> names) {
+        EnumSet<BillField> fields = EnumSet.noneOf(BillField.class);
+        if (names == null) {
+            return fields;
+        }
+        for (String name : names) {
+            if (name.isBlank()) {
+                continue;
+            }
+            BillField field = parse(name);
+            if (field == null) {
+                throw new IllegalArgumentException("Unknown field '" + name + "'. Use " + names());
+            }
+            fields.add(field);
+        }
+        return fields;
+    }
+
+    // null for anything that isn't a field name, in any case
+    public static BillField parse(String name) {
+        for (BillField field : values()) {
+            if (field.jsonName.equalsIgnoreCase(name.trim())) {
+                return field;
+            }
+        }
+        return null;
+    }
+}
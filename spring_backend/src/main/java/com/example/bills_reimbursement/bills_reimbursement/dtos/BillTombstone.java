@@ -0,0 +1,23 @@
+package com.example.bills_reimbursement.bills_reimbursement.dtos;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.Instant;
+
+// A deleted bill, kept for sync.tombstone-retention so delta syncs can report the delete
+@Data
+@Entity
+@Table(name = "bill_tombstones")
+public class BillTombstone {
+
+    @Id
+    @Column(name = "bill_id")
+    private Integer billId;
+
+    @Column(name = "employee_id", nullable = false)
+    private Integer ownerId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private Instant deletedAt;
+}
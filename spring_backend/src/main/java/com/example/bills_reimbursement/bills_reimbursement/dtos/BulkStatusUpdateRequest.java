@@ -0,0 +1,14 @@
+package com.example.bills_reimbursement.bills_reimbursement.dtos;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkStatusUpdateRequest {
+    private List<Integer> billIds;
+
+    private String status;
+
+    private String remarks;
+}
@@ -0,0 +1,50 @@
+package com.example.bills_reimbursement.bills_reimbursement.dtos;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.Instant;
+
+// One run of a @ClusterScheduled job (one shard of it, for sharded jobs) — see ClusterScheduler
+@Data
+@Entity
+@Table(name = "job_runs")
+public class JobRun {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "job_name", nullable = false)
+    private String jobName;
+
+    // The cron fire time the run belongs to
+    @Column(nullable = false)
+    private Instant occurrence;
+
+    // Null unless the job is sharded
+    @Column
+    private Integer shard;
+
+    @Column(nullable = false)
+    private String node;
+
+    @Column(name = "fencing_token", nullable = false)
+    private Long fencingToken;
+
+    @Column(name = "started_at", nullable = false)
+    private Instant startedAt;
+
+    @Column(name = "finished_at")
+    private Instant finishedAt;
+
+    @Column(name = "duration_ms")
+    private Long durationMs;
+
+    // RUNNING, SUCCEEDED, FAILED or LEASE_LOST
+    @Column(nullable = false)
+    private String outcome;
+
+    @Column(length = 1000)
+    private String error;
+}
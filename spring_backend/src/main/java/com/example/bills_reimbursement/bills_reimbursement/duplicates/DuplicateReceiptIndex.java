@@ -0,0 +1,465 @@
+package com.example.bills_reimbursement.bills_reimbursement.duplicates;
+
+import com.example.bills_reimbursement.bills_reimbursement.dtos.Bill;
+import com.example.bills_reimbursement.bills_reimbursement.dtos.BillField;
+import com.example.bills_reimbursement.bills_reimbursement.repositories.BillRepository;
+import com.example.bills_reimbursement.bills_reimbursement.services.FileStorageService;
+import com.example.bills_reimbursement.bills_reimbursement.tenancy.TenantScoped;
+import com.example.bills_reimbursement.bills_reimbursement.tenancy.Tenants;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+    In-memory index of every bill's receipt fingerprint, used to flag likely duplicate
+    submissions. Two bills are suspects when their bill images' perceptual hashes are
+    within duplicates.max-hash-distance bits, or when the same employee claimed the same
+    amount, date and category twice. Receipt data is only compared within an employee:
+    flat-rate claims (parking, meal allowances) are legitimately equal across people.
+
+    Image hashes are found with multi-index hashing: the 64 bits are split into
+    maxDistance + 1 chunks, and by the pigeonhole principle any hash within maxDistance
+    agrees exactly with the query on at least one chunk. A lookup therefore reads one
+    bucket per chunk and checks only those candidates, instead of walking a metric tree.
+    A BK-tree degrades to a near full scan at this radius in 64-bit space.
+
+    Loaded from MySQL at startup in the background, computing hashes that are missing
+    from the image files on disk. Kept current by the controllers after each write.
+    Suspect pairs are kept in memory, so flagging the admin list is a map lookup.
+    Each tenant has its own index, since bill ids repeat across tenant databases.
+*/
+@Component
+public class DuplicateReceiptIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(DuplicateReceiptIndex.class);
+
+    private static final int LOAD_BATCH = 1000;
+
+    // Below 3 a chunk table has millions of slots per tenant; above 15 chunks are 4 bits
+    // and every bucket holds a sixteenth of all bills
+    private static final int MIN_DISTANCE = 3;
+    private static final int MAX_DISTANCE = 15;
+
+    private final int maxDistance;
+    private final int[] chunkShift;
+    private final int[] chunkBits;
+    private final TenantScoped<Receipts> receipts = new TenantScoped<>(Receipts::new);
+
+    private final BillRepository billRepository;
+    private final FileStorageService fileStorageService;
+    private final TaskExecutor taskExecutor;
+    private final Tenants tenants;
+    private final Timer lookupTimer;
+
+    public DuplicateReceiptIndex(@Value("${duplicates.max-hash-distance:6}") int maxDistance,
+                                 BillRepository billRepository,
+                                 FileStorageService fileStorageService,
+                                 @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+                                 Tenants tenants,
+                                 MeterRegistry meterRegistry) {
+        if (maxDistance < MIN_DISTANCE || maxDistance > MAX_DISTANCE) {
+            throw new IllegalStateException("duplicates.max-hash-distance must be " + MIN_DISTANCE + "-"
+                    + MAX_DISTANCE + ", was " + maxDistance);
+        }
+        this.maxDistance = maxDistance;
+        this.billRepository = billRepository;
+        this.fileStorageService = fileStorageService;
+        this.taskExecutor = taskExecutor;
+        this.tenants = tenants;
+
+        int chunks = maxDistance + 1;
+        this.chunkShift = new int[chunks];
+        this.chunkBits = new int[chunks];
+        int shift = 0;
+        for (int c = 0; c < chunks; c++) {
+            chunkBits[c] = 64 / chunks + (c < 64 % chunks ? 1 : 0);
+            chunkShift[c] = shift;
+            shift += chunkBits[c];
+        }
+
+        this.lookupTimer = Timer.builder("duplicates.lookup").register(meterRegistry);
+        Gauge.builder("duplicates.index.size", this, DuplicateReceiptIndex::totalSize).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadInBackground() {
+        taskExecutor.execute(() -> tenants.forEach(this::load));
+    }
+
+    private void load() {
+        long start = System.currentTimeMillis();
+        int loaded = 0;
+        int hashed = 0;
+        Integer afterId = 0;
+        List<BillRepository.ReceiptRow> batch;
+        do {
+            batch = billRepository.findReceiptBatch(afterId, PageRequest.of(0, LOAD_BATCH));
+            for (BillRepository.ReceiptRow row : batch) {
+                Long imageHash = row.getImageHash();
+                // Bills saved before hashes existed: hash the stored file once and keep it
+                if (imageHash == null && row.getBillImagePath() != null) {
+                    imageHash = hashFile(fileStorageService.getFilePath(row.getBillImagePath()));
+                    if (imageHash != null) {
+                        billRepository.updateImageHash(row.getBillId(), imageHash);
+                        hashed++;
+                    }
+                }
+                add(row.getBillId(), row.getOwnerId(), imageHash, row.getAmount(), row.getDate(),
+                        row.getReimbursementFor());
+                afterId = row.getBillId();
+            }
+            loaded += batch.size();
+        } while (batch.size() == LOAD_BATCH);
+        log.info("Duplicate receipt index loaded: {} bills ({} newly hashed), {} suspects, in {} ms",
+                loaded, hashed, suspectCount(), System.currentTimeMillis() - start);
+    }
+
+    // Perceptual hash of an uploaded image; null for PDFs and unreadable files
+    public Long imageHash(MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            return null;
+        }
+        try (InputStream in = file.getInputStream()) {
+            return PerceptualHash.of(in);
+        } catch (IOException | RuntimeException ex) {
+            log.debug("Could not hash {}: {}", file.getOriginalFilename(), ex.getMessage());
+            return null;
+        }
+    }
+
+    private static Long hashFile(Path path) {
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try (InputStream in = Files.newInputStream(path)) {
+            return PerceptualHash.of(in);
+        } catch (IOException | RuntimeException ex) {
+            log.debug("Could not hash {}: {}", path, ex.getMessage());
+            return null;
+        }
+    }
+
+    // Adds the bill and returns the ids of existing bills it looks like, ascending
+    public List<Integer> add(Bill bill) {
+        return add(bill.getBillId(), ownerOf(bill), bill.getImageHash(), bill.getAmount(), bill.getDate(),
+                bill.getReimbursementFor());
+    }
+
+    public List<Integer> add(int billId, Integer ownerId, Long imageHash, Double amount, LocalDate date,
+                             String category) {
+        Receipts current = receipts.current();
+        current.lock.writeLock().lock();
+        try {
+            Bucket[][] tables = current.tables;
+            Map<Integer, Set<Integer>> suspects = current.suspects;
+            // The startup load can meet a bill the controller has already added
+            if (current.indexed.get(billId)) {
+                Set<Integer> pairs = suspects.get(billId);
+                return pairs == null ? List.of() : new ArrayList<>(pairs);
+            }
+            ReceiptKey receiptKey = receiptKey(current, ownerId, amount, date, category, true);
+            Set<Integer> matches = lookup(current, billId, imageHash, receiptKey);
+            if (imageHash != null) {
+                for (int c = 0; c < tables.length; c++) {
+                    int chunk = chunk(imageHash, c);
+                    Bucket bucket = tables[c][chunk];
+                    if (bucket == null) {
+                        bucket = tables[c][chunk] = new Bucket();
+                    }
+                    bucket.add(billId, imageHash);
+                }
+            }
+            if (receiptKey != null) {
+                current.byReceiptKey.merge(receiptKey, new int[]{billId}, DuplicateReceiptIndex::append);
+            }
+            for (Integer match : matches) {
+                suspects.computeIfAbsent(match, id -> new TreeSet<>()).add(billId);
+                suspects.computeIfAbsent(billId, id -> new TreeSet<>()).add(match);
+            }
+            current.indexed.set(billId);
+            return new ArrayList<>(matches);
+        } finally {
+            current.lock.writeLock().unlock();
+        }
+    }
+
+    // Must be given the bill as it was indexed, i.e. before its fields are edited
+    public void remove(Bill bill) {
+        remove(bill.getBillId(), ownerOf(bill), bill.getImageHash(), bill.getAmount(), bill.getDate(),
+                bill.getReimbursementFor());
+    }
+
+    // ownerId is read-only, so a bill saved in this request only has its owner
+    private static Integer ownerOf(Bill bill) {
+        return bill.getOwnerId() != null ? bill.getOwnerId() : bill.getEmployeeId();
+    }
+
+    public void remove(int billId, Integer ownerId, Long imageHash, Double amount, LocalDate date,
+                       String category) {
+        Receipts current = receipts.current();
+        current.lock.writeLock().lock();
+        try {
+            Map<Integer, Set<Integer>> suspects = current.suspects;
+            if (!current.indexed.get(billId)) {
+                return;
+            }
+            current.indexed.clear(billId);
+            if (imageHash != null) {
+                for (int c = 0; c < current.tables.length; c++) {
+                    Bucket bucket = current.tables[c][chunk(imageHash, c)];
+                    if (bucket != null) {
+                        bucket.remove(billId);
+                    }
+                }
+            }
+            ReceiptKey receiptKey = receiptKey(current, ownerId, amount, date, category, false);
+            if (receiptKey != null) {
+                current.byReceiptKey.computeIfPresent(receiptKey, (key, ids) -> without(ids, billId));
+            }
+            Set<Integer> pairs = suspects.remove(billId);
+            if (pairs != null) {
+                for (Integer other : pairs) {
+                    Set<Integer> otherPairs = suspects.get(other);
+                    if (otherPairs != null && otherPairs.remove(billId) && otherPairs.isEmpty()) {
+                        suspects.remove(other);
+                    }
+                }
+            }
+        } finally {
+            current.lock.writeLock().unlock();
+        }
+    }
+
+    // Ids of bills that look like this one, or null when there are none
+    public List<Integer> suspectsOf(Integer billId) {
+        Receipts current = receipts.current();
+        current.lock.readLock().lock();
+        try {
+            Set<Integer> pairs = current.suspects.get(billId);
+            return pairs == null ? null : new ArrayList<>(pairs);
+        } finally {
+            current.lock.readLock().unlock();
+        }
+    }
+
+    // Sets suspectedDuplicates on each bill that has any, under one lock acquisition
+    public void flagSuspects(Collection<Bill> bills) {
+        Receipts current = receipts.current();
+        current.lock.readLock().lock();
+        try {
+            for (Bill bill : bills) {
+                Set<Integer> pairs = current.suspects.get(bill.getBillId());
+                if (pairs != null) {
+                    bill.setSuspectedDuplicates(new ArrayList<>(pairs));
+                }
+            }
+        } finally {
+            current.lock.readLock().unlock();
+        }
+    }
+
+    // The same for sparse bill rows (fields=), which carry billId when they ask for suspects
+    public void flagSuspectRows(Collection<Map<String, Object>> rows) {
+        Receipts current = receipts.current();
+        current.lock.readLock().lock();
+        try {
+            for (Map<String, Object> row : rows) {
+                Set<Integer> pairs = current.suspects.get((Integer) row.get(BillField.BILL_ID.jsonName()));
+                if (pairs != null) {
+                    row.put(BillField.SUSPECTED_DUPLICATES.jsonName(), new ArrayList<>(pairs));
+                }
+            }
+        } finally {
+            current.lock.readLock().unlock();
+        }
+    }
+
+    // Existing bills that look like the given fingerprint, without adding it
+    public List<Integer> findMatches(Integer ownerId, Long imageHash, Double amount, LocalDate date, String category) {
+        Receipts current = receipts.current();
+        current.lock.readLock().lock();
+        try {
+            return new ArrayList<>(lookup(current, -1, imageHash,
+                    receiptKey(current, ownerId, amount, date, category, false)));
+        } finally {
+            current.lock.readLock().unlock();
+        }
+    }
+
+    private Set<Integer> lookup(Receipts current, int billId, Long imageHash, ReceiptKey receiptKey) {
+        Bucket[][] tables = current.tables;
+        Timer.Sample sample = Timer.start();
+        Set<Integer> matches = new TreeSet<>();
+        if (imageHash != null) {
+            for (int c = 0; c < tables.length; c++) {
+                Bucket bucket = tables[c][chunk(imageHash, c)];
+                if (bucket == null) {
+                    continue;
+                }
+                for (int i = 0; i < bucket.size; i++) {
+                    if (bucket.ids[i] != billId && PerceptualHash.distance(bucket.hashes[i], imageHash) <= maxDistance) {
+                        matches.add(bucket.ids[i]);
+                    }
+                }
+            }
+        }
+        if (receiptKey != null) {
+            int[] ids = current.byReceiptKey.get(receiptKey);
+            if (ids != null) {
+                for (int id : ids) {
+                    if (id != billId) {
+                        matches.add(id);
+                    }
+                }
+            }
+        }
+        sample.stop(lookupTimer);
+        return matches;
+    }
+
+    private int chunk(long hash, int c) {
+        return (int) ((hash >>> chunkShift[c]) & ((1L << chunkBits[c]) - 1));
+    }
+
+    /*
+        The owner plus 34 bits of amount in paise (up to ~17 crore), 17 bits of epoch day
+        (to year 2328) and 13 bits of category id, so equal receipts get equal keys without
+        building a string per bill. Null when a part is missing or out of range.
+    */
+    private static ReceiptKey receiptKey(Receipts current, Integer ownerId, Double amount, LocalDate date,
+                                         String category, boolean assignCategory) {
+        Map<String, Integer> categoryIds = current.categoryIds;
+        if (ownerId == null || amount == null || date == null || category == null) {
+            return null;
+        }
+        long paise = Math.round(amount * 100);
+        long day = date.toEpochDay();
+        String normalized = category.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        Integer categoryId = categoryIds.get(normalized);
+        if (categoryId == null && assignCategory && categoryIds.size() < (1 << 13)) {
+            categoryId = categoryIds.size();
+            categoryIds.put(normalized, categoryId);
+        }
+        if (categoryId == null || paise < 0 || paise >= (1L << 34) || day < 0 || day >= (1L << 17)) {
+            return null;
+        }
+        return new ReceiptKey(ownerId, (paise << 30) | (day << 13) | categoryId);
+    }
+
+    private static int[] append(int[] ids, int[] added) {
+        int[] merged = Arrays.copyOf(ids, ids.length + 1);
+        merged[ids.length] = added[0];
+        return merged;
+    }
+
+    private static int[] without(int[] ids, int billId) {
+        int[] kept = Arrays.stream(ids).filter(id -> id != billId).toArray();
+        return kept.length == 0 ? null : kept;
+    }
+
+    // Bills indexed for the current tenant
+    public int size() {
+        return receipts.current().size();
+    }
+
+    private int totalSize() {
+        return receipts.all().stream().mapToInt(Receipts::size).sum();
+    }
+
+    private int suspectCount() {
+        Receipts current = receipts.current();
+        current.lock.readLock().lock();
+        try {
+            return current.suspects.size();
+        } finally {
+            current.lock.readLock().unlock();
+        }
+    }
+
+    // One tenant's index; every field is guarded by lock
+    private final class Receipts {
+
+        private final Bucket[][] tables = new Bucket[chunkBits.length][];
+        // (owner, amount in paise, date, category) — see receiptKey
+        private final Map<ReceiptKey, int[]> byReceiptKey = new HashMap<>();
+        private final Map<String, Integer> categoryIds = new HashMap<>();
+        private final Map<Integer, Set<Integer>> suspects = new HashMap<>();
+        private final BitSet indexed = new BitSet();
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        private Receipts() {
+            for (int c = 0; c < tables.length; c++) {
+                tables[c] = new Bucket[1 << chunkBits[c]];
+            }
+        }
+
+        private int size() {
+            lock.readLock().lock();
+            try {
+                return indexed.cardinality();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    private record ReceiptKey(int ownerId, long receipt) {
+    }
+
+    // Parallel arrays of (bill id, full hash) whose chunk has one value
+    private static final class Bucket {
+
+        private int[] ids = new int[2];
+        private long[] hashes = new long[2];
+        private int size;
+
+        private void add(int billId, long hash) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                hashes = Arrays.copyOf(hashes, size * 2);
+            }
+            ids[size] = billId;
+            hashes[size] = hash;
+            size++;
+        }
+
+        private void remove(int billId) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == billId) {
+                    size--;
+                    ids[i] = ids[size];
+                    hashes[i] = hashes[size];
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.bills_reimbursement.bills_reimbursement.duplicates;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+/*
+    64-bit difference hash (dHash) of an image: shrink to 9×8 grey cells and record,
+    per row, whether each cell is brighter than its right neighbour. Re-encoding,
+    resizing or photographing the same receipt again changes only a few bits, so two
+    receipts are "the same" when their hashes are a small Hamming distance apart.
+*/
+public final class PerceptualHash {
+
+    private static final int COLUMNS = 9;
+    private static final int ROWS = 8;
+
+    // Decode at roughly this many pixels on the short side. Subsampling keeps the
+    // raster tiny, but the decoder still walks every pixel: ~0.1 s for a 12 MP JPEG.
+    private static final int DECODE_SIZE = 72;
+
+    // Larger images are not hashed, so a crafted upload can't tie up the request thread
+    private static final long MAX_PIXELS = 50_000_000L;
+
+    private PerceptualHash() {
+    }
+
+    // Null when the stream is not an image ImageIO can read (e.g. a PDF) or is too large
+    public static Long of(InputStream in) throws IOException {
+        try (ImageInputStream stream = ImageIO.createImageInputStream(in)) {
+            if (stream == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(stream, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > MAX_PIXELS) {
+                    return null;
+                }
+                int step = Math.max(1, Math.min(width, height) / DECODE_SIZE);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return of(reader.read(0, param));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    public static long of(BufferedImage image) {
+        double[][] cells = new double[ROWS][COLUMNS];
+        int[][] counts = new int[ROWS][COLUMNS];
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            int cellY = y * ROWS / height;
+            for (int x = 0; x < width; x++) {
+                int rgb = row[x];
+                int cellX = x * COLUMNS / width;
+                cells[cellY][cellX] += 0.299 * ((rgb >> 16) & 0xFF) + 0.587 * ((rgb >> 8) & 0xFF) + 0.114 * (rgb & 0xFF);
+                counts[cellY][cellX]++;
+            }
+        }
+
+        long hash = 0;
+        for (int y = 0; y < ROWS; y++) {
+            for (int x = 0; x < COLUMNS - 1; x++) {
+                double left = cells[y][x] / Math.max(1, counts[y][x]);
+                double right = cells[y][x + 1] / Math.max(1, counts[y][x + 1]);
+                hash = (hash << 1) | (left < right ? 1 : 0);
+            }
+        }
+        return hash;
+    }
+
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+}
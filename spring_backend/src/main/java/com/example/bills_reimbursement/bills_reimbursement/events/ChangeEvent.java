@@ -0,0 +1,50 @@
+package com.example.bills_reimbursement.bills_reimbursement.events;
+
+import com.example.bills_reimbursement.bills_reimbursement.dtos.Bill;
+import com.example.bills_reimbursement.bills_reimbursement.tenancy.TenantContext;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/*
+    What changed, not the changed row: dashboards refetch the bill or user by id.
+    id is the cluster-wide sequence number, used as the SSE event id; 0 means the
+    sequence was unavailable and the event can't be resumed from. tenant is null for
+    the default tenant; streams only receive their own tenant's events. origin is the
+    node that published it.
+*/
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ChangeEvent(long id, String type, Integer billId, Integer employeeId, String status, String tenant,
+                          String origin) {
+
+    public static final String BILL_CREATED = "bill.created";
+    public static final String BILL_UPDATED = "bill.updated";
+    public static final String BILL_DELETED = "bill.deleted";
+    public static final String BILL_STATUS = "bill.status";
+    // Old-bill cleanup: too many ids to list, refetch the bill list
+    public static final String BILLS_PURGED = "bills.purged";
+    public static final String USER_REGISTERED = "user.registered";
+    public static final String USER_APPROVED = "user.approved";
+    public static final String USER_UPDATED = "user.updated";
+    public static final String USER_DELETED = "user.deleted";
+
+    public static ChangeEvent bill(String type, Bill bill) {
+        Integer owner = bill.getOwnerId() != null ? bill.getOwnerId() : bill.getEmployeeId();
+        String status = BILL_STATUS.equals(type) ? bill.getStatus() : null;
+        return new ChangeEvent(0, type, bill.getBillId(), owner, status, currentTenant(), null);
+    }
+
+    public static ChangeEvent user(String type, Integer employeeId) {
+        return new ChangeEvent(0, type, null, employeeId, null, currentTenant(), null);
+    }
+
+    public static ChangeEvent of(String type) {
+        return new ChangeEvent(0, type, null, null, null, currentTenant(), null);
+    }
+
+    ChangeEvent published(long id, String origin) {
+        return new ChangeEvent(id, type, billId, employeeId, status, tenant, origin);
+    }
+
+    private static String currentTenant() {
+        return TenantContext.isDefault() ? null : TenantContext.current();
+    }
+}
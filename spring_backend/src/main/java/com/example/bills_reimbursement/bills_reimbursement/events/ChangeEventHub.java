@@ -0,0 +1,285 @@
+package com.example.bills_reimbursement.bills_reimbursement.events;
+
+import com.example.bills_reimbursement.bills_reimbursement.store.KeyValueStore;
+import com.example.bills_reimbursement.bills_reimbursement.tenancy.TenantContext;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/*
+    Live change feed for admin dashboards. Controllers publish after each write; the
+    event gets the next id from a sequence in the KeyValueStore and goes out through
+    the relay, so every node receives every event and pushes it to its own streams.
+
+    All stream work (sending, replaying, heartbeats, subscribing) runs on a single
+    dispatcher thread. Events therefore reach each stream in order, and a replay
+    can't race a live event. Publishing never blocks on a slow client or fails the
+    request that triggered it.
+
+    Each node keeps the last events.replay-buffer events. A client reconnecting with
+    Last-Event-ID gets what it missed, or a "reset" event when the gap is no longer
+    buffered, meaning: refetch everything.
+
+    Every tenant shares the sequence and the relay; a stream is only sent (and
+    replayed) the events of the tenant that opened it.
+
+    In-memory state that other nodes' writes make stale (spending totals, the user
+    directory) registers a listener with onEvent. Listeners get the events other nodes
+    published — this node's controllers already applied their own — on the application
+    task executor with the event's tenant current, so a listener that queries the
+    database runs outside any request.
+*/
+@Component
+public class ChangeEventHub {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeEventHub.class);
+
+    static final String SEQUENCE_KEY = "EVENTS_SEQ";
+    static final String RESET = "reset";
+
+    private final KeyValueStore store;
+    private final ChangeEventRelay relay;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final int replayBufferSize;
+    private final Duration streamTimeout;
+    private final TaskExecutor taskExecutor;
+    private final List<Consumer<ChangeEvent>> listeners = new CopyOnWriteArrayList<>();
+    // Stamped on the events this node publishes, so listeners skip them
+    private final String nodeId = UUID.randomUUID().toString();
+
+    // Touched only on the dispatcher thread
+    private final ArrayDeque<Delivered> replayBuffer = new ArrayDeque<>();
+    // Each open stream with the tenant it belongs to
+    private final Map<SseEmitter, String> streams = new LinkedHashMap<>();
+
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "change-events");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile int streamCount;
+
+    public ChangeEventHub(KeyValueStore store, ChangeEventRelay relay, ObjectMapper objectMapper,
+                          MeterRegistry meterRegistry,
+                          @Value("${events.replay-buffer:1000}") int replayBufferSize,
+                          @Value("${events.stream-timeout:30m}") Duration streamTimeout,
+                          @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor) {
+        this.store = store;
+        this.relay = relay;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.replayBufferSize = replayBufferSize;
+        this.streamTimeout = streamTimeout;
+        this.taskExecutor = taskExecutor;
+        Gauge.builder("events.streams", () -> streamCount).register(meterRegistry);
+        relay.subscribe(this::onMessage);
+    }
+
+    public void publish(ChangeEvent event) {
+        try {
+            long id;
+            try {
+                id = store.increment(SEQUENCE_KEY);
+            } catch (DataAccessException e) {
+                // Still worth pushing, but without an id clients can't resume from it
+                log.warn("Change event {} published without id: sequence unavailable — {}", event.type(), e.getMessage());
+                id = 0;
+            }
+            relay.publish(objectMapper.writeValueAsString(event.published(id, nodeId)));
+            meterRegistry.counter("events.published", "type", event.type()).increment();
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Could not publish change event {}: {}", event.type(), e.getMessage());
+        }
+    }
+
+    public void onEvent(Consumer<ChangeEvent> listener) {
+        listeners.add(listener);
+    }
+
+    // Opens a stream; lastEventId is the id of the last event the client saw, if any
+    public SseEmitter subscribe(Long lastEventId) {
+        String tenant = TenantContext.current();
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        emitter.onCompletion(() -> dispatcher.execute(() -> remove(emitter)));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> dispatcher.execute(() -> remove(emitter)));
+        dispatcher.execute(() -> {
+            if (lastEventId != null && !replay(emitter, tenant, lastEventId)) {
+                return;
+            }
+            streams.put(emitter, tenant);
+            streamCount = streams.size();
+        });
+        return emitter;
+    }
+
+    private void onMessage(String message) {
+        ChangeEvent event;
+        try {
+            event = objectMapper.readValue(message, ChangeEvent.class);
+        } catch (IOException e) {
+            log.warn("Ignoring malformed change event: {}", e.getMessage());
+            return;
+        }
+        // On the dispatcher thread no tenant is set, so current() is the default tenant
+        String tenant = event.tenant() != null ? event.tenant() : TenantContext.current();
+        Delivered delivered = new Delivered(event.id(), event.type(), message, tenant);
+        if (!listeners.isEmpty() && !nodeId.equals(event.origin())) {
+            taskExecutor.execute(() -> TenantContext.runAs(tenant, () -> notifyListeners(event)));
+        }
+        dispatcher.execute(() -> {
+            if (delivered.id() > 0) {
+                buffer(delivered);
+            }
+            Iterator<Map.Entry<SseEmitter, String>> it = streams.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<SseEmitter, String> stream = it.next();
+                if (stream.getValue().equals(tenant) && !send(stream.getKey(), delivered)) {
+                    it.remove();
+                }
+            }
+            streamCount = streams.size();
+        });
+    }
+
+    private void notifyListeners(ChangeEvent event) {
+        for (Consumer<ChangeEvent> listener : listeners) {
+            try {
+                listener.accept(event);
+            } catch (RuntimeException e) {
+                log.warn("Change event listener failed on {}: {}", event.type(), e.getMessage());
+            }
+        }
+    }
+
+    // Sends the tenant's events after lastEventId, or a reset if some of the events
+    // after it are no longer buffered
+    private boolean replay(SseEmitter emitter, String tenant, long lastEventId) {
+        boolean complete;
+        if (replayBuffer.isEmpty()) {
+            complete = lastEventId >= currentSequence();
+        } else {
+            complete = replayBuffer.peekFirst().id() <= lastEventId + 1;
+        }
+        if (!complete) {
+            meterRegistry.counter("events.resets").increment();
+            return send(emitter, new Delivered(0, RESET, "{}", tenant));
+        }
+        for (Delivered delivered : replayBuffer) {
+            if (delivered.id() > lastEventId && delivered.tenant().equals(tenant) && !send(emitter, delivered)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long currentSequence() {
+        try {
+            String value = store.get(SEQUENCE_KEY);
+            return value != null ? Long.parseLong(value) : 0;
+        } catch (DataAccessException | NumberFormatException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    // Ids come from one sequence but via different nodes, so arrival order can be off by a little
+    private void buffer(Delivered delivered) {
+        if (replayBuffer.isEmpty() || replayBuffer.peekLast().id() < delivered.id()) {
+            replayBuffer.addLast(delivered);
+        } else {
+            List<Delivered> later = new ArrayList<>();
+            while (!replayBuffer.isEmpty() && replayBuffer.peekLast().id() > delivered.id()) {
+                later.add(0, replayBuffer.pollLast());
+            }
+            replayBuffer.addLast(delivered);
+            replayBuffer.addAll(later);
+        }
+        while (replayBuffer.size() > replayBufferSize) {
+            replayBuffer.pollFirst();
+        }
+    }
+
+    private boolean send(SseEmitter emitter, Delivered delivered) {
+        SseEmitter.SseEventBuilder frame = SseEmitter.event().name(delivered.type()).data(delivered.json(), MediaType.APPLICATION_JSON);
+        if (delivered.id() > 0) {
+            frame.id(String.valueOf(delivered.id()));
+        }
+        try {
+            emitter.send(frame);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; the container reports the same through onError/onCompletion
+            return false;
+        }
+    }
+
+    // Keeps proxies from closing idle streams and finds dead clients between events
+    @Scheduled(fixedDelayString = "${events.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        dispatcher.execute(() -> {
+            Iterator<SseEmitter> it = streams.keySet().iterator();
+            while (it.hasNext()) {
+                try {
+                    it.next().send(SseEmitter.event().comment("ping"));
+                } catch (IOException | IllegalStateException e) {
+                    it.remove();
+                }
+            }
+            streamCount = streams.size();
+        });
+    }
+
+    private void remove(SseEmitter emitter) {
+        streams.remove(emitter);
+        streamCount = streams.size();
+    }
+
+    // Before the web server's graceful shutdown, which would otherwise wait on open streams
+    @EventListener(ContextClosedEvent.class)
+    public void closeStreams() {
+        dispatcher.execute(() -> {
+            streams.keySet().forEach(SseEmitter::complete);
+            streams.clear();
+            streamCount = 0;
+        });
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        dispatcher.shutdown();
+        dispatcher.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private record Delivered(long id, String type, String json, String tenant) {
+    }
+}
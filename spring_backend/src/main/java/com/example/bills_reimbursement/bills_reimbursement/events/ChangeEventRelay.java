@@ -0,0 +1,15 @@
+package com.example.bills_reimbursement.bills_reimbursement.events;
+
+import java.util.function.Consumer;
+
+/*
+    Carries serialized change events to every backend node, including the one that
+    published them. Selected with store.type, like the KeyValueStore: Redis pub/sub
+    for "redis", a direct hand-off for "memory" (single node).
+*/
+public interface ChangeEventRelay {
+
+    void publish(String message);
+
+    void subscribe(Consumer<String> listener);
+}
@@ -0,0 +1,23 @@
+package com.example.bills_reimbursement.bills_reimbursement.events;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Consumer;
+
+@Component
+@ConditionalOnProperty(name = "store.type", havingValue = "memory")
+public class LocalChangeEventRelay implements ChangeEventRelay {
+
+    private volatile Consumer<String> listener = message -> { };
+
+    @Override
+    public void publish(String message) {
+        listener.accept(message);
+    }
+
+    @Override
+    public void subscribe(Consumer<String> listener) {
+        this.listener = listener;
+    }
+}
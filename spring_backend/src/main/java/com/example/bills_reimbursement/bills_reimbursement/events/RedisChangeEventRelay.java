@@ -0,0 +1,84 @@
+package com.example.bills_reimbursement.bills_reimbursement.events;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/*
+    Fans change events out over one Redis pub/sub channel. Pub/sub keeps nothing, so
+    a node that is down or reconnecting misses messages; resuming clients are covered
+    by each node's replay buffer, and a gap the buffer can't cover becomes a reset.
+    If Redis is unreachable, events are still delivered to this node's own streams.
+    The subscription is made in the background once the application is ready, so
+    startup neither waits for Redis nor connects to it before the first request.
+*/
+@Component
+@ConditionalOnProperty(name = "store.type", havingValue = "redis", matchIfMissing = true)
+public class RedisChangeEventRelay implements ChangeEventRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisChangeEventRelay.class);
+
+    static final String CHANNEL = "change-events";
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer container;
+    private final TaskExecutor taskExecutor;
+    private volatile Consumer<String> listener = message -> { };
+
+    public RedisChangeEventRelay(StringRedisTemplate redisTemplate, RedisConnectionFactory connectionFactory,
+                                 @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor) {
+        this.redisTemplate = redisTemplate;
+        this.taskExecutor = taskExecutor;
+        this.container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener((message, pattern) ->
+                listener.accept(new String(message.getBody(), StandardCharsets.UTF_8)), new ChannelTopic(CHANNEL));
+        container.afterPropertiesSet();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void subscribeInBackground() {
+        taskExecutor.execute(() -> {
+            try {
+                // Keeps retrying in the background if Redis is not up yet
+                container.start();
+            } catch (RuntimeException e) {
+                log.warn("Change event relay: could not subscribe to Redis yet — {}", e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public void publish(String message) {
+        try {
+            redisTemplate.convertAndSend(CHANNEL, message);
+        } catch (DataAccessException e) {
+            log.warn("Change event relay: Redis unavailable, delivering locally only — {}", e.getMessage());
+            listener.accept(message);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<String> listener) {
+        this.listener = listener;
+    }
+
+    @PreDestroy
+    public void close() throws Exception {
+        container.destroy();
+    }
+}
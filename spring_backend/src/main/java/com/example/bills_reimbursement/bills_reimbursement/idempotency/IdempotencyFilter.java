@@ -0,0 +1,267 @@
+package com.example.bills_reimbursement.bills_reimbursement.idempotency;
+
+import com.example.bills_reimbursement.bills_reimbursement.dtos.User;
+import com.example.bills_reimbursement.bills_reimbursement.tenancy.TenantContext;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.springframework.security.web.util.matcher.AntPathRequestMatcher.antMatcher;
+
+/*
+    Idempotency-Key support for bill add (single and batch), bill edit and the admin
+    status update, so a retried request (the app's offline queue after a dropped
+    connection) doesn't create a second bill or store its files again. A key belongs
+    to one user and one method + path; the same key on another endpoint is a
+    different request.
+
+    Only 2xx responses are kept. Everything else (validation, policy, "not approved")
+    writes nothing, and the client may fix the cause and retry under the same key.
+
+    A retry must be the same request: the key remembers a fingerprint of the query
+    string, content type and length, and of the body itself when it is small and not
+    multipart (the status update's JSON). A different request under a used key gets
+    422 instead of the replay, so a client that reuses keys by mistake doesn't lose
+    the second bill to a 2xx.
+
+    It sits at the end of the security chain, ahead of the UploadBulkheadFilter: a
+    replay or a waiting duplicate takes no upload slot and its multipart body is never
+    parsed. Not a bean, like the bulkhead filter.
+*/
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+    // Bodies up to this size are read up front to be fingerprinted
+    private static final int MAX_HASHED_BODY = 64 * 1024;
+
+    private static final List<RequestMatcher> ENDPOINTS = List.of(
+            antMatcher(HttpMethod.POST, "/users/*/bills"),
+            antMatcher(HttpMethod.POST, "/users/*/bills/batch"),
+            antMatcher(HttpMethod.PUT, "/users/*/bills/*"),
+            antMatcher(HttpMethod.PUT, "/admin/bills/*/status"));
+
+    private final IdempotencyStore idempotencyStore;
+
+    public IdempotencyFilter(IdempotencyStore idempotencyStore) {
+        this.idempotencyStore = idempotencyStore;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (request.getHeader(HEADER) == null) {
+            return true;
+        }
+        for (RequestMatcher endpoint : ENDPOINTS) {
+            if (endpoint.matches(request)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String clientKey = request.getHeader(HEADER).trim();
+        if (clientKey.isEmpty() || clientKey.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpStatus.BAD_REQUEST, "Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof User user)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        String key = TenantContext.scopedKey("IDEMPOTENCY_" + user.getEmployeeId() + "_"
+                + request.getMethod() + " " + request.getRequestURI() + "_" + clientKey);
+
+        byte[] body = smallBody(request);
+        if (body != null) {
+            request = new BufferedBodyRequest(request, body);
+        }
+        String fingerprint = fingerprint(request, body);
+
+        IdempotencyStore.Begin begin;
+        try {
+            begin = idempotencyStore.begin(key, fingerprint);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            writeInFlight(request, response);
+            return;
+        }
+        switch (begin.outcome()) {
+            case REPLAY -> replay(request, response, begin.response());
+            case IN_FLIGHT -> writeInFlight(request, response);
+            case MISMATCH -> writeMismatch(request, response);
+            case UNAVAILABLE -> filterChain.doFilter(request, response);
+            case OWNER -> execute(request, response, filterChain, key, fingerprint, begin.token());
+        }
+    }
+
+    private void execute(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain,
+                         String key, String fingerprint, String token) throws ServletException, IOException {
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        boolean stored = false;
+        try {
+            filterChain.doFilter(request, wrapper);
+            int status = wrapper.getStatus();
+            if (status >= 200 && status < 300) {
+                idempotencyStore.complete(key, new IdempotencyStore.StoredResponse(fingerprint, status,
+                        wrapper.getContentType(), wrapper.getContentAsByteArray()));
+                stored = true;
+            }
+        } finally {
+            if (!stored) {
+                idempotencyStore.release(key, token);
+            }
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    private static void replay(HttpServletRequest request, HttpServletResponse response,
+                               IdempotencyStore.StoredResponse stored) throws IOException {
+        skipUpload(request, response);
+        response.setStatus(stored.status());
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        response.setContentLength(stored.body().length);
+        response.getOutputStream().write(stored.body());
+    }
+
+    private static void writeInFlight(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        skipUpload(request, response);
+        response.setHeader(HttpHeaders.RETRY_AFTER, "5");
+        writeError(response, HttpStatus.CONFLICT, "A request with this Idempotency-Key is still being processed. Please try again shortly.");
+    }
+
+    private static void writeMismatch(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        skipUpload(request, response);
+        writeError(response, HttpStatus.UNPROCESSABLE_ENTITY, "This Idempotency-Key was already used for a different request. Send a new key for a new submission.");
+    }
+
+    /*
+        Method and path are part of the key already. A multipart boundary changes on
+        every attempt, so only the media type counts; the clients' boundaries have a
+        fixed length, so a retried body is the same length. body is null when it
+        wasn't read.
+    */
+    static String fingerprint(HttpServletRequest request, byte[] body) {
+        String contentType = request.getContentType();
+        int parameters = contentType != null ? contentType.indexOf(';') : -1;
+        String mediaType = parameters >= 0 ? contentType.substring(0, parameters) : contentType;
+        String summary = request.getQueryString() + "|" + mediaType + "|" + request.getContentLengthLong();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(summary.getBytes(StandardCharsets.UTF_8));
+            if (body != null) {
+                digest.update(body);
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // A small body, read whole; null for uploads, forms (the container parses those
+    // itself) and unknown lengths
+    private static byte[] smallBody(HttpServletRequest request) throws IOException {
+        String contentType = request.getContentType();
+        long length = request.getContentLengthLong();
+        if (length < 0 || length > MAX_HASHED_BODY || (contentType != null
+                && (contentType.regionMatches(true, 0, "multipart/", 0, 10)
+                || contentType.regionMatches(true, 0, "application/x-www-form-urlencoded", 0, 33)))) {
+            return null;
+        }
+        return request.getInputStream().readAllBytes();
+    }
+
+    // Don't read an unneeded multipart body just to keep the connection open
+    private static void skipUpload(HttpServletRequest request, HttpServletResponse response) {
+        String contentType = request.getContentType();
+        if (contentType != null && contentType.regionMatches(true, 0, "multipart/", 0, 10)) {
+            response.setHeader(HttpHeaders.CONNECTION, "close");
+        }
+    }
+
+    // The request with its body already read, so the controller can read it again
+    private static final class BufferedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        private BufferedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return in.read(buffer, offset, length);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() throws UnsupportedEncodingException {
+            String encoding = getCharacterEncoding() != null ? getCharacterEncoding() : StandardCharsets.UTF_8.name();
+            return new BufferedReader(new InputStreamReader(getInputStream(), encoding));
+        }
+    }
+
+    private static void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType("application/json");
+        response.getWriter().write("{\"error\": \"" + message + "\"}");
+    }
+}
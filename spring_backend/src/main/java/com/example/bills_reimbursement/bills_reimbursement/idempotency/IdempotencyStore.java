@@ -0,0 +1,218 @@
+package com.example.bills_reimbursement.bills_reimbursement.idempotency;
+
+import com.example.bills_reimbursement.bills_reimbursement.store.KeyValueStore;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/*
+    First responses of requests sent with an Idempotency-Key, kept in the KeyValueStore
+    for ttl. While the first request runs, its key holds a pending marker (expiring
+    after in-flight-ttl in case the node dies); duplicates wait up to max-wait for the
+    response. A duplicate on the same node is woken as soon as the first one finishes;
+    across nodes it polls the store.
+
+    The marker and the stored response carry the first request's fingerprint. A
+    request under the same key with another fingerprint is a client bug, not a retry:
+    it gets MISMATCH rather than someone else's response.
+*/
+@Component
+public class IdempotencyStore {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    private static final String PENDING = "pending:";
+    private static final long MIN_POLL_MILLIS = 50;
+    private static final long MAX_POLL_MILLIS = 1000;
+
+    private final KeyValueStore store;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Duration inFlightTtl;
+    private final long maxWaitNanos;
+
+    // Requests running on this node, completed when their response is stored or dropped
+    private final Map<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter executed;
+    private final Counter replayed;
+    private final Counter conflicts;
+    private final Counter unavailable;
+    private final Counter mismatches;
+    private final Timer waitTimer;
+
+    private volatile boolean storeDown = false;
+
+    public IdempotencyStore(KeyValueStore store, ObjectMapper objectMapper,
+                            @Value("${idempotency.ttl:24h}") Duration ttl,
+                            @Value("${idempotency.in-flight-ttl:10m}") Duration inFlightTtl,
+                            @Value("${idempotency.max-wait:30s}") Duration maxWait,
+                            MeterRegistry meterRegistry) {
+        this.store = store;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.inFlightTtl = inFlightTtl;
+        this.maxWaitNanos = maxWait.toNanos();
+
+        this.executed = meterRegistry.counter("idempotency.requests", "outcome", "executed");
+        this.replayed = meterRegistry.counter("idempotency.requests", "outcome", "replayed");
+        this.conflicts = meterRegistry.counter("idempotency.requests", "outcome", "in-flight");
+        this.unavailable = meterRegistry.counter("idempotency.requests", "outcome", "unavailable");
+        this.mismatches = meterRegistry.counter("idempotency.requests", "outcome", "mismatch");
+        this.waitTimer = Timer.builder("idempotency.wait").register(meterRegistry);
+    }
+
+    /*
+        Claims key for the caller, or waits for whoever holds it. The result is one of:
+        OWNER — run the request, then complete() or release() with the token;
+        REPLAY — the stored response to send back instead;
+        IN_FLIGHT — still running elsewhere after max-wait;
+        MISMATCH — the key was first used by a request with another fingerprint;
+        UNAVAILABLE — the store can't be reached, run the request unprotected.
+    */
+    public Begin begin(String key, String fingerprint) throws InterruptedException {
+        long start = System.nanoTime();
+        long deadline = start + maxWaitNanos;
+        long pollMillis = MIN_POLL_MILLIS;
+        boolean waited = false;
+        try {
+            while (true) {
+                String token = PENDING + fingerprint + ":" + UUID.randomUUID();
+                if (store.setIfAbsent(key, token, inFlightTtl)) {
+                    inFlight.put(key, new CompletableFuture<>());
+                    executed.increment();
+                    return new Begin(Outcome.OWNER, token, null);
+                }
+                String value = store.get(key);
+                // null: the holder gave up or expired between the two calls, so claim again
+                if (value == null) {
+                    continue;
+                }
+                boolean pending = value.startsWith(PENDING);
+                StoredResponse stored = pending ? null : decode(value);
+                if (!matches(pending ? pendingFingerprint(value) : stored.fingerprint(), fingerprint)) {
+                    mismatches.increment();
+                    return new Begin(Outcome.MISMATCH, null, null);
+                }
+                if (!pending) {
+                    replayed.increment();
+                    return new Begin(Outcome.REPLAY, null, stored);
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    conflicts.increment();
+                    return new Begin(Outcome.IN_FLIGHT, null, null);
+                }
+                waited = true;
+                long waitNanos = Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(pollMillis));
+                CompletableFuture<Void> local = inFlight.get(key);
+                if (local != null) {
+                    try {
+                        local.get(waitNanos, TimeUnit.NANOSECONDS);
+                    } catch (TimeoutException | ExecutionException ignored) {
+                        // Look at the store again either way
+                    }
+                } else {
+                    TimeUnit.NANOSECONDS.sleep(waitNanos);
+                }
+                pollMillis = Math.min(pollMillis * 2, MAX_POLL_MILLIS);
+            }
+        } catch (DataAccessException e) {
+            if (!storeDown) {
+                log.warn("Idempotency: store unavailable, running requests without replay protection — {}", e.getMessage());
+                storeDown = true;
+            }
+            unavailable.increment();
+            return new Begin(Outcome.UNAVAILABLE, null, null);
+        } finally {
+            if (waited) {
+                waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    // Stores the owner's response for replay, replacing its pending marker
+    public void complete(String key, StoredResponse response) {
+        try {
+            store.set(key, objectMapper.writeValueAsString(response), ttl);
+            if (storeDown) {
+                log.info("Idempotency: store reachable again");
+                storeDown = false;
+            }
+        } catch (JsonProcessingException | DataAccessException e) {
+            // The request itself went through; only a later retry loses its replay
+            log.warn("Idempotency: could not store response for {} — {}", key, e.getMessage());
+        } finally {
+            finish(key);
+        }
+    }
+
+    // Drops the owner's claim without a response, so the next attempt runs the request again
+    public void release(String key, String token) {
+        try {
+            store.deleteIfEquals(key, token);
+        } catch (DataAccessException e) {
+            log.warn("Idempotency: could not release {} — {}", key, e.getMessage());
+        } finally {
+            finish(key);
+        }
+    }
+
+    private void finish(String key) {
+        CompletableFuture<Void> local = inFlight.remove(key);
+        if (local != null) {
+            local.complete(null);
+        }
+    }
+
+    // null: stored before fingerprints existed, taken as a match
+    private static boolean matches(String stored, String fingerprint) {
+        return stored == null || stored.equals(fingerprint);
+    }
+
+    // pending:<fingerprint>:<uuid>
+    private static String pendingFingerprint(String marker) {
+        int end = marker.indexOf(':', PENDING.length());
+        return end > 0 ? marker.substring(PENDING.length(), end) : null;
+    }
+
+    private StoredResponse decode(String value) {
+        try {
+            return objectMapper.readValue(value, StoredResponse.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable stored response", e);
+        }
+    }
+
+    public enum Outcome {
+        OWNER,
+        REPLAY,
+        IN_FLIGHT,
+        MISMATCH,
+        UNAVAILABLE
+    }
+
+    public record Begin(Outcome outcome, String token, StoredResponse response) {
+    }
+
+    // body is the response exactly as written, in whatever encoding the client accepted;
+    // fingerprint is that of the request that produced it
+    public record StoredResponse(String fingerprint, int status, String contentType, byte[] body) {
+    }
+}
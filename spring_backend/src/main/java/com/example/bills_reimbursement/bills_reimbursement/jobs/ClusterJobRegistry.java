@@ -0,0 +1,81 @@
+package com.example.bills_reimbursement.bills_reimbursement.jobs;
+
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.EmbeddedValueResolverAware;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringValueResolver;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+    Collects @ClusterScheduled methods as beans are created. Kept free of dependencies:
+    a BeanPostProcessor is created before other beans, and anything it depends on
+    would miss post-processing.
+*/
+@Component
+public class ClusterJobRegistry implements BeanPostProcessor, EmbeddedValueResolverAware {
+
+    private final Map<String, ClusterJob> jobs = new ConcurrentHashMap<>();
+    private StringValueResolver valueResolver;
+
+    @Override
+    public void setEmbeddedValueResolver(StringValueResolver resolver) {
+        this.valueResolver = resolver;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        Class<?> targetClass = AopUtils.getTargetClass(bean);
+        Map<Method, ClusterScheduled> annotated = MethodIntrospector.selectMethods(targetClass,
+                (MethodIntrospector.MetadataLookup<ClusterScheduled>) method ->
+                        AnnotatedElementUtils.findMergedAnnotation(method, ClusterScheduled.class));
+        annotated.forEach((method, annotation) -> register(bean, method, annotation));
+        return bean;
+    }
+
+    public List<ClusterJob> jobs() {
+        return List.copyOf(jobs.values());
+    }
+
+    private void register(Object bean, Method method, ClusterScheduled annotation) {
+        if (method.getParameterCount() > 1
+                || (method.getParameterCount() == 1 && method.getParameterTypes()[0] != JobContext.class)) {
+            throw new IllegalStateException("@ClusterScheduled method " + method + " must take no arguments or a JobContext");
+        }
+        if (annotation.shards() < 1) {
+            throw new IllegalStateException("@ClusterScheduled " + annotation.name() + " needs at least one shard");
+        }
+        String cron = valueResolver != null ? valueResolver.resolveStringValue(annotation.cron()) : annotation.cron();
+        Method invocable = AopUtils.selectInvocableMethod(method, bean.getClass());
+        ClusterJob job = new ClusterJob(annotation.name(), cron, CronExpression.parse(cron), annotation.shards(), bean, invocable);
+        if (jobs.putIfAbsent(job.name(), job) != null) {
+            throw new IllegalStateException("Two @ClusterScheduled jobs are named " + job.name());
+        }
+    }
+
+    public record ClusterJob(String name, String cronText, CronExpression cron, int shards, Object bean, Method method) {
+
+        void invoke(JobContext context) throws Exception {
+            try {
+                if (method.getParameterCount() == 0) {
+                    method.invoke(bean);
+                } else {
+                    method.invoke(bean, context);
+                }
+            } catch (InvocationTargetException e) {
+                if (e.getCause() instanceof Exception cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.bills_reimbursement.bills_reimbursement.jobs;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/*
+    Marks a bean method as a cluster-wide scheduled job: each cron occurrence runs on
+    exactly one node, under a Redis lease (see ClusterScheduler). Use plain @Scheduled
+    for per-node housekeeping that every node must do for itself.
+
+    The method takes no arguments or a JobContext. A sharded job is called once per
+    shard, and the shards of one occurrence can run on different nodes in parallel.
+*/
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ClusterScheduled {
+
+    // Job name, used in lease keys, run history and metrics
+    String name();
+
+    // Spring cron expression; ${...} placeholders are resolved
+    String cron();
+
+    int shards() default 1;
+}
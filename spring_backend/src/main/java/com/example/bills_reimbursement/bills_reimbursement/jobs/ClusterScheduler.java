@@ -0,0 +1,264 @@
+package com.example.bills_reimbursement.bills_reimbursement.jobs;
+
+import com.example.bills_reimbursement.bills_reimbursement.dtos.JobRun;
+import com.example.bills_reimbursement.bills_reimbursement.repositories.JobRunRepository;
+import com.example.bills_reimbursement.bills_reimbursement.store.KeyValueStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Runs @ClusterScheduled jobs so that each cron occurrence runs on exactly one node.
+
+    Every node computes the same fire times from the cron expression. At each one it
+    takes a fencing token (a per-job counter in the KeyValueStore) and tries to set the
+    job's lease key to "node/token" with a TTL. The winner renews the lease every third
+    of the TTL while the job runs, then writes a "done" marker for that occurrence and
+    releases the lease. Nodes that lost, or couldn't reach the store, check back every
+    lease TTL until the occurrence is done or the next one is due, so a run whose node
+    died (lease expired, no done marker) is taken over.
+
+    A sharded job has a lease and done marker per shard. Every node walks the shards
+    from a random starting point and runs each one it can claim, so N nodes share the
+    shards of an occurrence between them.
+
+    A run that fails is recorded and not retried before its next occurrence: for jobs
+    like the reminder email, a second attempt on another node is the duplicate this
+    is meant to prevent. Every run is recorded in job_runs and the jobs.run timer, and
+    is the root span of its own trace, "job <name>".
+*/
+@Component
+public class ClusterScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterScheduler.class);
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final ClusterJobRegistry registry;
+    private final KeyValueStore store;
+    private final JobRunRepository jobRunRepository;
+    private final TaskScheduler taskScheduler;
+    private final TaskExecutor taskExecutor;
+    private final MeterRegistry meterRegistry;
+    private final Tracer tracer;
+    private final Duration leaseTtl;
+    private final Duration historyRetention;
+    private final String nodeId;
+
+    public ClusterScheduler(ClusterJobRegistry registry, KeyValueStore store, JobRunRepository jobRunRepository,
+                            TaskScheduler taskScheduler,
+                            @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+                            MeterRegistry meterRegistry, ObjectProvider<Tracer> tracer,
+                            @Value("${jobs.lease-ttl:60s}") Duration leaseTtl,
+                            @Value("${jobs.history-retention:90d}") Duration historyRetention,
+                            @Value("${jobs.node-id:}") String nodeId) {
+        this.registry = registry;
+        this.store = store;
+        this.jobRunRepository = jobRunRepository;
+        this.taskScheduler = taskScheduler;
+        this.taskExecutor = taskExecutor;
+        this.meterRegistry = meterRegistry;
+        this.tracer = tracer.getIfAvailable(() -> Tracer.NOOP);
+        this.leaseTtl = leaseTtl;
+        this.historyRetention = historyRetention;
+        // "pid@host" — unique per process even with several nodes on one host
+        this.nodeId = nodeId.isBlank() ? ManagementFactory.getRuntimeMXBean().getName() : nodeId;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        for (ClusterJobRegistry.ClusterJob job : registry.jobs()) {
+            Instant next = scheduleNext(job, Instant.now());
+            log.info("Cluster job {} ({}{}) next runs at {}", job.name(), job.cronText(),
+                    job.shards() > 1 ? ", " + job.shards() + " shards" : "", next);
+        }
+    }
+
+    public List<ClusterJobRegistry.ClusterJob> jobs() {
+        return registry.jobs();
+    }
+
+    public Instant nextOccurrence(ClusterJobRegistry.ClusterJob job) {
+        return next(job, Instant.now());
+    }
+
+    // Run history older than jobs.history-retention; itself a cluster job
+    @ClusterScheduled(name = "job-history-prune", cron = "${jobs.history-prune-cron:0 45 3 * * *}")
+    public void pruneHistory() {
+        int pruned = jobRunRepository.deleteAllByStartedAtBefore(Instant.now().minus(historyRetention));
+        if (pruned > 0) {
+            log.info("Pruned {} job runs older than {}", pruned, historyRetention);
+        }
+    }
+
+    // The scheduler thread only hands off: jobs run on the task executor, so a long job
+    // doesn't hold up heartbeats and health checks sharing the scheduler
+    private Instant scheduleNext(ClusterJobRegistry.ClusterJob job, Instant after) {
+        Instant occurrence = next(job, after);
+        if (occurrence != null) {
+            taskScheduler.schedule(() -> {
+                scheduleNext(job, occurrence);
+                taskExecutor.execute(() -> attempt(job, occurrence));
+            }, occurrence);
+        }
+        return occurrence;
+    }
+
+    private void attempt(ClusterJobRegistry.ClusterJob job, Instant occurrence) {
+        boolean pending = false;
+        int first = ThreadLocalRandom.current().nextInt(job.shards());
+        for (int i = 0; i < job.shards(); i++) {
+            pending |= !runShard(job, occurrence, (first + i) % job.shards());
+        }
+        Instant following = next(job, occurrence);
+        Instant retryAt = Instant.now().plus(leaseTtl);
+        if (pending && (following == null || retryAt.isBefore(following))) {
+            taskScheduler.schedule(() -> taskExecutor.execute(() -> attempt(job, occurrence)), retryAt);
+        }
+    }
+
+    // Returns true when the shard is done for this occurrence, by this node or another
+    private boolean runShard(ClusterJobRegistry.ClusterJob job, Instant occurrence, int shard) {
+        String prefix = "jobs:" + job.name() + (job.shards() > 1 ? ":" + shard : "");
+        String leaseKey = prefix + ":lease";
+        String doneKey = prefix + ":done:" + occurrence.toEpochMilli();
+        String holder;
+        long fencingToken;
+        try {
+            if (store.exists(doneKey)) {
+                return true;
+            }
+            fencingToken = store.increment("jobs:" + job.name() + ":fence");
+            holder = nodeId + "/" + fencingToken;
+            if (!store.setIfAbsent(leaseKey, holder, leaseTtl)) {
+                return false;
+            }
+            // Another node may have finished between the first check and our lease
+            if (store.exists(doneKey)) {
+                store.deleteIfEquals(leaseKey, holder);
+                return true;
+            }
+        } catch (DataAccessException e) {
+            log.warn("Cluster job {} not started: lease store unavailable — {}", job.name(), e.getMessage());
+            return false;
+        }
+
+        JobContext context = new JobContext(job.name(), occurrence, shard, job.shards(), fencingToken,
+                System.currentTimeMillis() + leaseTtl.toMillis());
+        ScheduledFuture<?> renewal = taskScheduler.scheduleAtFixedRate(() -> renew(leaseKey, holder, context),
+                Instant.now().plus(leaseTtl.dividedBy(3)), leaseTtl.dividedBy(3));
+        JobRun run = started(job, occurrence, shard, fencingToken);
+        long start = System.nanoTime();
+        String outcome;
+        String error = null;
+        Span span = tracer.nextSpan().name("job " + job.name())
+                .tag("shard", String.valueOf(shard)).tag("fencing.token", String.valueOf(fencingToken)).start();
+        try (Tracer.SpanInScope ignored = tracer.withSpan(span)) {
+            job.invoke(context);
+            outcome = context.holdsLease() ? "SUCCEEDED" : "LEASE_LOST";
+        } catch (LeaseLostException e) {
+            outcome = "LEASE_LOST";
+            error = e.getMessage();
+        } catch (Exception e) {
+            outcome = "FAILED";
+            error = e.getClass().getSimpleName() + ": " + e.getMessage();
+            log.error("Cluster job {} failed", job.name(), e);
+            span.error(e);
+        } finally {
+            renewal.cancel(false);
+        }
+        span.tag("outcome", outcome).end();
+        long nanos = System.nanoTime() - start;
+        Timer.builder("jobs.run").tag("job", job.name()).tag("outcome", outcome)
+                .register(meterRegistry).record(nanos, TimeUnit.NANOSECONDS);
+        finished(run, outcome, error, nanos);
+
+        if (outcome.equals("LEASE_LOST")) {
+            // Someone else may hold the shard now; they decide when it's done
+            log.warn("Cluster job {} lost its lease after {} ms", job.name(), TimeUnit.NANOSECONDS.toMillis(nanos));
+            return false;
+        }
+        try {
+            Instant following = next(job, occurrence);
+            Duration keepDone = following != null
+                    ? Duration.between(occurrence, following).plusHours(1)
+                    : Duration.ofDays(1);
+            store.setIfAbsent(doneKey, holder, keepDone);
+            store.deleteIfEquals(leaseKey, holder);
+        } catch (DataAccessException e) {
+            // The lease expires on its own; until then other nodes see the shard as busy
+            log.warn("Cluster job {} finished but its done marker wasn't written: {}", job.name(), e.getMessage());
+        }
+        return true;
+    }
+
+    private void renew(String leaseKey, String holder, JobContext context) {
+        long validUntil = System.currentTimeMillis() + leaseTtl.toMillis();
+        try {
+            if (store.expireIfEquals(leaseKey, holder, leaseTtl)) {
+                context.renewed(validUntil);
+            } else {
+                context.lost();
+            }
+        } catch (DataAccessException e) {
+            // Keep trying; holdsLease() turns false once the last renewal is a TTL old
+            log.warn("Could not renew lease {}: {}", leaseKey, e.getMessage());
+        }
+    }
+
+    private JobRun started(ClusterJobRegistry.ClusterJob job, Instant occurrence, int shard, long fencingToken) {
+        JobRun run = new JobRun();
+        run.setJobName(job.name());
+        run.setOccurrence(occurrence);
+        run.setShard(job.shards() > 1 ? shard : null);
+        run.setNode(nodeId);
+        run.setFencingToken(fencingToken);
+        run.setStartedAt(Instant.now());
+        run.setOutcome("RUNNING");
+        try {
+            return jobRunRepository.save(run);
+        } catch (DataAccessException e) {
+            log.warn("Could not record start of cluster job {}: {}", job.name(), e.getMessage());
+            return run;
+        }
+    }
+
+    private void finished(JobRun run, String outcome, String error, long nanos) {
+        run.setFinishedAt(Instant.now());
+        run.setDurationMs(TimeUnit.NANOSECONDS.toMillis(nanos));
+        run.setOutcome(outcome);
+        run.setError(error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+        try {
+            jobRunRepository.save(run);
+        } catch (DataAccessException e) {
+            log.warn("Could not record end of cluster job {}: {}", run.getJobName(), e.getMessage());
+        }
+    }
+
+    private static Instant next(ClusterJobRegistry.ClusterJob job, Instant after) {
+        ZonedDateTime next = job.cron().next(after.atZone(ZoneId.systemDefault()));
+        return next != null ? next.toInstant() : null;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.bills_reimbursement.bills_reimbursement.jobs;
+
+import java.time.Instant;
+
+/*
+    Handed to a running job. The fencing token grows with every lease handed out for
+    the job, so state the job writes elsewhere can carry it and reject a write from a
+    holder that was superseded. Long jobs call checkLease between batches: once the
+    lease could not be renewed for a full TTL, another node may be running the same
+    shard, and the job must stop.
+*/
+public class JobContext {
+
+    private final String job;
+    private final Instant occurrence;
+    private final int shard;
+    private final int shardCount;
+    private final long fencingToken;
+    private volatile long leaseValidUntil;
+    private volatile boolean leaseLost;
+
+    JobContext(String job, Instant occurrence, int shard, int shardCount, long fencingToken, long leaseValidUntil) {
+        this.job = job;
+        this.occurrence = occurrence;
+        this.shard = shard;
+        this.shardCount = shardCount;
+        this.fencingToken = fencingToken;
+        this.leaseValidUntil = leaseValidUntil;
+    }
+
+    public String job() {
+        return job;
+    }
+
+    // The cron fire time this run belongs to — the same on every node
+    public Instant occurrence() {
+        return occurrence;
+    }
+
+    // 0-based; always 0 for a job that isn't sharded
+    public int shard() {
+        return shard;
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    public long fencingToken() {
+        return fencingToken;
+    }
+
+    public boolean holdsLease() {
+        return !leaseLost && System.currentTimeMillis() < leaseValidUntil;
+    }
+
+    public void checkLease() {
+        if (!holdsLease()) {
+            throw new LeaseLostException("Lease lost for " + job + (shardCount > 1 ? " shard " + shard : ""));
+        }
+    }
+
+    void renewed(long validUntil) {
+        leaseValidUntil = validUntil;
+    }
+
+    void lost() {
+        leaseLost = true;
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.bills_reimbursement.bills_reimbursement.jobs;
+
+// Thrown by JobContext.checkLease once another node may have taken over the job
+public class LeaseLostException extends RuntimeException {
+
+    public LeaseLostException(String message) {
+        super(message);
+    }
+}
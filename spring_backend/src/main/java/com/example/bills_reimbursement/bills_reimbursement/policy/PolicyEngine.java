@@ -0,0 +1,216 @@
+package com.example.bills_reimbursement.bills_reimbursement.policy;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Checks a bill submission against the reimbursement policy (PolicyProperties).
+
+    The configuration is compiled once at startup into a tree of rules: a lookup by
+    category at the root, and under each category only the checks it actually has
+    (required attachments, then the per-bill maximum, then the monthly and financial
+    year caps), with every setting already resolved against defaults. Evaluating a
+    submission is a map lookup plus a few comparisons; caps read SpendingTotals.
+    Misconfigured policies fail startup instead of failing submissions.
+
+    A submission that passes is reserved in SpendingTotals in the same step, under the
+    employee's lock, so concurrent submissions are checked one after the other.
+*/
+@Component
+public class PolicyEngine {
+
+    public static final String BILL_IMAGE = "billImage";
+    public static final String PAYMENT_PROOF = "paymentProof";
+    public static final String APPROVAL_MAIL = "approvalMail";
+    public static final String DESCRIPTION = "description";
+
+    private static final Map<String, String> FIELD_LABELS = new LinkedHashMap<>();
+
+    static {
+        FIELD_LABELS.put(BILL_IMAGE, "Bill image");
+        FIELD_LABELS.put(PAYMENT_PROOF, "Payment proof");
+        FIELD_LABELS.put(APPROVAL_MAIL, "Approval mail");
+        FIELD_LABELS.put(DESCRIPTION, "Description");
+    }
+
+    private final SpendingTotals totals;
+    private final Map<String, Rule> byCategory = new HashMap<>();
+    private final Rule fallback;
+    private final Timer checkTimer;
+    private final MeterRegistry meterRegistry;
+
+    public PolicyEngine(PolicyProperties properties, SpendingTotals totals, MeterRegistry meterRegistry) {
+        this.totals = totals;
+        this.meterRegistry = meterRegistry;
+        this.checkTimer = Timer.builder("policy.check").register(meterRegistry);
+        PolicyProperties.CategoryPolicy defaults = properties.getDefaults();
+        this.fallback = compile(defaults, defaults);
+        properties.getCategories().forEach((category, policy) ->
+                byCategory.put(SpendingTotals.categoryKey(category), compile(policy, defaults)));
+    }
+
+    /*
+        The first rule the submission breaks, or, if it passes, its reservation: the
+        caller commits it once the bill is saved and releases it on any failure before
+        that. For an edit, replacing is what the bill contributed before it
+        (SpendingTotals.contributionOf), so the bill isn't counted against its own caps
+        twice.
+    */
+    public Decision check(Submission submission, SpendingTotals.Contribution replacing) {
+        long start = System.nanoTime();
+        Rule rule = byCategory.getOrDefault(SpendingTotals.categoryKey(submission.category()), fallback);
+        SpendingTotals.Contribution adding = totals.contributionOf(submission);
+        Decision decision;
+        synchronized (totals.lockFor(submission.employeeId())) {
+            Violation violation = rule.evaluate(submission, replacing);
+            decision = violation != null ? new Decision(violation, null)
+                    : new Decision(null, totals.reserve(adding, replacing));
+        }
+        checkTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (decision.violation() != null) {
+            meterRegistry.counter("policy.violations", "rule", decision.violation().rule()).increment();
+        }
+        return decision;
+    }
+
+    private Rule compile(PolicyProperties.CategoryPolicy policy, PolicyProperties.CategoryPolicy defaults) {
+        List<Rule> rules = new ArrayList<>();
+
+        List<String> required = policy.getRequired() != null ? policy.getRequired() : defaults.getRequired();
+        if (required != null) {
+            List<String> fields = required.stream().map(String::trim).filter(field -> !field.isEmpty()).distinct().toList();
+            for (String field : fields) {
+                if (!FIELD_LABELS.containsKey(field)) {
+                    throw new IllegalStateException("Unknown required field in policy: " + field
+                            + " (expected one of " + FIELD_LABELS.keySet() + ")");
+                }
+            }
+            if (!fields.isEmpty()) {
+                rules.add(requiredFields(fields));
+            }
+        }
+
+        Long perBillMax = paise(policy.getPerBillMax() != null ? policy.getPerBillMax() : defaults.getPerBillMax());
+        if (perBillMax != null) {
+            rules.add((submission, replacing) -> paise(submission.amount()) > perBillMax
+                    ? new Violation("per-bill-max", "Amount is over the " + rupees(perBillMax)
+                        + " limit per bill for " + submission.category())
+                    : null);
+        }
+
+        Long monthlyCap = paise(policy.getMonthlyCap() != null ? policy.getMonthlyCap() : defaults.getMonthlyCap());
+        if (monthlyCap != null) {
+            rules.add((submission, replacing) -> {
+                String category = SpendingTotals.categoryKey(submission.category());
+                int month = totals.monthOf(submission.date());
+                long used = totals.monthTotal(submission.employeeId(), category, submission.date());
+                if (replacing != null && replacing.sameMonth(submission.employeeId(), category, month)) {
+                    used -= replacing.paise();
+                }
+                return used + paise(submission.amount()) > monthlyCap
+                        ? new Violation("monthly-cap", capMessage(submission, monthLabel(submission.date()), used, monthlyCap))
+                        : null;
+            });
+        }
+
+        Long fiscalYearCap = paise(policy.getFiscalYearCap() != null ? policy.getFiscalYearCap() : defaults.getFiscalYearCap());
+        if (fiscalYearCap != null) {
+            rules.add((submission, replacing) -> {
+                String category = SpendingTotals.categoryKey(submission.category());
+                int fiscalYear = totals.fiscalYearOf(submission.date());
+                long used = totals.fiscalYearTotal(submission.employeeId(), category, submission.date());
+                if (replacing != null && replacing.sameFiscalYear(submission.employeeId(), category, fiscalYear)) {
+                    used -= replacing.paise();
+                }
+                return used + paise(submission.amount()) > fiscalYearCap
+                        ? new Violation("fiscal-year-cap", capMessage(submission,
+                            "FY " + fiscalYear + "-" + String.format("%02d", (fiscalYear + 1) % 100), used, fiscalYearCap))
+                        : null;
+            });
+        }
+
+        Rule[] compiled = rules.toArray(new Rule[0]);
+        return switch (compiled.length) {
+            case 0 -> (submission, replacing) -> null;
+            case 1 -> compiled[0];
+            default -> (submission, replacing) -> {
+                for (Rule rule : compiled) {
+                    Violation violation = rule.evaluate(submission, replacing);
+                    if (violation != null) {
+                        return violation;
+                    }
+                }
+                return null;
+            };
+        };
+    }
+
+    // Names every missing field in one message, e.g. "Payment proof and Description are required for Travel"
+    private static Rule requiredFields(List<String> fields) {
+        return (submission, replacing) -> {
+            List<String> missing = new ArrayList<>();
+            for (String field : fields) {
+                if (!submission.provided().contains(field)) {
+                    missing.add(FIELD_LABELS.get(field));
+                }
+            }
+            if (missing.isEmpty()) {
+                return null;
+            }
+            String names = missing.size() == 1 ? missing.get(0)
+                    : String.join(", ", missing.subList(0, missing.size() - 1)) + " and " + missing.get(missing.size() - 1);
+            return new Violation("required", names + (missing.size() == 1 ? " is" : " are")
+                    + " required for " + submission.category());
+        };
+    }
+
+    private static String capMessage(Submission submission, String period, long used, long cap) {
+        return submission.category() + " claims for " + period + " would come to " + rupees(used + paise(submission.amount()))
+                + ", over the " + rupees(cap) + " limit (" + rupees(Math.max(0, used)) + " already claimed)";
+    }
+
+    private static String monthLabel(LocalDate date) {
+        return date.getMonth().getDisplayName(TextStyle.FULL, Locale.ENGLISH) + " " + date.getYear();
+    }
+
+    private static Long paise(Double rupees) {
+        return rupees != null ? Math.round(rupees * 100) : null;
+    }
+
+    private static long paise(double rupees) {
+        return Math.round(rupees * 100);
+    }
+
+    private static String rupees(long paise) {
+        return String.format(Locale.ENGLISH, "₹%,.2f", paise / 100.0);
+    }
+
+    // provided: which of BILL_IMAGE, PAYMENT_PROOF, APPROVAL_MAIL and DESCRIPTION the bill will have
+    public record Submission(int employeeId, String category, double amount, LocalDate date, Set<String> provided) {
+    }
+
+    // rule is per-bill-max, monthly-cap, fiscal-year-cap or required
+    public record Violation(String rule, String message) {
+    }
+
+    // Exactly one of the two is set
+    public record Decision(Violation violation, SpendingTotals.Reservation reservation) {
+    }
+
+    @FunctionalInterface
+    private interface Rule {
+        Violation evaluate(Submission submission, SpendingTotals.Contribution replacing);
+    }
+}
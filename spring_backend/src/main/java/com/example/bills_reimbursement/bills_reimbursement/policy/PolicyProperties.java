@@ -0,0 +1,37 @@
+package com.example.bills_reimbursement.bills_reimbursement.policy;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+    Reimbursement policy as configured under policy.* in application.properties.
+    Amounts are in rupees. A category without an entry in categories uses defaults;
+    a category entry inherits every setting it leaves out from defaults.
+*/
+@Data
+@Component
+@ConfigurationProperties("policy")
+public class PolicyProperties {
+
+    // Month the financial year starts in: 4 = April to March
+    private int fiscalYearStartMonth = 4;
+
+    private CategoryPolicy defaults = new CategoryPolicy();
+
+    // Keyed by category name, matched trimmed and case-insensitively
+    private Map<String, CategoryPolicy> categories = new HashMap<>();
+
+    @Data
+    public static class CategoryPolicy {
+        private Double perBillMax;
+        private Double monthlyCap;
+        private Double fiscalYearCap;
+        // Any of billImage, paymentProof, approvalMail, description; empty = none required
+        private List<String> required;
+    }
+}
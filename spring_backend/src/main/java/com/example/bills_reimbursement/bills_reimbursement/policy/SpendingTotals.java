@@ -0,0 +1,411 @@
+package com.example.bills_reimbursement.bills_reimbursement.policy;
+
+import com.example.bills_reimbursement.bills_reimbursement.dtos.Bill;
+import com.example.bills_reimbursement.bills_reimbursement.events.ChangeEvent;
+import com.example.bills_reimbursement.bills_reimbursement.events.ChangeEventHub;
+import com.example.bills_reimbursement.bills_reimbursement.repositories.BillRepository;
+import com.example.bills_reimbursement.bills_reimbursement.tenancy.TenantContext;
+import com.example.bills_reimbursement.bills_reimbursement.tenancy.TenantScoped;
+import com.example.bills_reimbursement.bills_reimbursement.tenancy.Tenants;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+    Running totals of what each employee has claimed per category, by calendar month
+    and by financial year, in paise. Rejected bills don't count; every other status
+    does. Policy caps are checked against these, so a submission costs two map
+    lookups instead of a SUM over the employee's bills.
+
+    Two ledgers per tenant. committed holds saved bills: loaded once at startup from
+    a grouped query, before the server accepts requests, and kept current by the
+    controllers after each delete and status change, applying the bill's
+    contribution from before the change (contributionOf) as a difference. pending
+    holds submissions that passed the caps but aren't saved yet: PolicyEngine checks
+    and reserves under the employee's lock, so two concurrent submissions can't both
+    fit under a cap that only has room for one. The caller commits the reservation
+    once the bill is saved, or releases it.
+
+    Other nodes' writes arrive as change events: on each of their bill events the
+    employee's committed totals are reloaded from the database — from the primary,
+    as a lagging replica could miss the bill just saved. Two submissions of one
+    employee on different nodes within the relay's delay can still both pass; each
+    node only sees its own pending. Each tenant has its own totals, loaded from its
+    own database.
+*/
+@Component
+public class SpendingTotals implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(SpendingTotals.class);
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final BillRepository billRepository;
+    private final Tenants tenants;
+    private final int fiscalYearStartMonth;
+
+    private final TenantScoped<Totals> totals = new TenantScoped<>(Totals::new);
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private volatile boolean loaded;
+
+    public SpendingTotals(BillRepository billRepository, Tenants tenants, PolicyProperties properties,
+                          ChangeEventHub changeEventHub, MeterRegistry meterRegistry) {
+        this.billRepository = billRepository;
+        this.tenants = tenants;
+        this.fiscalYearStartMonth = properties.getFiscalYearStartMonth();
+        if (fiscalYearStartMonth < 1 || fiscalYearStartMonth > 12) {
+            throw new IllegalStateException("policy.fiscal-year-start-month must be 1-12, was " + fiscalYearStartMonth);
+        }
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        changeEventHub.onEvent(this::onChange);
+        Gauge.builder("policy.totals.size", totals,
+                scoped -> scoped.all().stream().mapToInt(each -> each.committed.size()).sum()).register(meterRegistry);
+        Gauge.builder("policy.totals.pending", totals,
+                scoped -> scoped.all().stream().mapToInt(each -> each.pending.size()).sum()).register(meterRegistry);
+    }
+
+    // Loaded on context start rather than at construction, so nothing reaches the
+    // database while the context is being refreshed (see the CDS training run in
+    // the fast-startup build). Phase 0 starts well ahead of the web server.
+    @Override
+    public void start() {
+        if (!loaded) {
+            tenants.forEach(this::loadOrDefer);
+            loaded = true;
+        }
+    }
+
+    @Override
+    public void stop() {
+    }
+
+    @Override
+    public boolean isRunning() {
+        return loaded;
+    }
+
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    private void load() {
+        long start = System.currentTimeMillis();
+        Ledger committed = new Ledger();
+        int rows = apply(committed, billRepository.sumMonthlyTotals());
+        Totals current = totals.current();
+        current.committed = committed;
+        current.deferred = false;
+        log.info("Policy totals loaded: {} employee/category/month rows in {} ms", rows, System.currentTimeMillis() - start);
+    }
+
+    private int apply(Ledger ledger, List<BillRepository.MonthlyTotalRow> rows) {
+        int applied = 0;
+        for (BillRepository.MonthlyTotalRow row : rows) {
+            if (row.getEmployeeId() == null || row.getCategory() == null || row.getPaise() == null) {
+                continue;
+            }
+            LocalDate firstOfMonth = LocalDate.of(row.getYear(), row.getMonth(), 1);
+            ledger.apply(new Contribution(row.getEmployeeId(), categoryKey(row.getCategory()),
+                    monthOf(firstOfMonth), fiscalYearOf(firstOfMonth), Math.round(row.getPaise())), 1);
+            applied++;
+        }
+        return applied;
+    }
+
+    // Runs on the task executor with the event's tenant current
+    private void onChange(ChangeEvent event) {
+        if (!loaded) {
+            return;
+        }
+        if (ChangeEvent.BILLS_PURGED.equals(event.type())) {
+            load();
+        } else if (event.employeeId() != null
+                && (event.billId() != null || ChangeEvent.USER_DELETED.equals(event.type()))) {
+            reload(event.employeeId());
+        }
+    }
+
+    // A tenant database that is down at startup mustn't stop the others: its totals
+    // are loaded by their first use instead
+    private void loadOrDefer() {
+        try {
+            load();
+        } catch (RuntimeException e) {
+            totals.current().deferred = true;
+            log.error("Policy totals for tenant {} not loaded, will load on first use — {}",
+                    TenantContext.current(), e.getMessage());
+        }
+    }
+
+    private Totals current() {
+        Totals current = totals.current();
+        if (current.deferred) {
+            synchronized (current) {
+                if (current.deferred) {
+                    load();
+                }
+            }
+        }
+        return current;
+    }
+
+    // Replaces the employee's committed totals with what the database has now
+    void reload(int employeeId) {
+        Ledger reloaded = new Ledger();
+        apply(reloaded, billRepository.sumMonthlyTotalsOf(employeeId));
+        Totals current = totals.current();
+        synchronized (lockFor(employeeId)) {
+            current.committed.replaceEmployee(employeeId, reloaded);
+        }
+    }
+
+    // Claimed so far in the calendar month of date, in paise, counting reservations
+    public long monthTotal(int employeeId, String category, LocalDate date) {
+        String key = categoryKey(category);
+        int month = monthOf(date);
+        Totals current = current();
+        return current.committed.month(employeeId, key, month) + current.pending.month(employeeId, key, month);
+    }
+
+    // Claimed so far in the financial year containing date, in paise, counting reservations
+    public long fiscalYearTotal(int employeeId, String category, LocalDate date) {
+        String key = categoryKey(category);
+        int fiscalYear = fiscalYearOf(date);
+        Totals current = current();
+        return current.committed.fiscalYear(employeeId, key, fiscalYear)
+                + current.pending.fiscalYear(employeeId, key, fiscalYear);
+    }
+
+    // What the bill adds to the totals as it stands now; null if it adds nothing
+    public Contribution contributionOf(Bill bill) {
+        return contributionOf(bill, bill.getStatus());
+    }
+
+    // What a submission adds once saved (as a Pending bill)
+    Contribution contributionOf(PolicyEngine.Submission submission) {
+        return new Contribution(submission.employeeId(), categoryKey(submission.category()),
+                monthOf(submission.date()), fiscalYearOf(submission.date()), Math.round(submission.amount() * 100));
+    }
+
+    // Held while a submission is checked and reserved, and while the employee's totals change
+    Object lockFor(int employeeId) {
+        return locks[Math.floorMod(employeeId, LOCK_STRIPES)];
+    }
+
+    // Under lockFor: counts adding as pending and takes replacing (the edited bill's old
+    // contribution) out of the committed totals
+    Reservation reserve(Contribution adding, Contribution replacing) {
+        Totals current = current();
+        current.pending.apply(adding, 1);
+        current.committed.apply(replacing, -1);
+        return new Reservation(current, adding, replacing);
+    }
+
+    // A saved bill the committed totals don't have yet
+    public void add(Bill bill) {
+        change(null, contributionOf(bill));
+    }
+
+    public void remove(Bill bill) {
+        change(contributionOf(bill), null);
+    }
+
+    public void statusChanged(Bill bill, String previousStatus) {
+        change(contributionOf(bill, previousStatus), contributionOf(bill));
+    }
+
+    public void removeEmployee(int employeeId) {
+        Totals current = current();
+        synchronized (lockFor(employeeId)) {
+            current.committed.replaceEmployee(employeeId, new Ledger());
+        }
+    }
+
+    int monthOf(LocalDate date) {
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+
+    int fiscalYearOf(LocalDate date) {
+        return date.getMonthValue() >= fiscalYearStartMonth ? date.getYear() : date.getYear() - 1;
+    }
+
+    // Trimmed, lower case, single spaces. Only names with stray whitespace go through
+    // the regex: checks and updates normalize on every call.
+    static String categoryKey(String category) {
+        boolean spacingOk = true;
+        char previous = ' ';
+        for (int i = 0; i < category.length() && spacingOk; i++) {
+            char c = category.charAt(i);
+            spacingOk = !Character.isWhitespace(c) || (c == ' ' && previous != ' ');
+            previous = c;
+        }
+        if (spacingOk && previous != ' ') {
+            return category.toLowerCase(Locale.ROOT);
+        }
+        return category.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private Contribution contributionOf(Bill bill, String status) {
+        Integer employeeId = bill.getOwnerId() != null ? bill.getOwnerId() : bill.getEmployeeId();
+        if ("REJECTED".equalsIgnoreCase(status) || employeeId == null || bill.getReimbursementFor() == null
+                || bill.getAmount() == null || bill.getDate() == null) {
+            return null;
+        }
+        return new Contribution(employeeId, categoryKey(bill.getReimbursementFor()),
+                monthOf(bill.getDate()), fiscalYearOf(bill.getDate()), Math.round(bill.getAmount() * 100));
+    }
+
+    // Takes before out of the committed totals and puts after in
+    private void change(Contribution before, Contribution after) {
+        Contribution any = before != null ? before : after;
+        if (any == null) {
+            return;
+        }
+        Totals current = current();
+        synchronized (lockFor(any.employeeId())) {
+            current.committed.apply(before, -1);
+            current.committed.apply(after, 1);
+        }
+    }
+
+    // month is year * 12 + month - 1; fiscalYear is the calendar year the financial year starts in
+    public record Contribution(int employeeId, String category, int month, int fiscalYear, long paise) {
+
+        boolean sameMonth(int employeeId, String category, int month) {
+            return this.employeeId == employeeId && this.category.equals(category) && this.month == month;
+        }
+
+        boolean sameFiscalYear(int employeeId, String category, int fiscalYear) {
+            return this.employeeId == employeeId && this.category.equals(category) && this.fiscalYear == fiscalYear;
+        }
+    }
+
+    /*
+        A submission's place under the caps between the check and the save. commit()
+        once the bill is saved, release() if it won't be; only the first call counts.
+    */
+    public final class Reservation {
+
+        private final Totals owner;
+        private final Contribution adding;
+        private final Contribution replacing;
+        private boolean settled;
+
+        private Reservation(Totals owner, Contribution adding, Contribution replacing) {
+            this.owner = owner;
+            this.adding = adding;
+            this.replacing = replacing;
+        }
+
+        public void commit() {
+            settle(true);
+        }
+
+        public void release() {
+            settle(false);
+        }
+
+        private void settle(boolean saved) {
+            synchronized (lockFor(adding.employeeId())) {
+                if (settled) {
+                    return;
+                }
+                settled = true;
+                owner.pending.apply(adding, -1);
+                if (saved) {
+                    owner.committed.apply(adding, 1);
+                } else {
+                    owner.committed.apply(replacing, 1);
+                }
+            }
+        }
+    }
+
+    private record Key(String category, int period) {
+    }
+
+    // One employee's totals per (category, month) and (category, financial year)
+    private record Sheet(Map<Key, Long> monthly, Map<Key, Long> fiscalYears) {
+
+        Sheet() {
+            this(new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+        }
+
+        boolean isEmpty() {
+            return monthly.isEmpty() && fiscalYears.isEmpty();
+        }
+    }
+
+    // Sheets by employee id, so one employee's totals can be dropped or replaced whole
+    private static final class Ledger {
+
+        private final Map<Integer, Sheet> sheets = new ConcurrentHashMap<>();
+
+        long month(int employeeId, String category, int month) {
+            Sheet sheet = sheets.get(employeeId);
+            return sheet == null ? 0 : sheet.monthly().getOrDefault(new Key(category, month), 0L);
+        }
+
+        long fiscalYear(int employeeId, String category, int fiscalYear) {
+            Sheet sheet = sheets.get(employeeId);
+            return sheet == null ? 0 : sheet.fiscalYears().getOrDefault(new Key(category, fiscalYear), 0L);
+        }
+
+        void apply(Contribution contribution, int sign) {
+            if (contribution == null) {
+                return;
+            }
+            long delta = sign * contribution.paise();
+            sheets.compute(contribution.employeeId(), (id, sheet) -> {
+                Sheet updated = sheet != null ? sheet : new Sheet();
+                updated.monthly().compute(new Key(contribution.category(), contribution.month()),
+                        (key, total) -> sum(total, delta));
+                updated.fiscalYears().compute(new Key(contribution.category(), contribution.fiscalYear()),
+                        (key, total) -> sum(total, delta));
+                return updated.isEmpty() ? null : updated;
+            });
+        }
+
+        // Takes the employee's sheet from reloaded, which holds only that employee
+        void replaceEmployee(int employeeId, Ledger reloaded) {
+            Sheet sheet = reloaded.sheets.get(employeeId);
+            if (sheet != null) {
+                sheets.put(employeeId, sheet);
+            } else {
+                sheets.remove(employeeId);
+            }
+        }
+
+        // Employee/category/month entries, for the size gauges
+        int size() {
+            return sheets.values().stream().mapToInt(sheet -> sheet.monthly().size()).sum();
+        }
+
+        // Drops entries that reach zero so deleted employees and old months don't accumulate
+        private static Long sum(Long total, long delta) {
+            long updated = (total != null ? total : 0) + delta;
+            return updated != 0 ? updated : null;
+        }
+    }
+
+    // One tenant's totals; a full reload swaps in a new committed ledger
+    private static final class Totals {
+
+        private volatile Ledger committed = new Ledger();
+        private final Ledger pending = new Ledger();
+        // Set while the startup load failed
+        private volatile boolean deferred;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.bills_reimbursement.bills_reimbursement.querybudget;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/*
+    The most SQL statements a controller method may issue, counted from the call to
+    the handler until the response is written — lazy loads while the result is
+    serialized count too; the authentication lookup in the security chain doesn't.
+    A request over budget is logged and counted, or fails outright with
+    querybudget.mode=fail (see QueryBudgetInterceptor).
+*/
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryBudget {
+
+    int value();
+}
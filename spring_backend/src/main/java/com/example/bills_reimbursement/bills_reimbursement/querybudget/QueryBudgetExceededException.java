@@ -0,0 +1,9 @@
+package com.example.bills_reimbursement.bills_reimbursement.querybudget;
+
+// Thrown from the statement over budget when querybudget.mode=fail
+public class QueryBudgetExceededException extends RuntimeException {
+
+    public QueryBudgetExceededException(String endpoint, int budget, String sql) {
+        super(endpoint + " exceeded its query budget of " + budget + " at: " + sql);
+    }
+}
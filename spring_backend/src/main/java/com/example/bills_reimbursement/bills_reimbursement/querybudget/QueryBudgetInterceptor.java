@@ -0,0 +1,80 @@
+package com.example.bills_reimbursement.bills_reimbursement.querybudget;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/*
+    Counts the SQL statements of every controller call and checks them against its
+    @QueryBudget. querybudget.mode:
+    - log (default): record the count in http.server.requests.queries; a request over
+      budget is logged and counted in http.server.requests.queries.exceeded.
+    - fail: as log, and the statement over budget throws, so the request fails with
+      a 500. For the load test and local runs, where an N+1 should be loud.
+    - off: nothing is counted.
+*/
+@Component
+public class QueryBudgetInterceptor implements AsyncHandlerInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryBudgetInterceptor.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${querybudget.mode:log}")
+    private String mode;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (mode.equals("off") || !(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        QueryBudget budget = handlerMethod.getMethodAnnotation(QueryBudget.class);
+        QueryCounter.begin(request.getMethod() + " " + uri(request), budget != null ? budget.value() : -1,
+                mode.equals("fail"));
+        return true;
+    }
+
+    // The SSE stream hands off to another thread here; its statements so far are its count
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        afterCompletion(request, response, handler, null);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        // off leaves the counter alone: a count open around the request isn't ours to end
+        if (mode.equals("off")) {
+            return;
+        }
+        int statements = QueryCounter.end();
+        if (statements < 0 || !(handler instanceof HandlerMethod handlerMethod)) {
+            return;
+        }
+        String uri = uri(request);
+        DistributionSummary.builder("http.server.requests.queries")
+                .tag("method", request.getMethod()).tag("uri", uri)
+                .register(meterRegistry).record(statements);
+        QueryBudget budget = handlerMethod.getMethodAnnotation(QueryBudget.class);
+        if (budget != null && statements > budget.value()) {
+            meterRegistry.counter("http.server.requests.queries.exceeded", "method", request.getMethod(), "uri", uri)
+                    .increment();
+            log.warn("{} {} ran {} SQL statements, over its budget of {}", request.getMethod(), uri,
+                    statements, budget.value());
+        }
+    }
+
+    private static String uri(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : "UNKNOWN";
+    }
+}
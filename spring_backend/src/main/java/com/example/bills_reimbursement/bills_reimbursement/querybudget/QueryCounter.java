@@ -0,0 +1,50 @@
+package com.example.bills_reimbursement.bills_reimbursement.querybudget;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/*
+    Counts the SQL statements Hibernate prepares on the current thread while a count
+    is open. A JDBC batch is prepared once, so a batched insert counts as one.
+    Registered as Hibernate's statement inspector; leaves the SQL unchanged.
+*/
+public class QueryCounter implements StatementInspector {
+
+    private static final ThreadLocal<Count> CURRENT = new ThreadLocal<>();
+
+    // budget < 0: count only
+    static void begin(String endpoint, int budget, boolean failOverBudget) {
+        CURRENT.set(new Count(endpoint, budget, failOverBudget));
+    }
+
+    // Returns the number of statements since begin(), or -1 when no count was open
+    static int end() {
+        Count count = CURRENT.get();
+        CURRENT.remove();
+        return count != null ? count.statements : -1;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        Count count = CURRENT.get();
+        if (count != null && ++count.statements > count.budget && count.budget >= 0 && count.failOverBudget) {
+            // Only once: the error handling of this request may itself run queries
+            count.failOverBudget = false;
+            throw new QueryBudgetExceededException(count.endpoint, count.budget, sql);
+        }
+        return sql;
+    }
+
+    private static final class Count {
+
+        private final String endpoint;
+        private final int budget;
+        private boolean failOverBudget;
+        private int statements;
+
+        private Count(String endpoint, int budget, boolean failOverBudget) {
+            this.endpoint = endpoint;
+            this.budget = budget;
+            this.failOverBudget = failOverBudget;
+        }
+    }
+}
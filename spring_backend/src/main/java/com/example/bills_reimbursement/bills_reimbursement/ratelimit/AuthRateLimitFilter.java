@@ -0,0 +1,67 @@
+package com.example.bills_reimbursement.bills_reimbursement.ratelimit;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/*
+    Limits HTTP Basic authentication attempts per client IP and per employee ID.
+    Every Basic request costs a BCrypt verification, so this runs in the security
+    chain ahead of BasicAuthenticationFilter. Not a bean on purpose — it must not
+    also be registered as a plain servlet filter.
+*/
+public class AuthRateLimitFilter extends OncePerRequestFilter {
+
+    private static final String BUCKET = "auth";
+
+    private final RateLimiter rateLimiter;
+    private final int capacity;
+    private final int refillPerMinute;
+
+    public AuthRateLimitFilter(RateLimiter rateLimiter, int capacity, int refillPerMinute) {
+        this.rateLimiter = rateLimiter;
+        this.capacity = capacity;
+        this.refillPerMinute = refillPerMinute;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.regionMatches(true, 0, "Basic ", 0, 6)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        RateLimitDecision decision = rateLimiter.tryConsume(
+                BUCKET + ":ip:" + request.getRemoteAddr(), capacity, refillPerMinute);
+        if (decision.allowed()) {
+            String username = extractUsername(header);
+            if (username != null) {
+                decision = rateLimiter.tryConsume(BUCKET + ":user:" + username, capacity, refillPerMinute);
+            }
+        }
+        if (!decision.allowed()) {
+            RateLimitInterceptor.writeTooManyRequests(response, decision);
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private String extractUsername(String header) {
+        try {
+            String decoded = new String(Base64.getDecoder().decode(header.substring(6).trim()), StandardCharsets.UTF_8);
+            int colon = decoded.indexOf(':');
+            return colon > 0 ? decoded.substring(0, colon) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.bills_reimbursement.bills_reimbursement.ratelimit;
+
+import com.example.bills_reimbursement.bills_reimbursement.dtos.User;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+
+/*
+    Enforces @RateLimited on controller methods.
+*/
+@Component
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @Value("${ratelimit.enabled:true}")
+    private boolean enabled;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        if (!enabled || !(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        RateLimited limit = handlerMethod.getMethodAnnotation(RateLimited.class);
+        if (limit == null) {
+            return true;
+        }
+
+        for (RateLimited.KeyType keyType : limit.keys()) {
+            String subject = resolveSubject(keyType, request);
+            if (subject == null) {
+                continue;
+            }
+            String key = limit.name() + ":" + keyType.name().toLowerCase() + ":" + subject;
+            RateLimitDecision decision = rateLimiter.tryConsume(key, limit.capacity(), limit.refillPerMinute());
+            if (!decision.allowed()) {
+                writeTooManyRequests(response, decision);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String resolveSubject(RateLimited.KeyType keyType, HttpServletRequest request) {
+        if (keyType == RateLimited.KeyType.IP) {
+            return request.getRemoteAddr();
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof User user) {
+            return String.valueOf(user.getEmployeeId());
+        }
+        return null;
+    }
+
+    static void writeTooManyRequests(HttpServletResponse response, RateLimitDecision decision) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(decision.retryAfterSeconds()));
+        response.setContentType("application/json");
+        response.getWriter().write("{\"error\": \"Too many requests. Please try again later.\"}");
+    }
+}
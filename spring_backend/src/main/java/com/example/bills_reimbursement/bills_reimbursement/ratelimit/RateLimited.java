@@ -0,0 +1,32 @@
+package com.example.bills_reimbursement.bills_reimbursement.ratelimit;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/*
+    Marks a controller method as rate-limited. Each request takes one token from a
+    bucket per key (logged-in user and/or client IP); when any bucket is empty the
+    request is rejected with 429 and a Retry-After header.
+*/
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RateLimited {
+
+    // Bucket name, used as part of the key so endpoints don't share tokens
+    String name();
+
+    // Maximum burst size
+    int capacity();
+
+    // Tokens added back per minute
+    int refillPerMinute();
+
+    KeyType[] keys() default {KeyType.USER, KeyType.IP};
+
+    enum KeyType {
+        USER,
+        IP
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.bills_reimbursement.bills_reimbursement.ratelimit;
+
+import com.example.bills_reimbursement.bills_reimbursement.store.InMemoryKeyValueStore;
+import com.example.bills_reimbursement.bills_reimbursement.store.KeyValueStore;
+import com.example.bills_reimbursement.bills_reimbursement.tenancy.TenantContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/*
+    Token-bucket rate limiter on top of the KeyValueStore. With the Redis store the
+    buckets are shared by every backend node; if Redis cannot be reached the limiter
+    falls back to per-node in-memory buckets, which is good enough to keep a single
+    client from saturating the server during an outage.
+*/
+@Component
+public class RateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimiter.class);
+
+    private static final String KEY_PREFIX = "RL_";
+
+    @Autowired
+    private KeyValueStore store;
+
+    private final InMemoryKeyValueStore fallback = new InMemoryKeyValueStore();
+
+    private volatile boolean storeDown = false;
+
+    public RateLimitDecision tryConsume(String key, int capacity, int refillPerMinute) {
+        double tokensPerMilli = refillPerMinute / 60_000.0;
+        String bucket = TenantContext.scopedKey(KEY_PREFIX + key);
+        try {
+            RateLimitDecision decision = store.tryConsume(bucket, capacity, tokensPerMilli);
+            if (storeDown) {
+                log.info("Rate limiter: store reachable again, leaving local fallback");
+                storeDown = false;
+            }
+            return decision;
+        } catch (DataAccessException e) {
+            if (!storeDown) {
+                log.warn("Rate limiter: store unavailable, using local buckets — {}", e.getMessage());
+                storeDown = true;
+            }
+            return fallback.tryConsume(bucket, capacity, tokensPerMilli);
+        }
+    }
+
+    @Scheduled(fixedDelay = 5 * 60 * 1000)
+    public void evictIdleLocalBuckets() {
+        if (fallback.size() > 0) {
+            fallback.purgeExpired();
+        }
+    }
+}
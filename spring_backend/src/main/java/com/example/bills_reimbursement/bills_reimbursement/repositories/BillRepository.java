@@ -1,12 +1,22 @@
 package com.example.bills_reimbursement.bills_reimbursement.repositories;
 
 import com.example.bills_reimbursement.bills_reimbursement.dtos.Bill;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface BillRepository extends JpaRepository<Bill, Integer> {
+// Query methods are read-only transactions so they can be served by a replica
+@Transactional(readOnly = true)
+public interface BillRepository extends JpaRepository<Bill, Integer>, BillRepositoryCustom {
     List<Bill> findAllByUser_EmployeeIdOrderByDateDesc(Integer employeeId);
 
     List<Bill> findAllByOrderByDateDesc();
@@ -18,4 +28,117 @@ public interface BillRepository extends JpaRepository<Bill, Integer> {
     List<Bill> findAllByCreatedAtBetween(LocalDate from, LocalDate to);
 
     int countByCreatedAtBetween(LocalDate from, LocalDate to);
+
+    // Delta sync: bills inserted or updated after a point in time
+    List<Bill> findAllByUpdatedAtAfterOrderByDateDesc(Instant since);
+
+    List<Bill> findAllByOwnerIdAndUpdatedAtAfterOrderByDateDesc(Integer employeeId, Instant since);
+
+    // One bill with its owner, for handlers that check the owner's state — findById would
+    // load the owner in a second query
+    @Query("SELECT b FROM Bill b JOIN FETCH b.user WHERE b.billId = :billId")
+    Optional<Bill> findWithUserByBillId(@Param("billId") Integer billId);
+
+    @Query("SELECT b FROM Bill b JOIN FETCH b.user WHERE b.billId IN :billIds")
+    List<Bill> findAllWithUserByBillIdIn(@Param("billIds") Collection<Integer> billIds);
+
+    // Keyset pages in id order with owners fetched — used to rebuild the search index
+    @Query("SELECT b FROM Bill b JOIN FETCH b.user WHERE b.billId > :afterId ORDER BY b.billId")
+    List<Bill> findBatchWithUser(@Param("afterId") Integer afterId, Pageable pageable);
+
+    // Keyset pages of just the fields the duplicate-receipt index needs
+    @Query("SELECT b.billId AS billId, b.ownerId AS ownerId, b.imageHash AS imageHash, b.amount AS amount, " +
+            "b.date AS date, b.reimbursementFor AS reimbursementFor, b.billImagePath AS billImagePath " +
+            "FROM Bill b WHERE b.billId > :afterId ORDER BY b.billId")
+    List<ReceiptRow> findReceiptBatch(@Param("afterId") Integer afterId, Pageable pageable);
+
+    // Keyset pages of the stored file names — used to reconcile the upload directory
+    @Query("SELECT b.billId AS billId, b.billImagePath AS billImagePath, b.approvalMailPath AS approvalMailPath, " +
+            "b.paymentProofPath AS paymentProofPath FROM Bill b WHERE b.billId > :afterId ORDER BY b.billId")
+    List<AttachmentRow> findAttachmentBatch(@Param("afterId") Integer afterId, Pageable pageable);
+
+    // An owner's bills as the duplicate-receipt index and file cleanup need them — deleting
+    // a user doesn't load the bills as entities
+    @Query("SELECT b.billId AS billId, b.ownerId AS ownerId, b.imageHash AS imageHash, b.amount AS amount, " +
+            "b.date AS date, b.reimbursementFor AS reimbursementFor, b.billImagePath AS billImagePath, " +
+            "b.approvalMailPath AS approvalMailPath, b.paymentProofPath AS paymentProofPath " +
+            "FROM Bill b WHERE b.ownerId = :employeeId")
+    List<OwnedBillRow> findOwnedBillRows(@Param("employeeId") Integer employeeId);
+
+    interface OwnedBillRow extends ReceiptRow {
+        String getApprovalMailPath();
+
+        String getPaymentProofPath();
+    }
+
+    interface AttachmentRow {
+        Integer getBillId();
+
+        String getBillImagePath();
+
+        String getApprovalMailPath();
+
+        String getPaymentProofPath();
+    }
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Bill b SET b.imageHash = :imageHash WHERE b.billId = :billId")
+    int updateImageHash(@Param("billId") Integer billId, @Param("imageHash") Long imageHash);
+
+    interface ReceiptRow {
+        Integer getBillId();
+
+        Integer getOwnerId();
+
+        Long getImageHash();
+
+        Double getAmount();
+
+        LocalDate getDate();
+
+        String getReimbursementFor();
+
+        String getBillImagePath();
+    }
+
+    // Claimed paise per owner, category and month, leaving out rejected bills — loads the policy totals.
+    // Both sums read the primary (not read-only): a lagging replica would load totals missing recent bills.
+    @Transactional
+    @Query("SELECT b.ownerId AS employeeId, b.reimbursementFor AS category, YEAR(b.date) AS year, " +
+            "MONTH(b.date) AS month, SUM(ROUND(b.amount * 100, 0)) AS paise " +
+            "FROM Bill b WHERE UPPER(b.status) <> 'REJECTED' " +
+            "GROUP BY b.ownerId, b.reimbursementFor, YEAR(b.date), MONTH(b.date)")
+    List<MonthlyTotalRow> sumMonthlyTotals();
+
+    // The same for one employee — reloads their totals after a change made on another node
+    @Transactional
+    @Query("SELECT b.ownerId AS employeeId, b.reimbursementFor AS category, YEAR(b.date) AS year, " +
+            "MONTH(b.date) AS month, SUM(ROUND(b.amount * 100, 0)) AS paise " +
+            "FROM Bill b WHERE b.ownerId = :employeeId AND UPPER(b.status) <> 'REJECTED' " +
+            "GROUP BY b.ownerId, b.reimbursementFor, YEAR(b.date), MONTH(b.date)")
+    List<MonthlyTotalRow> sumMonthlyTotalsOf(@Param("employeeId") Integer employeeId);
+
+    interface MonthlyTotalRow {
+        Integer getEmployeeId();
+
+        String getCategory();
+
+        Integer getYear();
+
+        Integer getMonth();
+
+        Double getPaise();
+    }
+
+    // Single-statement deletes — deleteAll() would issue one DELETE per row
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Bill b WHERE b.ownerId = :employeeId")
+    int deleteAllByOwnerId(@Param("employeeId") Integer employeeId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Bill b WHERE b.createdAt < :cutoffDate")
+    int deleteAllByCreatedAtBefore(@Param("cutoffDate") LocalDate cutoffDate);
 }
@@ -0,0 +1,19 @@
+package com.example.bills_reimbursement.bills_reimbursement.repositories;
+
+import com.example.bills_reimbursement.bills_reimbursement.dtos.Bill;
+import com.example.bills_reimbursement.bills_reimbursement.dtos.BillField;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public interface BillRepositoryCustom {
+
+    // Inserts new bills in JDBC batches, clearing the persistence context between batches
+    List<Bill> saveAllInBatches(List<Bill> bills);
+
+    // Sparse bill list, newest first: one map per bill holding only the given fields, which
+    // are the only columns selected. ownerId null = every owner; updatedAfter null = every bill
+    List<Map<String, Object>> findFields(Set<BillField> fields, Integer ownerId, Instant updatedAfter);
+}
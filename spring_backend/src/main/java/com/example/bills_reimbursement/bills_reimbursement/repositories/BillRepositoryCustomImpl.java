@@ -0,0 +1,78 @@
+package com.example.bills_reimbursement.bills_reimbursement.repositories;
+
+import com.example.bills_reimbursement.bills_reimbursement.dtos.Bill;
+import com.example.bills_reimbursement.bills_reimbursement.dtos.BillField;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+
+public class BillRepositoryCustomImpl implements BillRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    @Override
+    @Transactional
+    public List<Bill> saveAllInBatches(List<Bill> bills) {
+        for (int i = 0; i < bills.size(); i++) {
+            entityManager.persist(bills.get(i));
+            if ((i + 1) % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        return bills;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> findFields(Set<BillField> fields, Integer ownerId, Instant updatedAfter) {
+        // The attribute names come from BillField, never from the request
+        List<BillField> columns = fields.stream().filter(field -> field.attribute() != null).sorted().toList();
+        StringJoiner select = new StringJoiner(", ", "SELECT ", " FROM Bill b");
+        columns.forEach(field -> select.add("b." + field.attribute()));
+        if (columns.isEmpty()) {
+            select.add("b.billId");
+        }
+        StringJoiner where = new StringJoiner(" AND ", " WHERE ", "").setEmptyValue("");
+        if (ownerId != null) {
+            where.add("b.ownerId = :ownerId");
+        }
+        if (updatedAfter != null) {
+            where.add("b.updatedAt > :updatedAfter");
+        }
+        TypedQuery<Tuple> query = entityManager.createQuery(select + where.toString() + " ORDER BY b.date DESC", Tuple.class);
+        if (ownerId != null) {
+            query.setParameter("ownerId", ownerId);
+        }
+        if (updatedAfter != null) {
+            query.setParameter("updatedAfter", updatedAfter);
+        }
+
+        List<Tuple> tuples = query.getResultList();
+        List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Map<String, Object> row = new LinkedHashMap<>(columns.size() * 2);
+            for (int i = 0; i < columns.size(); i++) {
+                row.put(columns.get(i).jsonName(), tuple.get(i));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.bills_reimbursement.bills_reimbursement.repositories;
+
+import com.example.bills_reimbursement.bills_reimbursement.dtos.BillTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+// Query methods are read-only transactions so they can be served by a replica
+@Transactional(readOnly = true)
+public interface BillTombstoneRepository extends JpaRepository<BillTombstone, Integer> {
+
+    @Query("SELECT t.billId FROM BillTombstone t WHERE t.deletedAt > :since")
+    List<Integer> findBillIdsDeletedAfter(@Param("since") Instant since);
+
+    @Query("SELECT t.billId FROM BillTombstone t WHERE t.ownerId = :employeeId AND t.deletedAt > :since")
+    List<Integer> findBillIdsDeletedAfter(@Param("employeeId") Integer employeeId, @Param("since") Instant since);
+
+    // A plain INSERT: save() would merge, selecting the (never existing) tombstone first
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO bill_tombstones (bill_id, employee_id, deleted_at) " +
+            "VALUES (:billId, :employeeId, :deletedAt)", nativeQuery = true)
+    int recordDelete(@Param("billId") Integer billId, @Param("employeeId") Integer employeeId,
+                     @Param("deletedAt") Instant deletedAt);
+
+    // Tombstones for bulk deletes, written by one INSERT ... SELECT before the DELETE
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO bill_tombstones (bill_id, employee_id, deleted_at) " +
+            "SELECT id, employee_id, :deletedAt FROM bills WHERE employee_id = :employeeId", nativeQuery = true)
+    int recordDeletesByOwner(@Param("employeeId") Integer employeeId, @Param("deletedAt") Instant deletedAt);
+
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO bill_tombstones (bill_id, employee_id, deleted_at) " +
+            "SELECT id, employee_id, :deletedAt FROM bills WHERE created_at < :cutoffDate", nativeQuery = true)
+    int recordDeletesCreatedBefore(@Param("cutoffDate") LocalDate cutoffDate, @Param("deletedAt") Instant deletedAt);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM BillTombstone t WHERE t.deletedAt < :cutoff")
+    int deleteAllByDeletedAtBefore(@Param("cutoff") Instant cutoff);
+}
@@ -0,0 +1,31 @@
+package com.example.bills_reimbursement.bills_reimbursement.repositories;
+
+import com.example.bills_reimbursement.bills_reimbursement.dtos.JobRun;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+// Query methods are read-only transactions so they can be served by a replica
+@Transactional(readOnly = true)
+public interface JobRunRepository extends JpaRepository<JobRun, Long> {
+
+    List<JobRun> findAllByOrderByStartedAtDesc(Pageable pageable);
+
+    List<JobRun> findAllByJobNameOrderByStartedAtDesc(String jobName, Pageable pageable);
+
+    // The latest run of every job in one query (shards started together may tie)
+    @Query("SELECT r FROM JobRun r WHERE r.startedAt = " +
+            "(SELECT MAX(l.startedAt) FROM JobRun l WHERE l.jobName = r.jobName)")
+    List<JobRun> findLatestOfEachJob();
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM JobRun r WHERE r.startedAt < :cutoff")
+    int deleteAllByStartedAtBefore(@Param("cutoff") Instant cutoff);
+}
@@ -3,9 +3,13 @@ package com.example.bills_reimbursement.bills_reimbursement.repositories;
 import com.example.bills_reimbursement.bills_reimbursement.dtos.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
 import java.util.List;
 import java.util.Optional;
 
+// Query methods are read-only transactions so they can be served by a replica
+@Transactional(readOnly = true)
 public interface UserRepository extends JpaRepository<User, Integer> {
     List<User> findAllByOrderByNameAsc();
 
@@ -0,0 +1,415 @@
+package com.example.bills_reimbursement.bills_reimbursement.search;
+
+import com.example.bills_reimbursement.bills_reimbursement.dtos.Bill;
+import com.example.bills_reimbursement.bills_reimbursement.repositories.BillRepository;
+import com.example.bills_reimbursement.bills_reimbursement.tenancy.TenantContext;
+import com.example.bills_reimbursement.bills_reimbursement.tenancy.TenantScoped;
+import com.example.bills_reimbursement.bills_reimbursement.tenancy.Tenants;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.core.LowerCaseFilter;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.analysis.ngram.EdgeNGramTokenFilter;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.DoubleDocValuesField;
+import org.apache.lucene.document.DoublePoint;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.IndexOrDocValuesQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.NumericUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+    Lucene index of bills on local disk, so admins can search descriptions, remarks,
+    categories and employee names without loading the bills table. Controllers call
+    index/delete after their database write; a failed index update is logged and
+    never fails the request — POST /admin/bills/search/rebuild repairs any drift.
+
+    Each node keeps its own index and only sees the mutations it handled, so with
+    more than one node, rebuild after deploys or route admins to one node.
+
+    The default tenant's index is search.index-dir itself; every other tenant has its
+    own under tenants/<id>, opened on first use.
+*/
+@Component
+public class BillSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(BillSearchIndex.class);
+
+    private static final String ID = "id";
+    private static final String OWNER = "owner";
+    private static final String STATUS = "status";
+    private static final String AMOUNT = "amount";
+    private static final String DATE = "date";
+    // Description, remarks, category and employee name, as words and as word prefixes
+    private static final String TEXT = "text";
+    private static final String PREFIXES = "prefixes";
+
+    private static final int REBUILD_BATCH = 1000;
+
+    private final Path indexDir;
+    private final BillRepository billRepository;
+    private final Tenants tenants;
+    private final Timer queryTimer;
+    private final Analyzer analyzer = new StandardAnalyzer();
+
+    // Indexes every word's leading 2–20 characters as terms ("travel" → tr, tra, …),
+    // so a prefix search is a single term lookup instead of a term-dictionary scan
+    private final Analyzer indexAnalyzer = new PerFieldAnalyzerWrapper(analyzer, Map.of(PREFIXES, new Analyzer() {
+        @Override
+        protected TokenStreamComponents createComponents(String fieldName) {
+            Tokenizer tokenizer = new StandardTokenizer();
+            return new TokenStreamComponents(tokenizer,
+                    new EdgeNGramTokenFilter(new LowerCaseFilter(tokenizer), 2, 20, true));
+        }
+    }));
+
+    private final TenantScoped<Partition> partitions = new TenantScoped<>(Partition::new);
+
+    public BillSearchIndex(@Value("${search.index-dir}") String indexDir,
+                           BillRepository billRepository,
+                           Tenants tenants,
+                           MeterRegistry meterRegistry) {
+        this.indexDir = Path.of(indexDir).toAbsolutePath().normalize();
+        this.billRepository = billRepository;
+        this.tenants = tenants;
+        this.queryTimer = Timer.builder("search.query").register(meterRegistry);
+    }
+
+    // Opens the default tenant's index, so a bad index-dir fails startup
+    @PostConstruct
+    public void open() {
+        partitions.current();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        tenants.forEach(() -> {
+            Partition partition = partitions.current();
+            try {
+                if (partition.writer.getDocStats().numDocs == 0 && billRepository.count() > 0) {
+                    log.info("Search index at {} is empty, rebuilding from the database", partition.path);
+                    rebuild();
+                }
+            } catch (RuntimeException e) {
+                // That tenant's database is down; the others still start. POST .../search/rebuild later.
+                log.error("Search index for tenant {} not checked for a rebuild — {}",
+                        TenantContext.current(), e.getMessage());
+            }
+        });
+    }
+
+    public void index(Bill bill) {
+        index(List.of(bill));
+    }
+
+    public void index(Collection<Bill> bills) {
+        Partition partition = partitions.current();
+        partition.rebuildLock.readLock().lock();
+        try {
+            for (Bill bill : bills) {
+                partition.writer.updateDocument(idTerm(bill.getBillId()), toDocument(bill));
+            }
+            partition.searcherManager.maybeRefresh();
+        } catch (IOException ex) {
+            log.warn("Search index: could not index {} bill(s) — {}", bills.size(), ex.getMessage());
+        } finally {
+            partition.rebuildLock.readLock().unlock();
+        }
+    }
+
+    public void delete(Collection<Integer> billIds) {
+        Partition partition = partitions.current();
+        partition.rebuildLock.readLock().lock();
+        try {
+            partition.writer.deleteDocuments(billIds.stream().map(BillSearchIndex::idTerm).toArray(Term[]::new));
+            partition.searcherManager.maybeRefresh();
+        } catch (IOException ex) {
+            log.warn("Search index: could not delete {} bill(s) — {}", billIds.size(), ex.getMessage());
+        } finally {
+            partition.rebuildLock.readLock().unlock();
+        }
+    }
+
+    public void deleteByOwner(Integer employeeId) {
+        Partition partition = partitions.current();
+        partition.rebuildLock.readLock().lock();
+        try {
+            partition.writer.deleteDocuments(new Term(OWNER, String.valueOf(employeeId)));
+            partition.searcherManager.maybeRefresh();
+        } catch (IOException ex) {
+            log.warn("Search index: could not delete bills of {} — {}", employeeId, ex.getMessage());
+        } finally {
+            partition.rebuildLock.readLock().unlock();
+        }
+    }
+
+    // Reloads the current tenant's bills from the database; returns the number indexed
+    public int rebuild() {
+        Partition partition = partitions.current();
+        IndexWriter writer = partition.writer;
+        partition.rebuildLock.writeLock().lock();
+        try {
+            long start = System.currentTimeMillis();
+            writer.deleteAll();
+            int count = 0;
+            Integer afterId = 0;
+            List<Bill> batch;
+            do {
+                batch = billRepository.findBatchWithUser(afterId, PageRequest.of(0, REBUILD_BATCH));
+                for (Bill bill : batch) {
+                    writer.addDocument(toDocument(bill));
+                    afterId = bill.getBillId();
+                }
+                count += batch.size();
+            } while (batch.size() == REBUILD_BATCH);
+            writer.commit();
+            partition.searcherManager.maybeRefresh();
+            log.info("Search index rebuilt: {} bills in {} ms", count, System.currentTimeMillis() - start);
+            return count;
+        } catch (IOException ex) {
+            throw new RuntimeException("Could not rebuild the search index.", ex);
+        } finally {
+            partition.rebuildLock.writeLock().unlock();
+        }
+    }
+
+    public SearchHits search(BillSearchQuery query) {
+        return queryTimer.record(() -> {
+            try {
+                return doSearch(query);
+            } catch (IOException ex) {
+                throw new RuntimeException("Search failed.", ex);
+            }
+        });
+    }
+
+    private SearchHits doSearch(BillSearchQuery query) throws IOException {
+        List<String> terms = analyze(query.text());
+        SearcherManager searcherManager = partitions.current().searcherManager;
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            if (terms.isEmpty()) {
+                // Filters only: newest first
+                Sort newestFirst = new Sort(new SortField(DATE, SortField.Type.LONG, true));
+                return collect(searcher, buildQuery(terms, false, query), query.limit(), newestFirst);
+            }
+            SearchHits hits = collect(searcher, buildQuery(terms, false, query), query.limit(), null);
+            if (hits.total() > 0) {
+                return hits;
+            }
+            // Nothing matched exactly or by prefix — retry allowing typos
+            return collect(searcher, buildQuery(terms, true, query), query.limit(), null);
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    private static SearchHits collect(IndexSearcher searcher, Query luceneQuery, int limit, Sort sort) throws IOException {
+        TopDocs top = sort != null ? searcher.search(luceneQuery, limit, sort) : searcher.search(luceneQuery, limit);
+        // Lucene stops counting at 1000 hits unless asked for an exact count
+        long total = top.totalHits.relation == TotalHits.Relation.EQUAL_TO
+                ? top.totalHits.value
+                : searcher.count(luceneQuery);
+        List<Integer> billIds = new ArrayList<>(top.scoreDocs.length);
+        for (ScoreDoc scoreDoc : top.scoreDocs) {
+            billIds.add(Integer.valueOf(searcher.storedFields().document(scoreDoc.doc, Set.of(ID)).get(ID)));
+        }
+        return new SearchHits(total, billIds);
+    }
+
+    /*
+        Every word must match, exactly (scores higher) or as the start of an indexed
+        word ("trav" → travel). With fuzzy, a word may also be 1–2 typos away depending
+        on its length. Fuzzy expansion scans the term dictionary, so it only runs when
+        the first pass found nothing. Filters narrow the result without affecting the
+        score.
+    */
+    private Query buildQuery(List<String> terms, boolean fuzzy, BillSearchQuery query) {
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        for (String term : terms) {
+            BooleanQuery.Builder word = new BooleanQuery.Builder();
+            word.add(new BoostQuery(new TermQuery(new Term(TEXT, term)), 2f), BooleanClause.Occur.SHOULD);
+            word.add(new TermQuery(new Term(PREFIXES, term)), BooleanClause.Occur.SHOULD);
+            int maxEdits = term.length() >= 7 ? 2 : term.length() >= 3 ? 1 : 0;
+            if (fuzzy && maxEdits > 0) {
+                word.add(new FuzzyQuery(new Term(TEXT, term), maxEdits, 1), BooleanClause.Occur.SHOULD);
+            }
+            builder.add(word.build(), BooleanClause.Occur.MUST);
+        }
+        if (terms.isEmpty()) {
+            builder.add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST);
+        }
+
+        if (query.status() != null && !query.status().isBlank()) {
+            builder.add(new TermQuery(new Term(STATUS, query.status().toUpperCase())), BooleanClause.Occur.FILTER);
+        }
+        // Ranges are answered from the points index when they are the most selective
+        // clause, and checked per candidate through doc values when another clause leads
+        if (query.minAmount() != null || query.maxAmount() != null) {
+            double min = query.minAmount() != null ? query.minAmount() : Double.NEGATIVE_INFINITY;
+            double max = query.maxAmount() != null ? query.maxAmount() : Double.POSITIVE_INFINITY;
+            builder.add(new IndexOrDocValuesQuery(DoublePoint.newRangeQuery(AMOUNT, min, max),
+                    NumericDocValuesField.newSlowRangeQuery(AMOUNT,
+                            NumericUtils.doubleToSortableLong(min), NumericUtils.doubleToSortableLong(max))),
+                    BooleanClause.Occur.FILTER);
+        }
+        if (query.from() != null || query.to() != null) {
+            long from = query.from() != null ? query.from().toEpochDay() : Long.MIN_VALUE;
+            long to = query.to() != null ? query.to().toEpochDay() : Long.MAX_VALUE;
+            builder.add(new IndexOrDocValuesQuery(LongPoint.newRangeQuery(DATE, from, to),
+                    NumericDocValuesField.newSlowRangeQuery(DATE, from, to)), BooleanClause.Occur.FILTER);
+        }
+        if (query.employeeId() != null) {
+            builder.add(new TermQuery(new Term(OWNER, String.valueOf(query.employeeId()))), BooleanClause.Occur.FILTER);
+        }
+        return builder.build();
+    }
+
+    private List<String> analyze(String text) throws IOException {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return terms;
+        }
+        try (TokenStream stream = analyzer.tokenStream(TEXT, text)) {
+            CharTermAttribute attribute = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                terms.add(attribute.toString());
+            }
+            stream.end();
+        }
+        return terms;
+    }
+
+    private static Document toDocument(Bill bill) {
+        Document document = new Document();
+        document.add(new StringField(ID, String.valueOf(bill.getBillId()), Field.Store.YES));
+        document.add(new StringField(OWNER, String.valueOf(bill.getEmployeeId()), Field.Store.NO));
+        addText(document, bill.getBillDescription());
+        addText(document, bill.getRemarks());
+        addText(document, bill.getReimbursementFor());
+        addText(document, bill.getUser() != null ? bill.getUser().getName() : null);
+        if (bill.getStatus() != null) {
+            document.add(new StringField(STATUS, bill.getStatus().toUpperCase(), Field.Store.NO));
+        }
+        if (bill.getAmount() != null) {
+            document.add(new DoublePoint(AMOUNT, bill.getAmount()));
+            document.add(new DoubleDocValuesField(AMOUNT, bill.getAmount()));
+        }
+        if (bill.getDate() != null) {
+            document.add(new LongPoint(DATE, bill.getDate().toEpochDay()));
+            document.add(new NumericDocValuesField(DATE, bill.getDate().toEpochDay()));
+        }
+        return document;
+    }
+
+    private static void addText(Document document, String value) {
+        if (value != null && !value.isBlank()) {
+            document.add(new TextField(TEXT, value, Field.Store.NO));
+            document.add(new TextField(PREFIXES, value, Field.Store.NO));
+        }
+    }
+
+    private static Term idTerm(Integer billId) {
+        return new Term(ID, String.valueOf(billId));
+    }
+
+    // Commit in the background; searches see changes right away through the NRT reader
+    @Scheduled(fixedDelay = 10_000)
+    public void commit() {
+        for (Partition partition : partitions.all()) {
+            if (!partition.writer.hasUncommittedChanges()) {
+                continue;
+            }
+            try {
+                partition.writer.commit();
+            } catch (IOException ex) {
+                log.warn("Search index: commit failed at {} — {}", partition.path, ex.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        for (Partition partition : partitions.all()) {
+            partition.searcherManager.close();
+            partition.writer.close();
+            partition.directory.close();
+        }
+    }
+
+    // One tenant's index, opened for the tenant current when it is first needed
+    private final class Partition {
+
+        private final Path path;
+        private final FSDirectory directory;
+        private final IndexWriter writer;
+        private final SearcherManager searcherManager;
+
+        // Incremental updates share the read side; a rebuild takes the write side so an
+        // update made while it runs can't be overwritten by the stale copy it loaded
+        private final ReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+
+        private Partition() {
+            path = TenantContext.isDefault() ? indexDir : indexDir.resolve("tenants").resolve(TenantContext.current());
+            try {
+                directory = FSDirectory.open(path);
+                writer = new IndexWriter(directory, new IndexWriterConfig(indexAnalyzer)
+                        .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+                searcherManager = new SearcherManager(writer, null);
+            } catch (IOException ex) {
+                throw new RuntimeException("Could not open the search index at " + path, ex);
+            }
+        }
+    }
+
+    public record SearchHits(long total, List<Integer> billIds) {
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.bills_reimbursement.bills_reimbursement.search;
+
+import java.time.LocalDate;
+
+// Free text plus optional filters; null means "no filter"
+public record BillSearchQuery(String text,
+                              String status,
+                              Double minAmount,
+                              Double maxAmount,
+                              LocalDate from,
+                              LocalDate to,
+                              Integer employeeId,
+                              int limit) {
+}
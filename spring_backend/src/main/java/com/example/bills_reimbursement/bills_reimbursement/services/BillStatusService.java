@@ -0,0 +1,74 @@
+package com.example.bills_reimbursement.bills_reimbursement.services;
+
+import com.example.bills_reimbursement.bills_reimbursement.dtos.Bill;
+import com.example.bills_reimbursement.bills_reimbursement.repositories.BillRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+public class BillStatusService {
+
+    private final BillRepository billRepository;
+
+    // Returns why a bill in currentStatus cannot move to newStatus, or null if it can
+    public static String transitionError(String currentStatus, String newStatus) {
+        if (!"APPROVED".equalsIgnoreCase(currentStatus) && "PAID".equalsIgnoreCase(newStatus)) {
+            return "Cannot pay an unapproved bill";
+        }
+        if ("PAID".equalsIgnoreCase(currentStatus)) {
+            return "Cannot change status of an already paid bill";
+        }
+        return null;
+    }
+
+    /*
+        Applies one status change to many bills in a single transaction: one query
+        loads the bills with their owners, and the dirty bills are flushed as
+        JDBC-batched UPDATEs on commit. Bills that cannot make the transition are
+        skipped and reported, not failed.
+    */
+    @Transactional
+    public BulkResult updateStatuses(Collection<Integer> billIds, String newStatus, String remarks) {
+        List<Bill> updated = new ArrayList<>();
+        Map<Integer, String> skipped = new LinkedHashMap<>();
+        Map<Integer, String> previousStatuses = new HashMap<>();
+        Map<Integer, Bill> found = new LinkedHashMap<>();
+        for (Bill bill : billRepository.findAllWithUserByBillIdIn(billIds)) {
+            found.put(bill.getBillId(), bill);
+        }
+        for (Integer billId : billIds) {
+            // Listed twice: already updated
+            if (previousStatuses.containsKey(billId)) {
+                continue;
+            }
+            Bill bill = found.get(billId);
+            if (bill == null) {
+                skipped.put(billId, "Bill not found");
+                continue;
+            }
+            String error = transitionError(bill.getStatus(), newStatus);
+            if (error != null) {
+                skipped.put(billId, error);
+                continue;
+            }
+            previousStatuses.put(billId, bill.getStatus());
+            bill.setStatus(newStatus.toUpperCase());
+            bill.setRemarks(remarks);
+            updated.add(bill);
+        }
+        return new BulkResult(updated, skipped, previousStatuses);
+    }
+
+    // previousStatuses: status of each updated bill before the change, by bill id
+    public record BulkResult(List<Bill> updated, Map<Integer, String> skipped, Map<Integer, String> previousStatuses) {
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.bills_reimbursement.bills_reimbursement.services;
+
+import com.example.bills_reimbursement.bills_reimbursement.dtos.Bill;
+import com.example.bills_reimbursement.bills_reimbursement.dtos.BillField;
+import com.example.bills_reimbursement.bills_reimbursement.jobs.ClusterScheduled;
+import com.example.bills_reimbursement.bills_reimbursement.repositories.BillRepository;
+import com.example.bills_reimbursement.bills_reimbursement.repositories.BillTombstoneRepository;
+import com.example.bills_reimbursement.bills_reimbursement.tenancy.TenantContext;
+import com.example.bills_reimbursement.bills_reimbursement.tenancy.Tenants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/*
+    Delta sync for bill lists. A sync token is the server time at which the previous
+    sync started; the next sync returns bills whose updated_at is later, plus the ids
+    deleted since (from bill_tombstones).
+
+    updated_at is written by whichever node handled the write, and a transaction can
+    commit a little after its timestamp, so each sync reaches back sync.overlap before
+    the token. Clients apply results as upserts, so a bill sent twice is harmless.
+    A token older than the tombstone retention, or one that can't be parsed, gets a
+    full list instead.
+
+    Every bill delete goes through here so its tombstone is written in the same
+    transaction as the delete.
+*/
+@Service
+public class BillSyncService {
+
+    private static final Logger log = LoggerFactory.getLogger(BillSyncService.class);
+
+    private final BillRepository billRepository;
+    private final BillTombstoneRepository tombstoneRepository;
+    private final Tenants tenants;
+    private final Duration overlap;
+    private final Duration tombstoneRetention;
+
+    public BillSyncService(BillRepository billRepository, BillTombstoneRepository tombstoneRepository,
+                           Tenants tenants,
+                           @Value("${sync.overlap:30s}") Duration overlap,
+                           @Value("${sync.tombstone-retention:30d}") Duration tombstoneRetention) {
+        this.billRepository = billRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.tenants = tenants;
+        this.overlap = overlap;
+        this.tombstoneRetention = tombstoneRetention;
+    }
+
+    // employeeId null = every bill (admin dashboard)
+    @Transactional(readOnly = true)
+    public SyncResult<Bill> changesSince(Integer employeeId, String syncToken) {
+        return changes(employeeId, syncToken, from -> {
+            if (from == null) {
+                return employeeId == null
+                        ? billRepository.findAllByOrderByDateDesc()
+                        : billRepository.findAllByUser_EmployeeIdOrderByDateDesc(employeeId);
+            }
+            return employeeId == null
+                    ? billRepository.findAllByUpdatedAtAfterOrderByDateDesc(from)
+                    : billRepository.findAllByOwnerIdAndUpdatedAtAfterOrderByDateDesc(employeeId, from);
+        });
+    }
+
+    // The same with only the given fields of each bill (fields=), read as a projection
+    @Transactional(readOnly = true)
+    public SyncResult<Map<String, Object>> changesSince(Integer employeeId, String syncToken, Set<BillField> fields) {
+        return changes(employeeId, syncToken, from -> billRepository.findFields(fields, employeeId, from));
+    }
+
+    // bills loads every bill when given null, else the bills updated after the instant
+    private <T> SyncResult<T> changes(Integer employeeId, String syncToken, Function<Instant, List<T>> bills) {
+        Instant now = Instant.now();
+        String nextToken = String.valueOf(now.toEpochMilli());
+        Instant since = parseToken(syncToken);
+        if (since == null || since.isBefore(now.minus(tombstoneRetention))) {
+            return new SyncResult<>(true, bills.apply(null), List.of(), nextToken);
+        }
+        Instant from = since.minus(overlap);
+        List<Integer> deleted = employeeId == null
+                ? tombstoneRepository.findBillIdsDeletedAfter(from)
+                : tombstoneRepository.findBillIdsDeletedAfter(employeeId, from);
+        return new SyncResult<>(false, bills.apply(from), deleted, nextToken);
+    }
+
+    private static Instant parseToken(String syncToken) {
+        try {
+            return Instant.ofEpochMilli(Long.parseLong(syncToken.trim()));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    @Transactional
+    public void delete(Bill bill) {
+        tombstoneRepository.recordDelete(bill.getBillId(),
+                bill.getOwnerId() != null ? bill.getOwnerId() : bill.getEmployeeId(), Instant.now());
+        billRepository.delete(bill);
+    }
+
+    @Transactional
+    public int deleteAllByOwner(Integer employeeId) {
+        tombstoneRepository.recordDeletesByOwner(employeeId, Instant.now());
+        return billRepository.deleteAllByOwnerId(employeeId);
+    }
+
+    @Transactional
+    public int deleteAllCreatedBefore(LocalDate cutoffDate) {
+        tombstoneRepository.recordDeletesCreatedBefore(cutoffDate, Instant.now());
+        return billRepository.deleteAllByCreatedAtBefore(cutoffDate);
+    }
+
+    // Daily, on one node, for every tenant; clients that haven't synced within the
+    // retention get a full list
+    @ClusterScheduled(name = "tombstone-prune", cron = "${sync.tombstone-prune-cron:0 30 3 * * *}")
+    public void pruneTombstones() {
+        Instant cutoff = Instant.now().minus(tombstoneRetention);
+        tenants.forEach(() -> {
+            int pruned = tombstoneRepository.deleteAllByDeletedAtBefore(cutoff);
+            if (pruned > 0) {
+                log.info("Pruned {} bill tombstones older than {} ({})", pruned, tombstoneRetention, TenantContext.current());
+            }
+        });
+    }
+
+    public record SyncResult<T>(boolean full, List<T> bills, List<Integer> deleted, String syncToken) {
+    }
+}
@@ -1,10 +1,13 @@
 package com.example.bills_reimbursement.bills_reimbursement.services;
 
 import com.example.bills_reimbursement.bills_reimbursement.dtos.User;
+import com.example.bills_reimbursement.bills_reimbursement.jobs.ClusterScheduled;
 import com.example.bills_reimbursement.bills_reimbursement.repositories.BillRepository;
 import com.example.bills_reimbursement.bills_reimbursement.repositories.UserRepository;
+import com.example.bills_reimbursement.bills_reimbursement.tenancy.Tenants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
@@ -13,6 +16,8 @@ import java.util.List;
 @Component
 public class DataCleanupScheduler {
 
+    private static final Logger log = LoggerFactory.getLogger(DataCleanupScheduler.class);
+
     @Autowired
     private BillRepository billRepository;
 
@@ -22,10 +27,14 @@ public class DataCleanupScheduler {
     @Autowired
     private EmailService emailService;
 
-    // Runs at 9:00 AM on April 1st every year
-    @Scheduled(cron = "0 0 9 1 4 *")
+    @Autowired
+    private Tenants tenants;
+
+    // Runs at 9:00 AM on April 1st every year, on one node only; each tenant's admins
+    // hear about that tenant's bills
+    @ClusterScheduled(name = "cleanup-reminder", cron = "0 0 9 1 4 *")
     public void sendAnnualCleanupReminder() {
-        triggerCleanupReminder();
+        tenants.forEach(this::triggerCleanupReminder);
     }
 
     public String triggerCleanupReminder() {
@@ -58,14 +67,14 @@ public class DataCleanupScheduler {
                 try {
                     emailService.sendOldDataCleanupReminder(admin.getEmail(), count, cutoff);
                     sent++;
-                    System.out.println("Cleanup reminder sent to: " + admin.getEmail());
+                    log.info("Cleanup reminder sent to {}", admin.getEmail());
                 } catch (Exception e) {
                     String err = "Failed for " + admin.getEmail() + ": " + e.getMessage();
-                    System.err.println(err);
+                    log.warn("Cleanup reminder to {} failed", admin.getEmail(), e);
                     errors.append(err).append("; ");
                 }
             } else {
-                System.out.println("Skipping admin " + admin.getEmployeeId() + " — no email set.");
+                log.info("Skipping cleanup reminder for admin {}: no email set", admin.getEmployeeId());
             }
         }
         if (errors.length() > 0) return "Sent: " + sent + ", Errors: " + errors;
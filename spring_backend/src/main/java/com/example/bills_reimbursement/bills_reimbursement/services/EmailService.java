@@ -1,7 +1,10 @@
 package com.example.bills_reimbursement.bills_reimbursement.services;
 
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
@@ -12,9 +15,14 @@ import java.time.format.DateTimeFormatter;
 @Service
 public class EmailService {
 
+    // A proxy, so that with startup.lazy-clients the sender is created by the first mail
     @Autowired
+    @Lazy
     private JavaMailSender mailSender;
 
+    @Autowired
+    private ObservationRegistry observationRegistry;
+
     @Value("${spring.mail.username}")
     private String fromAddress;
 
@@ -24,7 +32,7 @@ public class EmailService {
         message.setTo(toEmail);
         message.setSubject("Password Reset OTP");
         message.setText("Your OTP is: " + otp + "\nValid for 5 minutes.");
-        mailSender.send(message);
+        send(message);
     }
 
     public void sendOldDataCleanupReminder(String toEmail, int billCount, LocalDate cutoff) {
@@ -43,6 +51,21 @@ public class EmailService {
             "to permanently remove these records and their uploaded files.\n\n" +
             "Regards,\nExpenZ (Bills Reimbursement System)"
         );
-        mailSender.send(message);
+        send(message);
+    }
+
+    private void send(SimpleMailMessage message) {
+        Observation observation = Observation.start("notification.send", observationRegistry)
+                .lowCardinalityKeyValue("channel", "smtp");
+        String outcome = "failure";
+        try (Observation.Scope ignored = observation.openScope()) {
+            mailSender.send(message);
+            outcome = "success";
+        } catch (RuntimeException e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.lowCardinalityKeyValue("outcome", outcome).stop();
+        }
     }
 }
\ No newline at end of file
@@ -5,25 +5,44 @@ import com.google.firebase.messaging.FirebaseMessaging;
 import com.google.firebase.messaging.FirebaseMessagingException;
 import com.google.firebase.messaging.Message;
 import com.google.firebase.messaging.Notification;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 
 @Service
+@RequiredArgsConstructor
 public class FCMService {
 
     private static final Logger log = LoggerFactory.getLogger(FCMService.class);
 
+    private final MeterRegistry meterRegistry;
+
+    private final ObservationRegistry observationRegistry;
+
+    // Resolved on each send: with startup.lazy-clients Firebase is initialized by the first one
+    private final ObjectProvider<FirebaseApp> firebaseApp;
+
     public void sendNotification(String fcmToken, String title, String body) {
         if (fcmToken == null || fcmToken.isBlank()) {
             log.warn("FCM: skipped — token is null/blank");
+            meterRegistry.counter("notification.skipped", "channel", "fcm").increment();
             return;
         }
-        if (FirebaseApp.getApps().isEmpty()) {
+        FirebaseApp app = firebaseApp.getIfAvailable();
+        if (app == null) {
             log.warn("FCM: skipped — FirebaseApp not initialized");
+            meterRegistry.counter("notification.skipped", "channel", "fcm").increment();
             return;
         }
-        try {
+        Observation observation = Observation.start("notification.send", observationRegistry)
+                .lowCardinalityKeyValue("channel", "fcm");
+        String outcome = "failure";
+        try (Observation.Scope ignored = observation.openScope()) {
             Message message = Message.builder()
                     .setToken(fcmToken)
                     .setNotification(Notification.builder()
@@ -31,10 +50,14 @@ public class FCMService {
                             .setBody(body)
                             .build())
                     .build();
-            String response = FirebaseMessaging.getInstance().send(message);
+            String response = FirebaseMessaging.getInstance(app).send(message);
+            outcome = "success";
             log.info("FCM: sent OK — messageId={} title=\"{}\"", response, title);
         } catch (FirebaseMessagingException e) {
             log.error("FCM: send failed — code={} message={}", e.getMessagingErrorCode(), e.getMessage());
+            observation.error(e);
+        } finally {
+            observation.lowCardinalityKeyValue("outcome", outcome).stop();
         }
     }
 }
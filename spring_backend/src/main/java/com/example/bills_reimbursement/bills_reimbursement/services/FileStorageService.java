@@ -1,5 +1,13 @@
 package com.example.bills_reimbursement.bills_reimbursement.services;
 
+import com.example.bills_reimbursement.bills_reimbursement.tenancy.TenantContext;
+import com.example.bills_reimbursement.bills_reimbursement.tenancy.TenantScoped;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
@@ -13,13 +21,30 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.UUID;
 
+/*
+    Uploads live directly in file.upload-dir for the default tenant, and under
+    tenants/<id> inside it for every other tenant. Stored names don't include the
+    tenant, so a name only resolves within the tenant that stored it.
+*/
 @Service
 public class FileStorageService {
 
+    private static final Logger log = LoggerFactory.getLogger(FileStorageService.class);
+
     private final Path fileStorageLocation;
 
-    public FileStorageService(@Value("${file.upload-dir}") String uploadDir) {
+    private final TenantScoped<Path> tenantLocations = new TenantScoped<>(this::createTenantLocation);
+
+    private final ObservationRegistry observationRegistry;
+    private final Counter bytesWritten;
+    private final Counter bytesDeleted;
+
+    public FileStorageService(@Value("${file.upload-dir}") String uploadDir, MeterRegistry meterRegistry,
+                              ObservationRegistry observationRegistry) {
         this.fileStorageLocation = Paths.get(uploadDir).toAbsolutePath().normalize();
+        this.observationRegistry = observationRegistry;
+        this.bytesWritten = Counter.builder("storage.bytes").tag("op", "write").baseUnit("bytes").register(meterRegistry);
+        this.bytesDeleted = Counter.builder("storage.bytes").tag("op", "delete").baseUnit("bytes").register(meterRegistry);
         try {
             Files.createDirectories(this.fileStorageLocation);
         } catch (Exception ex) {
@@ -27,13 +52,35 @@ public class FileStorageService {
         }
     }
 
+    // The current tenant's upload directory
+    public Path getStorageLocation() {
+        return TenantContext.isDefault() ? fileStorageLocation : tenantLocations.current();
+    }
+
+    private Path createTenantLocation() {
+        Path location = fileStorageLocation.resolve("tenants").resolve(TenantContext.current());
+        try {
+            return Files.createDirectories(location);
+        } catch (IOException ex) {
+            throw new RuntimeException("Could not create the directory for uploads at " + location, ex);
+        }
+    }
+
+    public Path getFilePath(String filename) {
+        return getStorageLocation().resolve(filename).normalize();
+    }
+
     public void deleteFile(String filename) {
         if (filename == null || filename.isBlank()) return;
         try {
-            Files.deleteIfExists(this.fileStorageLocation.resolve(filename));
+            Path target = getStorageLocation().resolve(filename);
+            long size = Files.exists(target) ? Files.size(target) : 0;
+            if (Files.deleteIfExists(target)) {
+                bytesDeleted.increment(size);
+            }
         } catch (IOException ex) {
             // Best-effort: log but don't fail the whole delete operation
-            System.err.println("Could not delete file: " + filename + " — " + ex.getMessage());
+            log.warn("Could not delete file {}: {}", filename, ex.toString());
         }
     }
 
@@ -47,12 +94,22 @@ public class FileStorageService {
         String shortUUID = UUID.randomUUID().toString().substring(0, 6);
         String uniqueFileName = date + "_" + employeeId + "_" + fileType + shortUUID + fileExtension;
 
-        try {
-            Path targetLocation = this.fileStorageLocation.resolve(uniqueFileName);
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+        // Timer storage.write{type, outcome} and a span per file
+        Observation observation = Observation.start("storage.write", observationRegistry)
+                .lowCardinalityKeyValue("type", fileType);
+        String outcome = "failure";
+        try (Observation.Scope ignored = observation.openScope()) {
+            Path targetLocation = getStorageLocation().resolve(uniqueFileName);
+            long written = Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+            bytesWritten.increment(written);
+            observation.highCardinalityKeyValue("bytes", String.valueOf(written));
+            outcome = "success";
             return uniqueFileName;
         } catch (IOException ex) {
+            observation.error(ex);
             throw new RuntimeException("Could not store file " + originalFileName + ". Please try again!", ex);
+        } finally {
+            observation.lowCardinalityKeyValue("outcome", outcome).stop();
         }
     }
 }
\ No newline at end of file
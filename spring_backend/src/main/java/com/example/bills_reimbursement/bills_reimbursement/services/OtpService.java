@@ -1,18 +1,26 @@
 package com.example.bills_reimbursement.bills_reimbursement.services;
 
+import com.example.bills_reimbursement.bills_reimbursement.store.KeyValueStore;
+import com.example.bills_reimbursement.bills_reimbursement.tenancy.TenantContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
 import java.security.SecureRandom;
-import java.util.concurrent.TimeUnit;
+import java.time.Duration;
+import java.util.function.Supplier;
 
 @Service
 public class OtpService {
 
     @Autowired
-    private StringRedisTemplate redisTemplate;
+    private KeyValueStore store;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Each key is also prefixed with the tenant, except for the default tenant (TenantContext.scopedKey)
     private static final String OTP_PREFIX = "OTP_";
     private static final String ATTEMPT_PREFIX = "ATTEMPT_";
     private static final String VERIFIED_PREFIX = "VERIFIED_";
@@ -23,6 +31,10 @@ public class OtpService {
     private static final int MAX_OTP_REQUESTS = 3;
     private static final int MAX_ATTEMPTS = 5;
 
+    private static final Duration OTP_TTL = Duration.ofMinutes(5);
+    private static final Duration RATE_WINDOW = Duration.ofMinutes(5);
+    private static final Duration COOLDOWN = Duration.ofSeconds(30);
+
     private final SecureRandom secureRandom = new SecureRandom();
 
     // Generate OTP
@@ -33,34 +45,41 @@ public class OtpService {
 
     // Save OTP (5 min TTL)
     public void saveOtp(String key, String otp) {
-        redisTemplate.opsForValue().set(OTP_PREFIX + key, otp, 5, TimeUnit.MINUTES);
-        redisTemplate.delete(ATTEMPT_PREFIX + key); // reset attempts
+        timed("save", () -> {
+            store.set(TenantContext.scopedKey(OTP_PREFIX + key), otp, OTP_TTL);
+            store.delete(TenantContext.scopedKey(ATTEMPT_PREFIX + key)); // reset attempts
+            return null;
+        });
     }
 
     // Validate OTP (atomic + attempts limit)
     public boolean validateOtp(String key, String userOtp) {
-        String otpKey = OTP_PREFIX + key;
-        String attemptKey = ATTEMPT_PREFIX + key;
+        return timed("validate", () -> doValidateOtp(key, userOtp));
+    }
+
+    private boolean doValidateOtp(String key, String userOtp) {
+        String otpKey = TenantContext.scopedKey(OTP_PREFIX + key);
+        String attemptKey = TenantContext.scopedKey(ATTEMPT_PREFIX + key);
 
-        String storedOtp = redisTemplate.opsForValue().get(otpKey);
+        String storedOtp = store.get(otpKey);
 
         if (storedOtp == null) return false;
 
         // Increment attempts
-        Long attempts = redisTemplate.opsForValue().increment(attemptKey);
-        redisTemplate.expire(attemptKey, 5, TimeUnit.MINUTES);
+        long attempts = store.increment(attemptKey);
+        store.expire(attemptKey, OTP_TTL);
 
-        if (attempts != null && attempts > MAX_ATTEMPTS) {
-            redisTemplate.delete(otpKey);
+        if (attempts > MAX_ATTEMPTS) {
+            store.delete(otpKey);
             return false;
         }
 
         if (storedOtp.equals(userOtp)) {
             // Atomic delete (simulate GETDEL)
-            redisTemplate.delete(otpKey);
+            store.delete(otpKey);
 
             // Mark verified
-            redisTemplate.opsForValue().set(VERIFIED_PREFIX + key, "true", 5, TimeUnit.MINUTES);
+            store.set(TenantContext.scopedKey(VERIFIED_PREFIX + key), "true", OTP_TTL);
             return true;
         }
 
@@ -69,37 +88,57 @@ public class OtpService {
 
     // Check if verified
     public boolean isVerified(String key) {
-        return "true".equals(redisTemplate.opsForValue().get(VERIFIED_PREFIX + key));
+        return timed("is-verified", () -> "true".equals(store.get(TenantContext.scopedKey(VERIFIED_PREFIX + key))));
     }
 
     // Clear verification after use
     public void clearVerification(String key) {
-        redisTemplate.delete(VERIFIED_PREFIX + key);
+        timed("clear-verification", () -> {
+            store.delete(TenantContext.scopedKey(VERIFIED_PREFIX + key));
+            return null;
+        });
     }
 
     public boolean canSendOtp(String key) {
-        String rateKey = RATE_LIMIT_PREFIX + key;
-        String cooldownKey = COOLDOWN_PREFIX + key;
+        return timed("can-send", () -> doCanSendOtp(key));
+    }
+
+    private boolean doCanSendOtp(String key) {
+        String rateKey = TenantContext.scopedKey(RATE_LIMIT_PREFIX + key);
+        String cooldownKey = TenantContext.scopedKey(COOLDOWN_PREFIX + key);
 
         // Check cooldown (30 sec)
-        if (Boolean.TRUE.equals(redisTemplate.hasKey(cooldownKey))) {
+        if (store.exists(cooldownKey)) {
             return false;
         }
 
         // Increment request count
-        Long count = redisTemplate.opsForValue().increment(rateKey);
+        long count = store.increment(rateKey);
 
-        if (count != null && count == 1) {
-            redisTemplate.expire(rateKey, 5, TimeUnit.MINUTES);
+        if (count == 1) {
+            store.expire(rateKey, RATE_WINDOW);
         }
 
-        if (count != null && count > MAX_OTP_REQUESTS) {
+        if (count > MAX_OTP_REQUESTS) {
             return false;
         }
 
         // Set cooldown (30 seconds)
-        redisTemplate.opsForValue().set(cooldownKey, "1", 30, TimeUnit.SECONDS);
+        store.set(cooldownKey, "1", COOLDOWN);
 
         return true;
     }
-}
\ No newline at end of file
+
+    // Latency of each OTP operation including all of its store round trips
+    private <T> T timed(String op, Supplier<T> call) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            T result = call.get();
+            outcome = "ok";
+            return result;
+        } finally {
+            sample.stop(meterRegistry.timer("otp.store", "op", op, "outcome", outcome));
+        }
+    }
+}
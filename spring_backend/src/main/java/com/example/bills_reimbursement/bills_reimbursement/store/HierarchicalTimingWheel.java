@@ -0,0 +1,102 @@
+package com.example.bills_reimbursement.bills_reimbursement.store;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+    Hierarchical timing wheel of 4 levels x 64 slots. With a 100 ms tick the levels
+    cover 6.4 s, 6.8 min, 7.3 h and 19.4 days; anything further out is parked in the
+    top level and re-placed as the wheel turns. Scheduling and expiring are O(1)
+    per timer regardless of how many keys are stored.
+
+    Timers are never cancelled: when a key is deleted or its TTL changes the old
+    timer simply fires and the owner ignores it. Not thread-safe — callers lock.
+*/
+final class HierarchicalTimingWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_DELTA = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+    private final long tickMillis;
+    private final List<List<Timer>> slots;
+    private long currentTick;
+    private int size;
+
+    HierarchicalTimingWheel(long tickMillis, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.currentTick = nowMillis / tickMillis;
+        this.slots = new ArrayList<>(LEVELS * SLOTS);
+        for (int i = 0; i < LEVELS * SLOTS; i++) {
+            slots.add(new ArrayList<>());
+        }
+    }
+
+    void schedule(String key, long expireAtMillis) {
+        long expireTick = (expireAtMillis + tickMillis - 1) / tickMillis;
+        place(new Timer(key, expireTick));
+        size++;
+    }
+
+    // Turns the wheel up to nowMillis and returns the keys whose timers fired
+    List<String> advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        List<String> due = new ArrayList<>();
+        if (size == 0) {
+            currentTick = Math.max(currentTick, targetTick);
+            return due;
+        }
+        while (currentTick < targetTick && size > 0) {
+            currentTick++;
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                    cascade(level);
+                }
+            }
+            List<Timer> slot = slot(0, currentTick);
+            for (Timer timer : slot) {
+                due.add(timer.key());
+            }
+            size -= slot.size();
+            slot.clear();
+        }
+        currentTick = Math.max(currentTick, targetTick);
+        return due;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void cascade(int level) {
+        List<Timer> slot = slot(level, currentTick >>> (SLOT_BITS * level));
+        if (slot.isEmpty()) {
+            return;
+        }
+        List<Timer> timers = new ArrayList<>(slot);
+        slot.clear();
+        for (Timer timer : timers) {
+            place(timer);
+        }
+    }
+
+    private void place(Timer timer) {
+        // Anything already due fires on the next tick
+        long delta = Math.max(timer.expireTick() - currentTick, 1);
+        long placementTick = currentTick + Math.min(delta, MAX_DELTA);
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        slot(level, placementTick >>> (SLOT_BITS * level)).add(timer);
+    }
+
+    private List<Timer> slot(int level, long index) {
+        return slots.get(level * SLOTS + (int) (index & SLOT_MASK));
+    }
+
+    private record Timer(String key, long expireTick) {
+    }
+}
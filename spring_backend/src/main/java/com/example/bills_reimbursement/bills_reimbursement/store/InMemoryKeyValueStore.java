@@ -0,0 +1,236 @@
+package com.example.bills_reimbursement.bills_reimbursement.store;
+
+import com.example.bills_reimbursement.bills_reimbursement.ratelimit.RateLimitDecision;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/*
+    In-process store for single-node deployments — no Redis round trip per operation.
+    Keys are checked for expiry on every read; a timing wheel reclaims expired keys
+    that are never read again.
+*/
+@Component
+@ConditionalOnProperty(name = "store.type", havingValue = "memory")
+public class InMemoryKeyValueStore implements KeyValueStore {
+
+    private static final long TICK_MILLIS = 100;
+    private static final long NO_EXPIRY = Long.MAX_VALUE;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final HierarchicalTimingWheel wheel;
+    private final LongSupplier clock;
+
+    public InMemoryKeyValueStore() {
+        this(System::currentTimeMillis);
+    }
+
+    InMemoryKeyValueStore(LongSupplier clock) {
+        this.clock = clock;
+        this.wheel = new HierarchicalTimingWheel(TICK_MILLIS, clock.getAsLong());
+    }
+
+    @Override
+    public String get(String key) {
+        Entry entry = live(key);
+        return entry != null && entry.value() instanceof String value ? value : null;
+    }
+
+    @Override
+    public void set(String key, String value, Duration ttl) {
+        long now = clock.getAsLong();
+        long expireAt = now + ttl.toMillis();
+        Entry previous = entries.put(key, new Entry(value, expireAt));
+        if (needsTimer(previous, now, expireAt)) {
+            schedule(key, expireAt);
+        }
+    }
+
+    @Override
+    public boolean setIfAbsent(String key, String value, Duration ttl) {
+        long now = clock.getAsLong();
+        long expireAt = now + ttl.toMillis();
+        boolean[] created = {false};
+        entries.compute(key, (k, existing) -> {
+            if (existing != null && !existing.expired(now)) {
+                return existing;
+            }
+            created[0] = true;
+            return new Entry(value, expireAt);
+        });
+        if (created[0]) {
+            schedule(key, expireAt);
+        }
+        return created[0];
+    }
+
+    @Override
+    public void delete(String key) {
+        entries.remove(key);
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return live(key) != null;
+    }
+
+    @Override
+    public long increment(String key) {
+        long now = clock.getAsLong();
+        Entry updated = entries.compute(key, (k, existing) -> {
+            if (existing == null || existing.expired(now)) {
+                return new Entry("1", NO_EXPIRY);
+            }
+            if (!(existing.value() instanceof String value)) {
+                throw new IllegalStateException("Value at " + key + " is not a counter");
+            }
+            return new Entry(String.valueOf(Long.parseLong(value) + 1), existing.expireAt());
+        });
+        return Long.parseLong((String) updated.value());
+    }
+
+    @Override
+    public void expire(String key, Duration ttl) {
+        long now = clock.getAsLong();
+        long expireAt = now + ttl.toMillis();
+        boolean[] rearm = {false};
+        entries.computeIfPresent(key, (k, existing) -> {
+            if (existing.expired(now)) {
+                return null;
+            }
+            rearm[0] = needsTimer(existing, now, expireAt);
+            return new Entry(existing.value(), expireAt);
+        });
+        if (rearm[0]) {
+            schedule(key, expireAt);
+        }
+    }
+
+    @Override
+    public boolean expireIfEquals(String key, String expected, Duration ttl) {
+        long now = clock.getAsLong();
+        long expireAt = now + ttl.toMillis();
+        boolean[] updated = {false};
+        boolean[] rearm = {false};
+        entries.computeIfPresent(key, (k, existing) -> {
+            if (existing.expired(now)) {
+                return null;
+            }
+            if (!expected.equals(existing.value())) {
+                return existing;
+            }
+            updated[0] = true;
+            rearm[0] = needsTimer(existing, now, expireAt);
+            return new Entry(existing.value(), expireAt);
+        });
+        if (rearm[0]) {
+            schedule(key, expireAt);
+        }
+        return updated[0];
+    }
+
+    @Override
+    public boolean deleteIfEquals(String key, String expected) {
+        long now = clock.getAsLong();
+        boolean[] deleted = {false};
+        entries.computeIfPresent(key, (k, existing) -> {
+            if (existing.expired(now)) {
+                return null;
+            }
+            if (!expected.equals(existing.value())) {
+                return existing;
+            }
+            deleted[0] = true;
+            return null;
+        });
+        return deleted[0];
+    }
+
+    @Override
+    public RateLimitDecision tryConsume(String key, int capacity, double tokensPerMilli) {
+        long now = clock.getAsLong();
+        // Same idle expiry as the Redis script: long enough for the bucket to refill
+        long expireAt = now + (long) Math.ceil(capacity / tokensPerMilli) + 1000;
+        RateLimitDecision[] decision = new RateLimitDecision[1];
+        boolean[] rearm = {false};
+        entries.compute(key, (k, existing) -> {
+            rearm[0] = needsTimer(existing, now, expireAt);
+            double tokens = capacity;
+            if (existing != null && !existing.expired(now) && existing.value() instanceof Bucket bucket) {
+                tokens = Math.min(capacity, bucket.tokens() + Math.max(0, now - bucket.timestamp()) * tokensPerMilli);
+            }
+            if (tokens >= 1) {
+                tokens -= 1;
+                decision[0] = RateLimitDecision.allow();
+            } else {
+                decision[0] = RateLimitDecision.reject((long) Math.ceil((1 - tokens) / tokensPerMilli));
+            }
+            return new Entry(new Bucket(tokens, now), expireAt);
+        });
+        if (rearm[0]) {
+            schedule(key, expireAt);
+        }
+        return decision[0];
+    }
+
+    // Reclaims keys whose TTL has passed; keys whose TTL was extended get a new timer
+    @Scheduled(fixedDelay = 1000)
+    public void purgeExpired() {
+        long now = clock.getAsLong();
+        List<String> due;
+        synchronized (wheel) {
+            due = wheel.advance(now);
+        }
+        for (String key : due) {
+            Entry remaining = entries.computeIfPresent(key, (k, entry) -> entry.expired(now) ? null : entry);
+            if (remaining != null) {
+                schedule(key, remaining.expireAt());
+            }
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private Entry live(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expired(clock.getAsLong())) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    // A live key already has a timer at or before its old expiry, which re-arms itself
+    // when it fires early — only an earlier expiry needs a new one.
+    private static boolean needsTimer(Entry previous, long now, long expireAt) {
+        return previous == null || previous.expired(now) || expireAt < previous.expireAt();
+    }
+
+    private void schedule(String key, long expireAt) {
+        if (expireAt == NO_EXPIRY) {
+            return;
+        }
+        synchronized (wheel) {
+            wheel.schedule(key, expireAt);
+        }
+    }
+
+    private record Entry(Object value, long expireAt) {
+        boolean expired(long now) {
+            return expireAt <= now;
+        }
+    }
+
+    private record Bucket(double tokens, long timestamp) {
+    }
+}
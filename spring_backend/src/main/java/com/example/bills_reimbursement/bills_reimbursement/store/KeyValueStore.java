@@ -0,0 +1,40 @@
+package com.example.bills_reimbursement.bills_reimbursement.store;
+
+import com.example.bills_reimbursement.bills_reimbursement.ratelimit.RateLimitDecision;
+
+import java.time.Duration;
+
+/*
+    Short-lived key/value state (OTPs, attempt counters, cooldowns, rate-limit buckets).
+    Semantics follow Redis: counters start at 1 without a TTL, expire() on a missing
+    key is a no-op, and expired keys are invisible immediately.
+
+    Selected with store.type: "redis" (default, shared across nodes) or "memory"
+    (in-process, single-node deployments only).
+*/
+public interface KeyValueStore {
+
+    String get(String key);
+
+    void set(String key, String value, Duration ttl);
+
+    // Returns true if the key was absent and has now been set
+    boolean setIfAbsent(String key, String value, Duration ttl);
+
+    void delete(String key);
+
+    boolean exists(String key);
+
+    long increment(String key);
+
+    void expire(String key, Duration ttl);
+
+    // Resets the TTL only while key still holds expected; false if it doesn't (lease renewal)
+    boolean expireIfEquals(String key, String expected, Duration ttl);
+
+    // Deletes key only while it still holds expected (lease release)
+    boolean deleteIfEquals(String key, String expected);
+
+    // Takes one token from the bucket at key, refilling at tokensPerMilli up to capacity
+    RateLimitDecision tryConsume(String key, int capacity, double tokensPerMilli);
+}
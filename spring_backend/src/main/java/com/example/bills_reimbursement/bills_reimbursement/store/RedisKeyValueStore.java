@@ -0,0 +1,96 @@
+package com.example.bills_reimbursement.bills_reimbursement.store;
+
+import com.example.bills_reimbursement.bills_reimbursement.ratelimit.RateLimitDecision;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "store.type", havingValue = "redis", matchIfMissing = true)
+public class RedisKeyValueStore implements KeyValueStore {
+
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> TOKEN_BUCKET_SCRIPT = new DefaultRedisScript<>();
+
+    private static final DefaultRedisScript<Long> EXPIRE_IF_EQUALS_SCRIPT = new DefaultRedisScript<>();
+    private static final DefaultRedisScript<Long> DELETE_IF_EQUALS_SCRIPT = new DefaultRedisScript<>();
+
+    static {
+        TOKEN_BUCKET_SCRIPT.setLocation(new ClassPathResource("scripts/token_bucket.lua"));
+        TOKEN_BUCKET_SCRIPT.setResultType(List.class);
+        EXPIRE_IF_EQUALS_SCRIPT.setLocation(new ClassPathResource("scripts/expire_if_equals.lua"));
+        EXPIRE_IF_EQUALS_SCRIPT.setResultType(Long.class);
+        DELETE_IF_EQUALS_SCRIPT.setLocation(new ClassPathResource("scripts/delete_if_equals.lua"));
+        DELETE_IF_EQUALS_SCRIPT.setResultType(Long.class);
+    }
+
+    private final StringRedisTemplate redisTemplate;
+
+    @Override
+    public String get(String key) {
+        return redisTemplate.opsForValue().get(key);
+    }
+
+    @Override
+    public void set(String key, String value, Duration ttl) {
+        redisTemplate.opsForValue().set(key, value, ttl);
+    }
+
+    @Override
+    public boolean setIfAbsent(String key, String value, Duration ttl) {
+        return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, value, ttl));
+    }
+
+    @Override
+    public void delete(String key) {
+        redisTemplate.delete(key);
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Boolean.TRUE.equals(redisTemplate.hasKey(key));
+    }
+
+    @Override
+    public long increment(String key) {
+        Long value = redisTemplate.opsForValue().increment(key);
+        return value != null ? value : 0;
+    }
+
+    @Override
+    public void expire(String key, Duration ttl) {
+        redisTemplate.expire(key, ttl);
+    }
+
+    @Override
+    public boolean expireIfEquals(String key, String expected, Duration ttl) {
+        Long result = redisTemplate.execute(EXPIRE_IF_EQUALS_SCRIPT, List.of(key), expected, String.valueOf(ttl.toMillis()));
+        return result != null && result == 1L;
+    }
+
+    @Override
+    public boolean deleteIfEquals(String key, String expected) {
+        Long result = redisTemplate.execute(DELETE_IF_EQUALS_SCRIPT, List.of(key), expected);
+        return result != null && result == 1L;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public RateLimitDecision tryConsume(String key, int capacity, double tokensPerMilli) {
+        List<Long> result = redisTemplate.execute(TOKEN_BUCKET_SCRIPT, List.of(key),
+                String.valueOf(capacity), String.valueOf(tokensPerMilli));
+        if (result == null || result.size() < 2) {
+            return RateLimitDecision.allow();
+        }
+        return result.get(0) == 1L
+                ? RateLimitDecision.allow()
+                : RateLimitDecision.reject(result.get(1));
+    }
+}
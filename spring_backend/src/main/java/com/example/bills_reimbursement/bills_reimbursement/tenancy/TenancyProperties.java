@@ -0,0 +1,54 @@
+package com.example.bills_reimbursement.bills_reimbursement.tenancy;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+    Organisations hosted by this deployment, as configured under tenancy.* in
+    application.properties. Tenant ids appear in store keys and upload paths, so
+    they are limited to lower-case letters, digits and dashes.
+*/
+@Data
+@Component
+@ConfigurationProperties("tenancy")
+public class TenancyProperties {
+
+    // Off: every request belongs to default-tenant, exactly as before tenancy existed
+    private boolean enabled = false;
+
+    // Requests that name no tenant, and all background work, belong to this one
+    private String defaultTenant = "default";
+
+    // Request header naming the tenant; checked before the Host header
+    private String header = "X-Tenant-ID";
+
+    private Map<String, Tenant> tenants = new LinkedHashMap<>();
+
+    @Data
+    public static class Tenant {
+        // Registration and admin edits only accept addresses ending in @email-domain
+        private String emailDomain;
+        // Host names (without port) whose requests belong to this tenant
+        private List<String> hosts = new ArrayList<>();
+        // Database on the shared MySQL server. Only the default tenant may leave both this and
+        // datasource empty: it uses the database in spring.datasource.url
+        private String schema;
+        // A dedicated server instead; username and password default to spring.datasource.*
+        private DedicatedDataSource datasource;
+    }
+
+    @Data
+    public static class DedicatedDataSource {
+        private String url;
+        private String username;
+        private String password;
+        // Empty = the same as spring.datasource.hikari.maximum-pool-size
+        private Integer maximumPoolSize;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.bills_reimbursement.bills_reimbursement.tenancy;
+
+import java.util.function.Supplier;
+
+/*
+    The tenant the current thread works for. TenantFilter sets it for each request;
+    startup loads and scheduled jobs set it around each tenant's share of the work.
+    Anything else — including every thread when tenancy is off — works for the
+    default tenant, which keeps the single-company layout: unprefixed store keys,
+    the upload directory itself, the database in spring.datasource.url.
+*/
+public final class TenantContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private static volatile String defaultTenant = "default";
+
+    private TenantContext() {
+    }
+
+    public static String current() {
+        String tenant = CURRENT.get();
+        return tenant != null ? tenant : defaultTenant;
+    }
+
+    public static boolean isDefault() {
+        return current().equals(defaultTenant);
+    }
+
+    // KeyValueStore keys: unchanged for the default tenant, "<tenant>:<key>" otherwise
+    public static String scopedKey(String key) {
+        String tenant = current();
+        return tenant.equals(defaultTenant) ? key : tenant + ":" + key;
+    }
+
+    public static void runAs(String tenant, Runnable task) {
+        callAs(tenant, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    public static <T> T callAs(String tenant, Supplier<T> task) {
+        String previous = CURRENT.get();
+        CURRENT.set(tenant);
+        try {
+            return task.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    // Null when the thread hasn't been given a tenant
+    static String explicit() {
+        return CURRENT.get();
+    }
+
+    // For TenantFilter, which clears it again when the request is done
+    static void set(String tenant) {
+        CURRENT.set(tenant);
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+
+    static void setDefaultTenant(String tenant) {
+        defaultTenant = tenant;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.bills_reimbursement.bills_reimbursement.tenancy;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/*
+    Makes the request's tenant current for everything downstream, authentication
+    included: the login is checked against that tenant's users. Registered ahead of
+    the security chain by TenancyConfig, and only when tenancy is enabled.
+*/
+public class TenantFilter extends OncePerRequestFilter {
+
+    private final Tenants tenants;
+
+    public TenantFilter(Tenants tenants) {
+        this.tenants = tenants;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String tenant = tenants.resolve(request);
+        if (tenant == null) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            response.setContentType("application/json");
+            response.getWriter().write("{\"error\": \"Unknown tenant\"}");
+            return;
+        }
+        TenantContext.set(tenant);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            TenantContext.clear();
+        }
+    }
+
+    // Async dispatches (completing an SSE stream) run on another thread and need it set again
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.bills_reimbursement.bills_reimbursement.tenancy;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+    Gives each connection to the current tenant's database. Tenants with a dedicated
+    server get a connection from their own pool. Everyone else shares the configured
+    DataSource (replicas included), and the connection is switched to the tenant's
+    schema — or back to the one in spring.datasource.url — before it is handed out.
+    Pooled connections keep whatever catalog their last user left, so every checkout
+    is checked, which costs nothing when it already matches: the driver answers
+    getCatalog from its own state. For the same reason the default schema is read from
+    the URL, never from a connection, which may still be on another tenant's schema.
+*/
+public class TenantRoutingDataSource extends DelegatingDataSource implements DisposableBean {
+
+    // jdbc:mysql://host:3306/bills?… and the mysql:replication, mariadb, … variants
+    private static final Pattern DATABASE = Pattern.compile("^jdbc:(?:mysql|mariadb)(?::[a-z]+)*://[^/]*/([^/?;]+)");
+
+    private final Map<String, HikariDataSource> dedicated;
+
+    private final Map<String, String> schemas;
+
+    // The schema spring.datasource.url points at
+    private final String defaultCatalog;
+
+    public TenantRoutingDataSource(DataSource shared, Map<String, HikariDataSource> dedicated, Map<String, String> schemas,
+                                   String sharedUrl) {
+        super(shared);
+        this.dedicated = dedicated;
+        this.schemas = schemas;
+        this.defaultCatalog = databaseOf(sharedUrl);
+        if (!schemas.isEmpty() && defaultCatalog == null) {
+            throw new IllegalStateException(
+                    "tenancy.tenants.*.schema needs spring.datasource.url to name a MySQL database, was " + sharedUrl);
+        }
+    }
+
+    // The database a MySQL URL names, or null
+    static String databaseOf(String url) {
+        if (url == null) {
+            return null;
+        }
+        Matcher matcher = DATABASE.matcher(url.trim());
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        String tenant = TenantContext.current();
+        HikariDataSource pool = dedicated.get(tenant);
+        if (pool != null) {
+            return pool.getConnection();
+        }
+        Connection connection = obtainTargetDataSource().getConnection();
+        if (schemas.isEmpty()) {
+            return connection;
+        }
+        try {
+            String catalog = schemas.get(tenant);
+            if (catalog == null) {
+                catalog = defaultCatalog;
+            }
+            if (!catalog.equals(connection.getCatalog())) {
+                connection.setCatalog(catalog);
+            }
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new UnsupportedOperationException("Credentials come from the pool configuration");
+    }
+
+    @Override
+    public void destroy() {
+        dedicated.values().forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.bills_reimbursement.bills_reimbursement.tenancy;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/*
+    One instance of some in-memory state per tenant, created on first use, for the
+    caches and indexes built from a tenant's own rows (user directory, spending
+    totals, duplicate index). With tenancy off there is only ever one.
+*/
+public final class TenantScoped<T> {
+
+    private final Map<String, T> byTenant = new ConcurrentHashMap<>();
+    private final Supplier<T> factory;
+
+    public TenantScoped(Supplier<T> factory) {
+        this.factory = factory;
+    }
+
+    public T current() {
+        return byTenant.computeIfAbsent(TenantContext.current(), tenant -> factory.get());
+    }
+
+    // Every tenant's instance created so far, for gauges that report the total
+    public Collection<T> all() {
+        return byTenant.values();
+    }
+}
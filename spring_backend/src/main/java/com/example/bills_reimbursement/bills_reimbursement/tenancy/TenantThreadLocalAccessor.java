@@ -0,0 +1,34 @@
+package com.example.bills_reimbursement.bills_reimbursement.tenancy;
+
+import io.micrometer.context.ThreadLocalAccessor;
+
+/*
+    Lets context propagation carry the tenant along with the trace: work handed to the
+    application task executor (TracingConfig's task decorator) runs for the tenant
+    that submitted it. Registered through META-INF/services.
+*/
+public class TenantThreadLocalAccessor implements ThreadLocalAccessor<String> {
+
+    public static final String KEY = "tenant";
+
+    @Override
+    public Object key() {
+        return KEY;
+    }
+
+    // Only a tenant set explicitly; threads without one already work for the default
+    @Override
+    public String getValue() {
+        return TenantContext.explicit();
+    }
+
+    @Override
+    public void setValue(String tenant) {
+        TenantContext.set(tenant);
+    }
+
+    @Override
+    public void setValue() {
+        TenantContext.clear();
+    }
+}
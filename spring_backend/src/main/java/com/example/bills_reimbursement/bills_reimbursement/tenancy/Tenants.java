@@ -0,0 +1,117 @@
+package com.example.bills_reimbursement.bills_reimbursement.tenancy;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/*
+    The configured tenants and how a request maps to one. With tenancy off there is
+    only the default tenant, and every request belongs to it.
+*/
+@Component
+public class Tenants {
+
+    private static final Logger log = LoggerFactory.getLogger(Tenants.class);
+
+    private static final Pattern TENANT_ID = Pattern.compile("[a-z0-9][a-z0-9-]*");
+
+    private final TenancyProperties properties;
+    private final List<String> ids;
+    private final Map<String, String> byHost = new HashMap<>();
+
+    public Tenants(TenancyProperties properties) {
+        this.properties = properties;
+        String defaultTenant = properties.getDefaultTenant();
+        if (!properties.getTenants().containsKey(defaultTenant)) {
+            throw new IllegalStateException("tenancy.default-tenant '" + defaultTenant + "' has no tenancy.tenants entry");
+        }
+        for (Map.Entry<String, TenancyProperties.Tenant> entry : properties.getTenants().entrySet()) {
+            if (!TENANT_ID.matcher(entry.getKey()).matches()) {
+                throw new IllegalStateException("Tenant id '" + entry.getKey() + "' may only use a-z, 0-9 and '-'");
+            }
+            if (entry.getValue().getEmailDomain() == null || entry.getValue().getEmailDomain().isBlank()) {
+                throw new IllegalStateException("tenancy.tenants." + entry.getKey() + ".email-domain is required");
+            }
+            // There is no tenant column: tenants on one database would see each other's users and bills
+            TenancyProperties.Tenant tenant = entry.getValue();
+            if (properties.isEnabled() && !entry.getKey().equals(defaultTenant) && tenant.getDatasource() == null
+                    && (tenant.getSchema() == null || tenant.getSchema().isBlank())) {
+                throw new IllegalStateException("tenancy.tenants." + entry.getKey()
+                        + " needs a schema or a datasource; only the default tenant may use spring.datasource.url's database");
+            }
+            for (String host : entry.getValue().getHosts()) {
+                String previous = byHost.put(host.trim().toLowerCase(Locale.ROOT), entry.getKey());
+                if (previous != null) {
+                    throw new IllegalStateException("Host " + host + " belongs to both " + previous + " and " + entry.getKey());
+                }
+            }
+        }
+        this.ids = properties.isEnabled() ? List.copyOf(properties.getTenants().keySet()) : List.of(defaultTenant);
+        TenantContext.setDefaultTenant(defaultTenant);
+        if (properties.isEnabled()) {
+            log.info("Multi-tenant mode: {} (default {})", ids, defaultTenant);
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public List<String> ids() {
+        return ids;
+    }
+
+    // The request's tenant: the tenant header, else the Host header, else the default
+    // tenant. Null when the tenant header names a tenant that doesn't exist.
+    public String resolve(HttpServletRequest request) {
+        if (!properties.isEnabled()) {
+            return properties.getDefaultTenant();
+        }
+        String named = request.getHeader(properties.getHeader());
+        if (named != null && !named.isBlank()) {
+            String tenant = named.trim().toLowerCase(Locale.ROOT);
+            return ids.contains(tenant) ? tenant : null;
+        }
+        String host = request.getServerName();
+        String tenant = host != null ? byHost.get(host.toLowerCase(Locale.ROOT)) : null;
+        return tenant != null ? tenant : properties.getDefaultTenant();
+    }
+
+    // Whether the address belongs to the current tenant's organisation
+    public boolean allowsEmail(String email) {
+        String domain = properties.getTenants().get(TenantContext.current()).getEmailDomain();
+        return email != null && email.toLowerCase(Locale.ROOT).endsWith("@" + domain.toLowerCase(Locale.ROOT));
+    }
+
+    /*
+        Runs the task once per tenant with that tenant current, e.g. startup loads and
+        cluster jobs. One tenant failing doesn't skip the rest; the first failure is
+        rethrown once all have run.
+    */
+    public void forEach(Runnable task) {
+        List<RuntimeException> failures = new ArrayList<>();
+        for (String tenant : ids) {
+            try {
+                TenantContext.runAs(tenant, task);
+            } catch (RuntimeException e) {
+                if (ids.size() > 1) {
+                    log.error("Tenant {}: {}", tenant, e.getMessage());
+                }
+                failures.add(e);
+            }
+        }
+        if (!failures.isEmpty()) {
+            RuntimeException first = failures.get(0);
+            failures.stream().skip(1).forEach(first::addSuppressed);
+            throw first;
+        }
+    }
+}
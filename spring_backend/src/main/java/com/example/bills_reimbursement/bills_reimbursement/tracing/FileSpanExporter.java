@@ -0,0 +1,97 @@
+package com.example.bills_reimbursement.bills_reimbursement.tracing;
+
+import brave.handler.MutableSpan;
+import brave.handler.SpanHandler;
+import brave.propagation.TraceContext;
+import zipkin2.reporter.BytesMessageSender;
+import zipkin2.reporter.Encoding;
+import zipkin2.reporter.brave.AsyncZipkinSpanHandler;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/*
+    Appends finished spans to a local file, one Zipkin v2 JSON span per line, for
+    offline latency analysis (jq, or POST the lines to a Zipkin / OpenTelemetry
+    collector as a JSON array). Spans are queued and written in batches by the Zipkin
+    reporter's own thread, so request threads never touch the disk; when the queue is
+    full, spans are dropped. At max-size the file is moved to <file>.1, replacing the
+    previous one, so at most twice max-size is kept.
+*/
+public class FileSpanExporter extends SpanHandler implements Closeable {
+
+    private final AsyncZipkinSpanHandler delegate;
+
+    public FileSpanExporter(Path file, long maxSizeBytes) throws IOException {
+        this.delegate = AsyncZipkinSpanHandler.newBuilder(new FileSender(file, maxSizeBytes)).build();
+    }
+
+    @Override
+    public boolean end(TraceContext context, MutableSpan span, Cause cause) {
+        return delegate.end(context, span, cause);
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    private static final class FileSender extends BytesMessageSender.Base {
+
+        private static final int MESSAGE_MAX_BYTES = 512 * 1024;
+
+        private final Path file;
+        private final Path previous;
+        private final long maxSizeBytes;
+        private OutputStream out;
+        private long size;
+
+        FileSender(Path file, long maxSizeBytes) throws IOException {
+            super(Encoding.JSON);
+            this.file = file.toAbsolutePath().normalize();
+            this.previous = this.file.resolveSibling(this.file.getFileName() + ".1");
+            this.maxSizeBytes = maxSizeBytes;
+            if (this.file.getParent() != null) {
+                Files.createDirectories(this.file.getParent());
+            }
+            open();
+        }
+
+        @Override
+        public int messageMaxBytes() {
+            return MESSAGE_MAX_BYTES;
+        }
+
+        @Override
+        public synchronized void send(List<byte[]> encodedSpans) throws IOException {
+            if (size > 0 && size + messageSizeInBytes(encodedSpans) > maxSizeBytes) {
+                out.close();
+                Files.move(file, previous, StandardCopyOption.REPLACE_EXISTING);
+                open();
+            }
+            for (byte[] span : encodedSpans) {
+                out.write(span);
+                out.write('\n');
+                size += span.length + 1;
+            }
+            out.flush();
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            out.close();
+        }
+
+        private void open() throws IOException {
+            out = new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+            size = Files.size(file);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.bills_reimbursement.bills_reimbursement.tracing;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/*
+    A span per repository call, named <Repository>.<method>, e.g. UserRepository.findByEmployeeId.
+    It is the outermost advice on the repository proxy, so it includes the repository's
+    own transaction — for save() that is the INSERT, sent when the transaction commits.
+    Calls outside a trace (startup loads) don't start one. Spans only: the timings are
+    already in the spring.data.repository.invocations metric.
+*/
+public class RepositorySpanInterceptor implements MethodInterceptor {
+
+    private final Tracer tracer;
+    private final String repository;
+
+    public RepositorySpanInterceptor(Tracer tracer, String repository) {
+        this.tracer = tracer;
+        this.repository = repository;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (tracer.currentSpan() == null) {
+            return invocation.proceed();
+        }
+        Span span = tracer.nextSpan().name(repository + "." + invocation.getMethod().getName()).start();
+        try (Tracer.SpanInScope ignored = tracer.withSpan(span)) {
+            return invocation.proceed();
+        } catch (Throwable e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.bills_reimbursement.bills_reimbursement.tracing;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.multipart.MultipartException;
+import org.springframework.web.multipart.MultipartHttpServletRequest;
+import org.springframework.web.multipart.support.StandardServletMultipartResolver;
+
+/*
+    Boot's multipart resolver, observed. The DispatcherServlet reads and parses the
+    whole upload here, before the controller runs, so on a slow bill submission this
+    span is the time spent receiving the files.
+*/
+public class TracedMultipartResolver extends StandardServletMultipartResolver {
+
+    private final ObservationRegistry observationRegistry;
+
+    public TracedMultipartResolver(ObservationRegistry observationRegistry) {
+        this.observationRegistry = observationRegistry;
+    }
+
+    @Override
+    public MultipartHttpServletRequest resolveMultipart(HttpServletRequest request) throws MultipartException {
+        return Observation.createNotStarted("http.multipart.parse", observationRegistry)
+                .contextualName("multipart parse")
+                .highCardinalityKeyValue("http.request.body.size", String.valueOf(request.getContentLengthLong()))
+                .observe(() -> super.resolveMultipart(request));
+    }
+}
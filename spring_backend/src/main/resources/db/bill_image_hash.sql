@@ -0,0 +1,3 @@
+-- Apply once before deploying duplicate-receipt detection (ddl-auto is none).
+-- Existing rows stay NULL; the app hashes their bill images from disk on startup.
+ALTER TABLE bills ADD COLUMN image_hash BIGINT NULL;
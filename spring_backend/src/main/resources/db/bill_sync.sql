@@ -0,0 +1,16 @@
+-- Apply once before deploying delta sync (ddl-auto is none).
+-- updated_at is set by the application on every insert/update; existing rows start
+-- at their creation date so the first delta sync after deploy has a sane baseline.
+ALTER TABLE bills ADD COLUMN updated_at DATETIME(6) NULL;
+UPDATE bills SET updated_at = COALESCE(created_at, CURRENT_DATE);
+CREATE INDEX idx_bills_updated_at ON bills (updated_at);
+CREATE INDEX idx_bills_employee_updated_at ON bills (employee_id, updated_at);
+
+-- Deleted bills, pruned after sync.tombstone-retention.
+CREATE TABLE IF NOT EXISTS bill_tombstones (
+    bill_id     INT         NOT NULL PRIMARY KEY,
+    employee_id INT         NOT NULL,
+    deleted_at  DATETIME(6) NOT NULL,
+    INDEX idx_bill_tombstones_deleted_at (deleted_at),
+    INDEX idx_bill_tombstones_employee (employee_id, deleted_at)
+) ENGINE = InnoDB;
@@ -0,0 +1,11 @@
+-- Apply once before deploying the TABLE-generated Bill ids (ddl-auto is none).
+-- Hibernate's pooled optimizer hands out (next_val - 50, next_val], so the seed
+-- sits one block above the current max id to keep new ids clear of existing rows.
+CREATE TABLE IF NOT EXISTS id_generator (
+    name     VARCHAR(64) NOT NULL PRIMARY KEY,
+    next_val BIGINT      NOT NULL
+) ENGINE = InnoDB;
+
+INSERT INTO id_generator (name, next_val)
+SELECT 'bills', COALESCE(MAX(id), 0) + 1 + 50 FROM bills
+ON DUPLICATE KEY UPDATE next_val = GREATEST(next_val, VALUES(next_val));
@@ -0,0 +1,17 @@
+-- Apply once before deploying cluster-scheduled jobs (ddl-auto is none).
+-- Run history of @ClusterScheduled jobs, pruned after jobs.history-retention.
+CREATE TABLE IF NOT EXISTS job_runs (
+    id            BIGINT       NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    job_name      VARCHAR(100) NOT NULL,
+    occurrence    DATETIME(6)  NOT NULL,
+    shard         INT          NULL,
+    node          VARCHAR(255) NOT NULL,
+    fencing_token BIGINT       NOT NULL,
+    started_at    DATETIME(6)  NOT NULL,
+    finished_at   DATETIME(6)  NULL,
+    duration_ms   BIGINT       NULL,
+    outcome       VARCHAR(20)  NOT NULL,
+    error         VARCHAR(1000) NULL,
+    INDEX idx_job_runs_started_at (started_at),
+    INDEX idx_job_runs_job_started_at (job_name, started_at)
+) ENGINE = InnoDB;
@@ -0,0 +1,6 @@
+-- Lease release: KEYS[1] = lease key, ARGV[1] = expected holder.
+-- Returns 1 if the key still held ARGV[1] and was deleted, 0 otherwise.
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    return redis.call('DEL', KEYS[1])
+end
+return 0
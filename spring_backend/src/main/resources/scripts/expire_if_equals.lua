@@ -0,0 +1,6 @@
+-- Lease renewal: KEYS[1] = lease key, ARGV[1] = expected holder, ARGV[2] = TTL in milliseconds.
+-- Returns 1 if the key still held ARGV[1] and its TTL was reset, 0 otherwise.
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    return redis.call('PEXPIRE', KEYS[1], ARGV[2])
+end
+return 0
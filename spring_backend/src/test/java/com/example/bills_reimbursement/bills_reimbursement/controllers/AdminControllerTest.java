@@ -0,0 +1,137 @@
+package com.example.bills_reimbursement.bills_reimbursement.controllers;
+
+import com.example.bills_reimbursement.bills_reimbursement.dtos.Bill;
+import com.example.bills_reimbursement.bills_reimbursement.dtos.User;
+import com.example.bills_reimbursement.bills_reimbursement.querybudget.QueryCounting;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import java.time.LocalDate;
+
+import static com.example.bills_reimbursement.bills_reimbursement.querybudget.QueryCounting.assertAtMost;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Each test pins the @QueryBudget of one AdminController endpoint, with more than one
+// row to read wherever a per-row query would show
+class AdminControllerTest extends ControllerTest {
+
+    private User admin;
+    private User employee;
+
+    @BeforeEach
+    void seed() {
+        admin = saveUser(true);
+        employee = saveUser(false);
+        saveBill(employee);
+        saveBill(employee);
+        saveBill(saveUser(false));
+    }
+
+    @Test
+    void statementsAreCounted() throws Exception {
+        // Otherwise every budget below would pass with nothing counted
+        int statements = QueryCounting.count(() -> mockMvc.perform(get("/admin/users").with(as(admin)))
+                .andExpect(status().isOk()));
+        assertThat(statements).isPositive();
+    }
+
+    @Test
+    void getAllUsers() throws Exception {
+        assertAtMost(1, () -> mockMvc.perform(get("/admin/users").with(as(admin)))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void getUserDirectory() throws Exception {
+        assertAtMost(0, () -> mockMvc.perform(get("/admin/users/directory").with(as(admin)).param("q", "employee"))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void deleteUser() throws Exception {
+        assertAtMost(5, () -> mockMvc.perform(delete("/admin/users/{id}", employee.getEmployeeId()).with(as(admin)))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void getAllBills() throws Exception {
+        assertAtMost(2, () -> mockMvc.perform(get("/admin/bills").with(as(admin)))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void updateBillStatus() throws Exception {
+        Bill bill = saveBill(employee);
+
+        assertAtMost(2, () -> mockMvc.perform(put("/admin/bills/{billId}/status", bill.getBillId()).with(as(admin))
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"status\": \"Approved\"}"))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void editUser() throws Exception {
+        employee.setApproved(false);
+        userRepository.save(employee);
+        String body = "{\"employeeId\": " + employee.getEmployeeId() + ", \"name\": \"Renamed Employee\", \"isApproved\": true}";
+
+        assertAtMost(3, () -> mockMvc.perform(put("/admin/users/{id}", employee.getEmployeeId()).with(as(admin))
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void setUserDisabled() throws Exception {
+        assertAtMost(2, () -> mockMvc.perform(patch("/admin/users/{id}/disable", employee.getEmployeeId()).with(as(admin))
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"disabled\": true}"))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void getOldBillsCount() throws Exception {
+        assertAtMost(1, () -> mockMvc.perform(get("/admin/bills/cleanup/count").with(as(admin)))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void deleteOldBills() throws Exception {
+        saveBill(employee, LocalDate.now().minusYears(4));
+        saveBill(employee, LocalDate.now().minusYears(4));
+
+        assertAtMost(3, () -> mockMvc.perform(delete("/admin/bills/cleanup").with(as(admin)))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void triggerCleanupReminder() throws Exception {
+        saveBill(employee, LocalDate.now().minusYears(4));
+
+        assertAtMost(2, () -> mockMvc.perform(post("/admin/cleanup-reminder/trigger").with(as(admin)))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void testCleanupReminder() throws Exception {
+        assertAtMost(2, () -> mockMvc.perform(post("/admin/cleanup-reminder/test").with(as(admin)))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void smtpTest() throws Exception {
+        assertAtMost(0, () -> mockMvc.perform(post("/admin/cleanup-reminder/smtp-test").with(as(admin))
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"email\": \"" + admin.getEmail() + "\"}"))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void getServerStatus() throws Exception {
+        assertAtMost(0, () -> mockMvc.perform(get("/admin/ping"))
+                .andExpect(status().isOk()));
+    }
+}
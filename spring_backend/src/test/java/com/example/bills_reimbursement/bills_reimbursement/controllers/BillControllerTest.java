@@ -0,0 +1,118 @@
+package com.example.bills_reimbursement.bills_reimbursement.controllers;
+
+import com.example.bills_reimbursement.bills_reimbursement.dtos.Bill;
+import com.example.bills_reimbursement.bills_reimbursement.dtos.User;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDate;
+
+import static com.example.bills_reimbursement.bills_reimbursement.querybudget.QueryCounting.assertAtMost;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Pins the @QueryBudget of each BillController endpoint, for an employee who already
+// has bills, and checks what the endpoints hand to the in-memory indexes
+class BillControllerTest extends ControllerTest {
+
+    private User employee;
+    private Bill bill;
+
+    @BeforeEach
+    void seed() {
+        employee = saveUser(false);
+        bill = saveBill(employee);
+        saveBill(employee);
+    }
+
+    private static MockMultipartFile file(String name) {
+        return new MockMultipartFile(name, name + ".jpg", "image/jpeg", new byte[]{1, 2, 3});
+    }
+
+    @Test
+    void getAllBillsForUser() throws Exception {
+        assertAtMost(3, () -> mockMvc.perform(get("/users/{id}/bills", employee.getEmployeeId()).with(as(employee)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2)));
+    }
+
+    @Test
+    void addBill() throws Exception {
+        assertAtMost(2, () -> mockMvc.perform(multipart("/users/{id}/bills", employee.getEmployeeId())
+                        .file(file("billImage")).file(file("paymentProof"))
+                        .param("reimbursementFor", "Food").param("description", "Client dinner")
+                        .param("amount", "400").param("date", LocalDate.now().toString())
+                        .with(as(employee)))
+                .andExpect(status().isCreated()));
+    }
+
+    @Test
+    void sameReceiptSubmittedTwiceIsFlagged() throws Exception {
+        // No image hash to go on: only the owner, amount, date and category match
+        MockMultipartFile receipt = new MockMultipartFile("billImage", "receipt.pdf", "application/pdf",
+                new byte[]{1, 2, 3});
+        String date = LocalDate.now().minusDays(1).toString();
+        MvcResult first = mockMvc.perform(multipart("/users/{id}/bills", employee.getEmployeeId())
+                        .file(receipt).param("reimbursementFor", "Parking").param("amount", "80").param("date", date)
+                        .with(as(employee)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.suspectedDuplicates").isEmpty())
+                .andReturn();
+        int firstId = JsonPath.read(first.getResponse().getContentAsString(), "$.id");
+
+        mockMvc.perform(multipart("/users/{id}/bills", employee.getEmployeeId())
+                        .file(receipt).param("reimbursementFor", "Parking").param("amount", "80").param("date", date)
+                        .with(as(employee)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.suspectedDuplicates[0]").value(firstId));
+    }
+
+    @Test
+    void addBills() throws Exception {
+        String today = LocalDate.now().toString();
+        String manifest = "[{\"reimbursementFor\": \"Food\", \"description\": \"Lunch\", \"amount\": 120, \"date\": \"" + today + "\"},"
+                + " {\"reimbursementFor\": \"Food\", \"description\": \"Dinner\", \"amount\": 180, \"date\": \"" + today + "\"},"
+                + " {\"reimbursementFor\": \"Food\", \"description\": \"Snacks\", \"amount\": 60, \"date\": \"" + today + "\"}]";
+
+        assertAtMost(2, () -> mockMvc.perform(multipart("/users/{id}/bills/batch", employee.getEmployeeId())
+                        .file(file("billImage[0]")).file(file("paymentProof[0]"))
+                        .file(file("billImage[1]")).file(file("paymentProof[1]"))
+                        .file(file("billImage[2]")).file(file("paymentProof[2]"))
+                        .param("bills", manifest)
+                        .with(as(employee)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created.length()").value(3)));
+    }
+
+    @Test
+    void searchBill() throws Exception {
+        assertAtMost(1, () -> mockMvc.perform(get("/users/{id}/bills/{billId}", employee.getEmployeeId(), bill.getBillId())
+                        .with(as(employee)))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void editBill() throws Exception {
+        assertAtMost(2, () -> mockMvc.perform(multipart(HttpMethod.PUT, "/users/{id}/bills/{billId}",
+                                employee.getEmployeeId(), bill.getBillId())
+                        .file(file("paymentProof"))
+                        .param("reimbursementFor", "Food").param("description", "Team lunch, corrected")
+                        .param("amount", "275").param("date", LocalDate.now().toString())
+                        .with(as(employee)))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void deleteBill() throws Exception {
+        assertAtMost(3, () -> mockMvc.perform(delete("/users/{id}/bills/{billId}", employee.getEmployeeId(), bill.getBillId())
+                        .with(as(employee)))
+                .andExpect(status().isOk()));
+    }
+}
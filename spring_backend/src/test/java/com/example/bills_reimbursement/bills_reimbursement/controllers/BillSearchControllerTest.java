@@ -0,0 +1,27 @@
+package com.example.bills_reimbursement.bills_reimbursement.controllers;
+
+import com.example.bills_reimbursement.bills_reimbursement.dtos.User;
+import org.junit.jupiter.api.Test;
+
+import static com.example.bills_reimbursement.bills_reimbursement.querybudget.QueryCounting.assertAtMost;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Pins the @QueryBudget of BillSearchController: the hits are loaded in one query
+class BillSearchControllerTest extends ControllerTest {
+
+    @Test
+    void searchBills() throws Exception {
+        User admin = saveUser(true);
+        User employee = saveUser(false);
+        saveBill(employee);
+        saveBill(employee);
+        saveBill(employee);
+
+        assertAtMost(1, () -> mockMvc.perform(get("/admin/bills/search").with(as(admin))
+                        .param("employeeId", String.valueOf(employee.getEmployeeId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.bills.length()").value(3)));
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.bills_reimbursement.bills_reimbursement.controllers;
+
+import com.example.bills_reimbursement.bills_reimbursement.dtos.Bill;
+import com.example.bills_reimbursement.bills_reimbursement.dtos.User;
+import com.example.bills_reimbursement.bills_reimbursement.repositories.BillRepository;
+import com.example.bills_reimbursement.bills_reimbursement.repositories.UserRepository;
+import com.example.bills_reimbursement.bills_reimbursement.search.BillSearchIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+
+/*
+    The whole app on an in-memory H2, as the load test runs it, for checking what each
+    endpoint sends to the database. The test classes share one context and one database,
+    so every fixture gets an employee id of its own. Requests are signed in directly
+    rather than with Basic auth, so the login lookup isn't counted against the endpoint.
+*/
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:controllers;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create",
+        "spring.data.redis.host=localhost",
+        "spring.data.redis.port=6379",
+        "store.type=memory",
+        "spring.mail.host=127.0.0.1",
+        "spring.mail.port=2525",
+        "spring.mail.username=expenz@axeno.co",
+        "spring.mail.password=",
+        "management.health.mail.enabled=false",
+        "cors.allowed.origin=*",
+        "ratelimit.enabled=false",
+        "querybudget.mode=off"})
+@AutoConfigureMockMvc
+abstract class ControllerTest {
+
+    private static final AtomicInteger EMPLOYEE_IDS = new AtomicInteger(5000);
+    private static final String UPLOAD_DIR = directory("uploads");
+    private static final String INDEX_DIR = directory("index");
+
+    @Autowired
+    protected MockMvc mockMvc;
+
+    @Autowired
+    protected UserRepository userRepository;
+
+    @Autowired
+    protected BillRepository billRepository;
+
+    @Autowired
+    protected BillSearchIndex billSearchIndex;
+
+    @MockitoBean
+    protected JavaMailSender mailSender;
+
+    @DynamicPropertySource
+    static void storage(DynamicPropertyRegistry registry) {
+        registry.add("file.upload-dir", () -> UPLOAD_DIR + File.separator);
+        registry.add("search.index-dir", () -> INDEX_DIR);
+    }
+
+    private static String directory(String name) {
+        try {
+            return Files.createTempDirectory("controller-test-" + name).toString();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    protected static RequestPostProcessor as(User user) {
+        return authentication(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+    protected static String emailOf(int employeeId) {
+        return "employee" + employeeId + "@axeno.co";
+    }
+
+    protected static int nextEmployeeId() {
+        return EMPLOYEE_IDS.incrementAndGet();
+    }
+
+    protected User saveUser(boolean admin) {
+        int employeeId = nextEmployeeId();
+        User user = new User();
+        user.setEmployeeId(employeeId);
+        user.setName("Employee " + employeeId);
+        user.setEmail(emailOf(employeeId));
+        user.setPassword("unused");
+        user.setAdmin(admin);
+        user.setApproved(true);
+        return userRepository.save(user);
+    }
+
+    // A Pending bill with a made-up image path, saved and searchable
+    protected Bill saveBill(User owner, LocalDate createdAt) {
+        Bill bill = new Bill();
+        bill.setUser(owner);
+        bill.setReimbursementFor("Food");
+        bill.setBillDescription("Team lunch");
+        bill.setAmount(250.0);
+        bill.setDate(LocalDate.now());
+        bill.setBillImagePath("bill-" + owner.getEmployeeId() + ".jpg");
+        bill.setStatus("Pending");
+        bill.setCreatedAt(createdAt);
+        Bill saved = billRepository.save(bill);
+        billSearchIndex.index(saved);
+        return saved;
+    }
+
+    protected Bill saveBill(User owner) {
+        return saveBill(owner, LocalDate.now());
+    }
+}
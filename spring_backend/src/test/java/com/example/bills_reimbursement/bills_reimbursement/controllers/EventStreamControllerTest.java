@@ -0,0 +1,20 @@
+package com.example.bills_reimbursement.bills_reimbursement.controllers;
+
+import com.example.bills_reimbursement.bills_reimbursement.dtos.User;
+import org.junit.jupiter.api.Test;
+
+import static com.example.bills_reimbursement.bills_reimbursement.querybudget.QueryCounting.assertAtMost;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+// Pins the @QueryBudget of EventStreamController: subscribing reads nothing from the database
+class EventStreamControllerTest extends ControllerTest {
+
+    @Test
+    void stream() throws Exception {
+        User admin = saveUser(true);
+
+        assertAtMost(0, () -> mockMvc.perform(get("/admin/events").with(as(admin)))
+                .andExpect(request().asyncStarted()));
+    }
+}
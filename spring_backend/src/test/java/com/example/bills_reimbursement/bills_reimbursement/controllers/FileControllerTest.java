@@ -0,0 +1,29 @@
+package com.example.bills_reimbursement.bills_reimbursement.controllers;
+
+import com.example.bills_reimbursement.bills_reimbursement.dtos.User;
+import com.example.bills_reimbursement.bills_reimbursement.services.FileStorageService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockMultipartFile;
+
+import static com.example.bills_reimbursement.bills_reimbursement.querybudget.QueryCounting.assertAtMost;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Pins the @QueryBudget of FileController: files are served from disk alone
+class FileControllerTest extends ControllerTest {
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Test
+    void getFile() throws Exception {
+        User employee = saveUser(false);
+        String filename = fileStorageService.storeFile(
+                new MockMultipartFile("billImage", "receipt.jpg", "image/jpeg", new byte[]{1, 2, 3}),
+                employee.getEmployeeId(), "bill");
+
+        assertAtMost(0, () -> mockMvc.perform(get("/files/{filename}", filename).with(as(employee)))
+                .andExpect(status().isOk()));
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.bills_reimbursement.bills_reimbursement.controllers;
+
+import com.example.bills_reimbursement.bills_reimbursement.dtos.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static com.example.bills_reimbursement.bills_reimbursement.querybudget.QueryCounting.assertAtMost;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Each test pins the @QueryBudget of one JobController endpoint
+class JobControllerTest extends ControllerTest {
+
+    private User admin;
+
+    @BeforeEach
+    void seed() {
+        admin = saveUser(true);
+    }
+
+    @Test
+    void getJobs() throws Exception {
+        assertAtMost(1, () -> mockMvc.perform(get("/admin/jobs").with(as(admin)))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void getRuns() throws Exception {
+        assertAtMost(1, () -> mockMvc.perform(get("/admin/jobs/runs").with(as(admin)))
+                .andExpect(status().isOk()));
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.bills_reimbursement.bills_reimbursement.controllers;
+
+import com.example.bills_reimbursement.bills_reimbursement.dtos.User;
+import com.example.bills_reimbursement.bills_reimbursement.services.OtpService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+
+import static com.example.bills_reimbursement.bills_reimbursement.querybudget.QueryCounting.assertAtMost;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Each test pins the @QueryBudget of one UserController endpoint
+class UserControllerTest extends ControllerTest {
+
+    @Autowired
+    private OtpService otpService;
+
+    @Test
+    void createUser() throws Exception {
+        // An admin to notify of the sign-up
+        saveUser(true);
+        int employeeId = nextEmployeeId();
+        String body = "{\"employeeId\": " + employeeId + ", \"name\": \"New Joiner\", \"email\": \""
+                + emailOf(employeeId) + "\", \"password\": \"secret\"}";
+
+        assertAtMost(4, () -> mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isCreated()));
+    }
+
+    @Test
+    void getUser() throws Exception {
+        User user = saveUser(false);
+
+        assertAtMost(1, () -> mockMvc.perform(get("/users/{id}", user.getEmployeeId()).with(as(user)))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void sendOtp() throws Exception {
+        User user = saveUser(false);
+
+        assertAtMost(1, () -> mockMvc.perform(post("/users/{id}/send-otp", user.getEmployeeId())
+                        .param("email", user.getEmail()).param("signUp", "false"))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void verifyOtp() throws Exception {
+        User user = saveUser(false);
+        otpService.saveOtp(user.getEmployeeId() + "_RESET", "123456");
+
+        assertAtMost(1, () -> mockMvc.perform(post("/users/{id}/verify-otp", user.getEmployeeId())
+                        .param("otp", "123456").param("signUp", "false"))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void updateFcmToken() throws Exception {
+        User user = saveUser(false);
+
+        assertAtMost(2, () -> mockMvc.perform(patch("/users/{id}/fcm-token", user.getEmployeeId()).with(as(user))
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"fcmToken\": \"device-token\"}"))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void updatePassword() throws Exception {
+        User user = saveUser(false);
+        String key = user.getEmployeeId() + "_RESET";
+        otpService.saveOtp(key, "123456");
+        otpService.validateOtp(key, "123456");
+
+        assertAtMost(2, () -> mockMvc.perform(post("/users/{id}/update-password", user.getEmployeeId())
+                        .param("newPassword", "new-secret"))
+                .andExpect(status().isOk()));
+    }
+}
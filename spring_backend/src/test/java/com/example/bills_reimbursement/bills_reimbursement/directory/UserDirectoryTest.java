@@ -0,0 +1,76 @@
+package com.example.bills_reimbursement.bills_reimbursement.directory;
+
+import com.example.bills_reimbursement.bills_reimbursement.dtos.User;
+import com.example.bills_reimbursement.bills_reimbursement.events.ChangeEvent;
+import com.example.bills_reimbursement.bills_reimbursement.events.ChangeEventHub;
+import com.example.bills_reimbursement.bills_reimbursement.events.LocalChangeEventRelay;
+import com.example.bills_reimbursement.bills_reimbursement.repositories.UserRepository;
+import com.example.bills_reimbursement.bills_reimbursement.store.InMemoryKeyValueStore;
+import com.example.bills_reimbursement.bills_reimbursement.tenancy.Tenants;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserDirectoryTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final LocalChangeEventRelay relay = new LocalChangeEventRelay();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final UserDirectory directory;
+
+    UserDirectoryTest() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ChangeEventHub hub = new ChangeEventHub(new InMemoryKeyValueStore(), relay, objectMapper, registry, 100,
+                Duration.ofMinutes(1), Runnable::run);
+        directory = new UserDirectory(userRepository, mock(Tenants.class), hub, registry);
+        directory.start();
+    }
+
+    private static User user(int employeeId, String name) {
+        User user = new User();
+        user.setEmployeeId(employeeId);
+        user.setName(name);
+        user.setEmail(name.toLowerCase() + "@axeno.co");
+        return user;
+    }
+
+    // As the relay delivers an event published by another node
+    private void fromAnotherNode(String type, int employeeId) throws Exception {
+        relay.publish(objectMapper.writeValueAsString(new ChangeEvent(7, type, null, employeeId, null, null, "node-2")));
+    }
+
+    private int found(String query) {
+        return directory.find(query, Set.of(), 0, 10).total();
+    }
+
+    @Test
+    void userWrittenElsewhereIsReadBackIn() throws Exception {
+        when(userRepository.findById(1001)).thenReturn(Optional.of(user(1001, "Priya")));
+        fromAnotherNode(ChangeEvent.USER_REGISTERED, 1001);
+        assertThat(found("pri")).isEqualTo(1);
+
+        when(userRepository.findById(1001)).thenReturn(Optional.of(user(1001, "Meera")));
+        fromAnotherNode(ChangeEvent.USER_UPDATED, 1001);
+        assertThat(found("pri")).isZero();
+        assertThat(found("mee")).isEqualTo(1);
+    }
+
+    @Test
+    void deletedOrMissingUserIsRemoved() throws Exception {
+        directory.put(user(1001, "Priya"));
+        directory.put(user(1002, "Rahul"));
+
+        fromAnotherNode(ChangeEvent.USER_DELETED, 1001);
+        when(userRepository.findById(1002)).thenReturn(Optional.empty());
+        fromAnotherNode(ChangeEvent.USER_APPROVED, 1002);
+        assertThat(found("")).isZero();
+    }
+}
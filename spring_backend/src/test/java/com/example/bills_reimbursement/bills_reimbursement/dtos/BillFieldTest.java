@@ -0,0 +1,25 @@
+package com.example.bills_reimbursement.bills_reimbursement.dtos;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BillFieldTest {
+
+    @Test
+    void namesAreMatchedInAnyCaseAndBlanksSkipped() {
+        assertThat(BillField.parseAll(List.of(" AMOUNT", "", "status", "amount")))
+                .containsExactly(BillField.AMOUNT, BillField.STATUS);
+        assertThat(BillField.parseAll(null)).isEmpty();
+    }
+
+    @Test
+    void unknownNameIsRejectedWithTheValidOnes() {
+        assertThatThrownBy(() -> BillField.parseAll(List.of("amount", "total")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Unknown field 'total'. Use billId, employeeId");
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.bills_reimbursement.bills_reimbursement.duplicates;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DuplicateReceiptIndexTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 10, 1);
+
+    private final DuplicateReceiptIndex index = index(6);
+
+    private static DuplicateReceiptIndex index(int maxDistance) {
+        return new DuplicateReceiptIndex(maxDistance, null, null, null, null, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void sameReceiptDataFromOneEmployeeIsSuspect() {
+        index.add(1, 100, null, 50.0, DAY, "Parking");
+        assertThat(index.add(2, 100, null, 50.0, DAY, " parking ")).containsExactly(1);
+        assertThat(index.suspectsOf(1)).containsExactly(2);
+    }
+
+    @Test
+    void sameReceiptDataFromDifferentEmployeesIsNot() {
+        for (int billId = 1; billId <= 100; billId++) {
+            assertThat(index.add(billId, 1000 + billId, null, 50.0, DAY, "Parking")).isEmpty();
+        }
+        assertThat(index.suspectsOf(1)).isNull();
+    }
+
+    @Test
+    void nearImagesAreSuspectWhoeverSubmittedThem() {
+        long hash = 0x5A5A_F00D_1234_9876L;
+        index.add(1, 100, hash, 120.0, DAY, "Food");
+        assertThat(index.add(2, 200, hash ^ 0b101, 80.0, DAY.plusDays(3), "Travel")).containsExactly(1);
+        assertThat(index.add(3, 300, ~hash, 120.0, DAY, "Food")).isEmpty();
+    }
+
+    @Test
+    void removeUnpairsTheBill() {
+        index.add(1, 100, null, 50.0, DAY, "Parking");
+        index.add(2, 100, null, 50.0, DAY, "Parking");
+        index.remove(2, 100, null, 50.0, DAY, "Parking");
+        assertThat(index.suspectsOf(1)).isNull();
+        assertThat(index.findMatches(100, null, 50.0, DAY, "Parking")).containsExactly(1);
+    }
+
+    @Test
+    void maxDistanceOutsideItsRangeIsRejected() {
+        assertThatThrownBy(() -> index(1)).isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("duplicates.max-hash-distance");
+        assertThatThrownBy(() -> index(16)).isInstanceOf(IllegalStateException.class);
+        assertThat(index(3).size()).isZero();
+        assertThat(index(15).size()).isZero();
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.bills_reimbursement.bills_reimbursement.events;
+
+import com.example.bills_reimbursement.bills_reimbursement.store.InMemoryKeyValueStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChangeEventHubTest {
+
+    private final LocalChangeEventRelay relay = new LocalChangeEventRelay();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ChangeEventHub hub = new ChangeEventHub(new InMemoryKeyValueStore(), relay, objectMapper,
+            new SimpleMeterRegistry(), 100, Duration.ofMinutes(1), Runnable::run);
+    private final List<ChangeEvent> heard = new CopyOnWriteArrayList<>();
+
+    ChangeEventHubTest() {
+        hub.onEvent(heard::add);
+    }
+
+    @Test
+    void listenersOnlyHearOtherNodes() throws Exception {
+        // This node's controllers have already applied what they publish
+        hub.publish(ChangeEvent.user(ChangeEvent.USER_UPDATED, 1001));
+        relay.publish(objectMapper.writeValueAsString(
+                new ChangeEvent(9, ChangeEvent.USER_UPDATED, null, 1002, null, null, "node-2")));
+
+        assertThat(heard).extracting(ChangeEvent::employeeId).containsExactly(1002);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.bills_reimbursement.bills_reimbursement.idempotency;
+
+import com.example.bills_reimbursement.bills_reimbursement.dtos.User;
+import com.example.bills_reimbursement.bills_reimbursement.store.InMemoryKeyValueStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdempotencyFilterTest {
+
+    private final IdempotencyFilter filter = new IdempotencyFilter(new IdempotencyStore(new InMemoryKeyValueStore(),
+            new ObjectMapper(), Duration.ofHours(1), Duration.ofMinutes(1), Duration.ofMillis(200),
+            new SimpleMeterRegistry()));
+    private final AtomicInteger executed = new AtomicInteger();
+
+    @BeforeEach
+    void signIn() {
+        User admin = new User();
+        admin.setEmployeeId(1);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(admin, null, List.of()));
+    }
+
+    @AfterEach
+    void signOut() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private static MockHttpServletRequest statusUpdate(String key, String status) {
+        MockHttpServletRequest request = new MockHttpServletRequest("PUT", "/admin/bills/7/status");
+        // What the endpoint matchers look at
+        request.setServletPath("/admin/bills/7/status");
+        request.addHeader(IdempotencyFilter.HEADER, key);
+        request.setContentType("application/json");
+        request.setContent(("{\"status\": \"" + status + "\"}").getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    // Runs the request through the filter to a handler that echoes the body it read
+    private MockHttpServletResponse send(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, (req, res) -> {
+            executed.incrementAndGet();
+            res.setContentType("application/json");
+            res.getOutputStream().write(req.getInputStream().readAllBytes());
+        });
+        return response;
+    }
+
+    @Test
+    void retryOfTheSameRequestIsReplayed() throws Exception {
+        MockHttpServletResponse first = send(statusUpdate("k1", "Approved"));
+        MockHttpServletResponse retry = send(statusUpdate("k1", "Approved"));
+
+        assertThat(executed).hasValue(1);
+        assertThat(first.getContentAsString()).isEqualTo("{\"status\": \"Approved\"}");
+        assertThat(retry.getContentAsString()).isEqualTo(first.getContentAsString());
+        assertThat(retry.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isEqualTo("true");
+    }
+
+    @Test
+    void differentRequestUnderAUsedKeyIsRejected() throws Exception {
+        send(statusUpdate("k2", "Approved"));
+        // Same length as the first body: only the body hash tells them apart
+        MockHttpServletResponse reused = send(statusUpdate("k2", "Rejected"));
+
+        assertThat(executed).hasValue(1);
+        assertThat(reused.getStatus()).isEqualTo(422);
+        assertThat(reused.getContentAsString()).contains("different request");
+    }
+
+    @Test
+    void uploadsAreFingerprintedWithoutTheirBoundary() {
+        MockHttpServletRequest first = new MockHttpServletRequest("POST", "/users/1001/bills");
+        first.setContentType("multipart/form-data; boundary=dart-http-boundary-aaaa");
+        first.setContent(new byte[100]);
+        MockHttpServletRequest retry = new MockHttpServletRequest("POST", "/users/1001/bills");
+        retry.setContentType("multipart/form-data; boundary=dart-http-boundary-bbbb");
+        retry.setContent(new byte[100]);
+        MockHttpServletRequest other = new MockHttpServletRequest("POST", "/users/1001/bills");
+        other.setContentType("multipart/form-data; boundary=dart-http-boundary-aaaa");
+        other.setContent(new byte[101]);
+
+        assertThat(IdempotencyFilter.fingerprint(retry, null)).isEqualTo(IdempotencyFilter.fingerprint(first, null));
+        assertThat(IdempotencyFilter.fingerprint(other, null)).isNotEqualTo(IdempotencyFilter.fingerprint(first, null));
+    }
+}
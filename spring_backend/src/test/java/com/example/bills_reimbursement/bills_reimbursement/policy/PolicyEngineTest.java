@@ -0,0 +1,117 @@
+package com.example.bills_reimbursement.bills_reimbursement.policy;
+
+import com.example.bills_reimbursement.bills_reimbursement.events.ChangeEventHub;
+import com.example.bills_reimbursement.bills_reimbursement.events.LocalChangeEventRelay;
+import com.example.bills_reimbursement.bills_reimbursement.repositories.BillRepository;
+import com.example.bills_reimbursement.bills_reimbursement.store.InMemoryKeyValueStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PolicyEngineTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 10, 5);
+    private static final int EMPLOYEE = 1001;
+
+    private final BillRepository billRepository = mock(BillRepository.class);
+    private final SpendingTotals totals;
+    private final PolicyEngine engine;
+
+    PolicyEngineTest() {
+        PolicyProperties properties = new PolicyProperties();
+        PolicyProperties.CategoryPolicy food = new PolicyProperties.CategoryPolicy();
+        food.setMonthlyCap(1000.0);
+        properties.getCategories().put("Food", food);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ChangeEventHub hub = new ChangeEventHub(new InMemoryKeyValueStore(), new LocalChangeEventRelay(),
+                new ObjectMapper(), registry, 100, Duration.ofMinutes(1), Runnable::run);
+        totals = new SpendingTotals(billRepository, null, properties, hub, registry);
+        engine = new PolicyEngine(properties, totals, registry);
+    }
+
+    private static PolicyEngine.Submission food(double amount) {
+        return new PolicyEngine.Submission(EMPLOYEE, "Food", amount, DAY, Set.of(PolicyEngine.BILL_IMAGE));
+    }
+
+    @Test
+    void concurrentSubmissionsCannotTogetherExceedACap() throws Exception {
+        int threads = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<PolicyEngine.Decision>> decisions = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            decisions.add(pool.submit(() -> {
+                start.await();
+                return engine.check(food(300), null);
+            }));
+        }
+        start.countDown();
+        int passed = 0;
+        for (Future<PolicyEngine.Decision> decision : decisions) {
+            if (decision.get().violation() == null) {
+                passed++;
+            }
+        }
+        pool.shutdown();
+
+        assertThat(passed).isEqualTo(3);
+        assertThat(totals.monthTotal(EMPLOYEE, "Food", DAY)).isEqualTo(90_000);
+    }
+
+    @Test
+    void releaseGivesTheRoomBackAndCommitKeepsIt() {
+        PolicyEngine.Decision first = engine.check(food(800), null);
+        assertThat(engine.check(food(300), null).violation().rule()).isEqualTo("monthly-cap");
+
+        first.reservation().release();
+        PolicyEngine.Decision second = engine.check(food(300), null);
+        second.reservation().commit();
+        // Settling twice changes nothing
+        second.reservation().release();
+        assertThat(totals.monthTotal(EMPLOYEE, "Food", DAY)).isEqualTo(30_000);
+    }
+
+    @Test
+    void anEditIsNotCountedAgainstItself() {
+        engine.check(food(900), null).reservation().commit();
+        SpendingTotals.Contribution before = totals.contributionOf(food(900));
+
+        PolicyEngine.Decision edit = engine.check(food(950), before);
+        assertThat(edit.violation()).isNull();
+        edit.reservation().release();
+        assertThat(totals.monthTotal(EMPLOYEE, "Food", DAY)).isEqualTo(90_000);
+    }
+
+    @Test
+    void reloadReplacesTheEmployeesTotalsButKeepsReservations() {
+        engine.check(food(200), null).reservation().commit();
+        engine.check(food(100), null);
+
+        // Another node saved 500 more; the database now has 700 for the month
+        BillRepository.MonthlyTotalRow row = mock(BillRepository.MonthlyTotalRow.class);
+        when(row.getEmployeeId()).thenReturn(EMPLOYEE);
+        when(row.getCategory()).thenReturn("Food");
+        when(row.getYear()).thenReturn(DAY.getYear());
+        when(row.getMonth()).thenReturn(DAY.getMonthValue());
+        when(row.getPaise()).thenReturn(70_000.0);
+        when(billRepository.sumMonthlyTotalsOf(EMPLOYEE)).thenReturn(List.of(row));
+
+        totals.reload(EMPLOYEE);
+        assertThat(totals.monthTotal(EMPLOYEE, "Food", DAY)).isEqualTo(80_000);
+        assertThat(engine.check(food(300), null).violation()).isNotNull();
+    }
+}
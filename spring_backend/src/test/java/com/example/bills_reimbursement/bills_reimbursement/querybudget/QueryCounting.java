@@ -0,0 +1,39 @@
+package com.example.bills_reimbursement.bills_reimbursement.querybudget;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+    Counts the SQL statements an action runs on the calling thread, as QueryCounter does
+    for a request, and fails when they exceed a budget. MockMvc handles the request on the
+    test's thread, so wrapping perform() counts the whole request; run the app with
+    querybudget.mode=off so the interceptor doesn't open a count of its own over this one.
+*/
+public final class QueryCounting {
+
+    @FunctionalInterface
+    public interface Action {
+        void run() throws Exception;
+    }
+
+    private QueryCounting() {
+    }
+
+    public static int count(Action action) throws Exception {
+        QueryCounter.begin("test", -1, false);
+        try {
+            action.run();
+        } catch (Exception | Error e) {
+            QueryCounter.end();
+            throw e;
+        }
+        int statements = QueryCounter.end();
+        assertThat(statements).as("statements counted; -1 means the request ended the count itself").isNotNegative();
+        return statements;
+    }
+
+    public static void assertAtMost(int budget, Action action) throws Exception {
+        assertThat(count(action))
+                .as("SQL statements run, against a budget of %d", budget)
+                .isLessThanOrEqualTo(budget);
+    }
+}
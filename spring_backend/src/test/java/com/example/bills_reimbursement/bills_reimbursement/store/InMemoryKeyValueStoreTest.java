@@ -0,0 +1,43 @@
+package com.example.bills_reimbursement.bills_reimbursement.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryKeyValueStoreTest extends KeyValueStoreContract {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    private final InMemoryKeyValueStore store = new InMemoryKeyValueStore(now::get);
+
+    @Override
+    KeyValueStore store() {
+        return store;
+    }
+
+    @Override
+    void advance(Duration duration) {
+        now.addAndGet(duration.toMillis());
+    }
+
+    @Test
+    void purgeReclaimsExpiredKeysThatAreNeverRead() {
+        store.set(key, "a", TTL);
+        store.set(key + ":long", "b", TTL.multipliedBy(10));
+        advance(TTL.plusMillis(200));
+        store.purgeExpired();
+        assertThat(store.size()).isEqualTo(1);
+    }
+
+    @Test
+    void purgeKeepsAKeyWhoseTtlWasExtended() {
+        store.set(key, "a", TTL);
+        store.expire(key, TTL.multipliedBy(10));
+        advance(TTL.plusMillis(200));
+        store.purgeExpired();
+        assertThat(store.get(key)).isEqualTo("a");
+    }
+}
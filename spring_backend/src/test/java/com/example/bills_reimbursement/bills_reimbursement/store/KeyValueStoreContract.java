@@ -0,0 +1,139 @@
+package com.example.bills_reimbursement.bills_reimbursement.store;
+
+import com.example.bills_reimbursement.bills_reimbursement.ratelimit.RateLimitDecision;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+    What every KeyValueStore must do, written once and run against each implementation,
+    so the in-process store keeps behaving like Redis. A subclass supplies the store
+    and a way to let time pass: the in-memory store steps its clock, Redis sleeps.
+    TTLs are short so the Redis run stays quick.
+*/
+abstract class KeyValueStoreContract {
+
+    static final Duration TTL = Duration.ofMillis(300);
+
+    abstract KeyValueStore store();
+
+    abstract void advance(Duration duration) throws InterruptedException;
+
+    // Fresh per test, so a shared Redis needs no flushing between tests
+    final String key = "contract:" + UUID.randomUUID();
+
+    @Test
+    void getReturnsWhatWasSetUntilItExpires() throws InterruptedException {
+        store().set(key, "a", TTL);
+        assertThat(store().get(key)).isEqualTo("a");
+        assertThat(store().exists(key)).isTrue();
+
+        advance(TTL.plusMillis(50));
+        assertThat(store().get(key)).isNull();
+        assertThat(store().exists(key)).isFalse();
+    }
+
+    @Test
+    void setReplacesTheValueAndTtl() throws InterruptedException {
+        store().set(key, "a", TTL);
+        store().set(key, "b", TTL.multipliedBy(4));
+        advance(TTL.plusMillis(50));
+        assertThat(store().get(key)).isEqualTo("b");
+    }
+
+    @Test
+    void missingKeyIsNull() {
+        assertThat(store().get(key)).isNull();
+        assertThat(store().exists(key)).isFalse();
+    }
+
+    @Test
+    void setIfAbsentOnlySetsAMissingOrExpiredKey() throws InterruptedException {
+        assertThat(store().setIfAbsent(key, "first", TTL)).isTrue();
+        assertThat(store().setIfAbsent(key, "second", TTL)).isFalse();
+        assertThat(store().get(key)).isEqualTo("first");
+
+        advance(TTL.plusMillis(50));
+        assertThat(store().setIfAbsent(key, "third", TTL)).isTrue();
+        assertThat(store().get(key)).isEqualTo("third");
+    }
+
+    @Test
+    void deleteRemovesTheKey() {
+        store().set(key, "a", TTL);
+        store().delete(key);
+        assertThat(store().get(key)).isNull();
+        // Deleting a missing key is fine
+        store().delete(key);
+    }
+
+    @Test
+    void incrementStartsAtOneWithoutTtl() throws InterruptedException {
+        assertThat(store().increment(key)).isEqualTo(1);
+        assertThat(store().increment(key)).isEqualTo(2);
+        advance(TTL.plusMillis(50));
+        assertThat(store().get(key)).isEqualTo("2");
+    }
+
+    @Test
+    void incrementKeepsAnExistingTtl() throws InterruptedException {
+        store().set(key, "5", TTL);
+        assertThat(store().increment(key)).isEqualTo(6);
+        advance(TTL.plusMillis(50));
+        assertThat(store().get(key)).isNull();
+        assertThat(store().increment(key)).isEqualTo(1);
+    }
+
+    @Test
+    void expireSetsTheTtlOfAnExistingKeyOnly() throws InterruptedException {
+        store().expire(key, TTL);
+        assertThat(store().exists(key)).isFalse();
+
+        store().increment(key);
+        store().expire(key, TTL);
+        advance(TTL.plusMillis(50));
+        assertThat(store().exists(key)).isFalse();
+    }
+
+    @Test
+    void expireIfEqualsRenewsOnlyForTheHolder() throws InterruptedException {
+        store().set(key, "holder", TTL);
+        assertThat(store().expireIfEquals(key, "other", TTL.multipliedBy(4))).isFalse();
+        assertThat(store().expireIfEquals(key, "holder", TTL.multipliedBy(4))).isTrue();
+        advance(TTL.plusMillis(50));
+        assertThat(store().get(key)).isEqualTo("holder");
+
+        assertThat(store().expireIfEquals(key + ":missing", "holder", TTL)).isFalse();
+    }
+
+    @Test
+    void deleteIfEqualsDeletesOnlyForTheHolder() throws InterruptedException {
+        store().set(key, "holder", TTL);
+        assertThat(store().deleteIfEquals(key, "other")).isFalse();
+        assertThat(store().get(key)).isEqualTo("holder");
+        assertThat(store().deleteIfEquals(key, "holder")).isTrue();
+        assertThat(store().exists(key)).isFalse();
+
+        store().set(key, "holder", TTL);
+        advance(TTL.plusMillis(50));
+        assertThat(store().deleteIfEquals(key, "holder")).isFalse();
+    }
+
+    @Test
+    void tryConsumeTakesTokensUpToCapacityThenRefills() throws InterruptedException {
+        // 2 tokens, one back every 200 ms
+        double tokensPerMilli = 1 / 200.0;
+        assertThat(store().tryConsume(key, 2, tokensPerMilli).allowed()).isTrue();
+        assertThat(store().tryConsume(key, 2, tokensPerMilli).allowed()).isTrue();
+
+        RateLimitDecision rejected = store().tryConsume(key, 2, tokensPerMilli);
+        assertThat(rejected.allowed()).isFalse();
+        assertThat(rejected.retryAfterMillis()).isBetween(1L, 200L);
+
+        advance(Duration.ofMillis(250));
+        assertThat(store().tryConsume(key, 2, tokensPerMilli).allowed()).isTrue();
+    }
+}
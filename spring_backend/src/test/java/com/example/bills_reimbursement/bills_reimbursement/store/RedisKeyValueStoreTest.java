@@ -0,0 +1,47 @@
+package com.example.bills_reimbursement.bills_reimbursement.store;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+
+// Against a real Redis in a container; skipped where Docker isn't available
+@Testcontainers(disabledWithoutDocker = true)
+class RedisKeyValueStoreTest extends KeyValueStoreContract {
+
+    @Container
+    private static final GenericContainer<?> REDIS = new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+    private static LettuceConnectionFactory connectionFactory;
+
+    private static RedisKeyValueStore store;
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(REDIS.getHost(), REDIS.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        store = new RedisKeyValueStore(new StringRedisTemplate(connectionFactory));
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @Override
+    KeyValueStore store() {
+        return store;
+    }
+
+    @Override
+    void advance(Duration duration) throws InterruptedException {
+        Thread.sleep(duration.toMillis());
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.bills_reimbursement.bills_reimbursement.tenancy;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TenantRoutingDataSourceTest {
+
+    private static final String URL = "jdbc:mysql://db.internal:3306/bills?rewriteBatchedStatements=true";
+
+    @Test
+    void defaultDatabaseIsReadFromTheUrl() {
+        assertThat(TenantRoutingDataSource.databaseOf(URL)).isEqualTo("bills");
+        assertThat(TenantRoutingDataSource.databaseOf("jdbc:mysql:replication://a:3306,b:3306/bills")).isEqualTo("bills");
+        assertThat(TenantRoutingDataSource.databaseOf("jdbc:mysql://db.internal:3306/")).isNull();
+        assertThat(TenantRoutingDataSource.databaseOf("jdbc:h2:mem:bills")).isNull();
+    }
+
+    @Test
+    void schemasNeedADatabaseInTheUrl() {
+        assertThatThrownBy(() -> new TenantRoutingDataSource(mock(DataSource.class), Map.of(),
+                Map.of("beta", "beta_bills"), "jdbc:mysql://db.internal:3306/"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("spring.datasource.url");
+    }
+
+    @Test
+    void connectionLeftOnAnotherTenantsSchemaIsSwitchedBack() throws Exception {
+        // The default tenant's first connection is still on beta's schema
+        Connection connection = mock(Connection.class);
+        when(connection.getCatalog()).thenReturn("beta_bills");
+        DataSource shared = mock(DataSource.class);
+        when(shared.getConnection()).thenReturn(connection);
+        TenantRoutingDataSource routing = new TenantRoutingDataSource(shared, Map.of(),
+                Map.of("beta", "beta_bills"), URL);
+
+        routing.getConnection();
+
+        verify(connection).setCatalog("bills");
+    }
+}
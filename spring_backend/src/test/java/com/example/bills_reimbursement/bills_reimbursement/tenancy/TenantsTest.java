@@ -0,0 +1,39 @@
+package com.example.bills_reimbursement.bills_reimbursement.tenancy;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TenantsTest {
+
+    private static TenancyProperties.Tenant tenant(String emailDomain, String schema) {
+        TenancyProperties.Tenant tenant = new TenancyProperties.Tenant();
+        tenant.setEmailDomain(emailDomain);
+        tenant.setSchema(schema);
+        return tenant;
+    }
+
+    private static TenancyProperties properties(TenancyProperties.Tenant globex) {
+        TenancyProperties properties = new TenancyProperties();
+        properties.setEnabled(true);
+        properties.setDefaultTenant("axeno");
+        properties.getTenants().put("axeno", tenant("axeno.co", null));
+        properties.getTenants().put("globex", globex);
+        return properties;
+    }
+
+    @Test
+    void otherTenantsNeedADatabaseOfTheirOwn() {
+        assertThatThrownBy(() -> new Tenants(properties(tenant("globex.com", " "))))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("tenancy.tenants.globex needs a schema or a datasource");
+    }
+
+    @Test
+    void defaultTenantUsesTheConfiguredDatabase() {
+        Tenants tenants = new Tenants(properties(tenant("globex.com", "bills_globex")));
+
+        assertThat(tenants.ids()).containsExactly("axeno", "globex");
+    }
+}